@@ -143,6 +143,24 @@ public class Constants {
 
     public static final int     MIN_BUFFER_SIZE                    = 1 * 1024;
 
+    public static final int     DEFAULT_WRITE_COALESCE_MESSAGES    = 64;
+
+    public static final int     DEFAULT_WRITE_COALESCE_BYTES       = 64 * 1024;
+
+    public static final int     DEFAULT_CONNECTIONS_GROW_INFLIGHT  = 64;
+
+    public static final int     DEFAULT_CONNECTIONS_GROW_BYTES     = 256 * 1024;
+
+    public static final int     DEFAULT_CONNECTIONS_IDLE           = 60 * 1000;
+
+    public static final int     DEFAULT_COMPRESSOR_THRESHOLD       = 4 * 1024;
+
+    public static final int     DEFAULT_STREAM_CHUNK               = 1000;
+
+    public static final int     DEFAULT_STREAM_WINDOW              = 4;
+
+    public static final int     DEFAULT_STREAM_TIMEOUT             = 60 * 1000;
+
     public static final String  REMOVE_VALUE_PREFIX                = "-";
 
     public static final String  HIDE_KEY_PREFIX                    = ".";
@@ -224,6 +242,12 @@ public class Constants {
 
     public static final String  PAYLOAD_KEY                        = "payload";
 
+    public static final String  WRITE_COALESCE_KEY                 = "write.coalesce";
+
+    public static final String  WRITE_COALESCE_MESSAGES_KEY        = "write.coalesce.messages";
+
+    public static final String  WRITE_COALESCE_BYTES_KEY           = "write.coalesce.bytes";
+
     public static final String  REFERENCE_FILTER_KEY               = "reference.filter";
 
     public static final String  INVOKER_LISTENER_KEY               = "invoker.listener";
@@ -238,6 +262,20 @@ public class Constants {
 
     public static final String  CONNECTIONS_KEY                    = "connections";
 
+    public static final String  CONNECTIONS_MIN_KEY                = "connections.min";
+
+    public static final String  CONNECTIONS_MAX_KEY                = "connections.max";
+
+    public static final String  CONNECTIONS_GROW_INFLIGHT_KEY      = "connections.grow.inflight";
+
+    public static final String  CONNECTIONS_GROW_BYTES_KEY         = "connections.grow.bytes";
+
+    public static final String  CONNECTIONS_IDLE_KEY               = "connections.idle";
+
+    public static final String  INFLIGHT_KEY                       = "inflight";
+
+    public static final String  INFLIGHT_FAILFAST_KEY              = "inflight.failfast";
+
     public static final String  ACCEPTS_KEY                        = "accepts";
 
     public static final String  IDLE_TIMEOUT_KEY                   = "idle.timeout";
@@ -250,6 +288,8 @@ public class Constants {
 
     public static final String  TIMEOUT_KEY                        = "timeout";
 
+    public static final String  DEADLINE_KEY                       = "deadline";
+
     public static final String  RETRIES_KEY                        = "retries";
 
     public static final String  PROMPT_KEY                         = "prompt";
@@ -260,6 +300,18 @@ public class Constants {
 
     public static final String  SERIALIZATION_KEY                  = "serialization";
 
+    public static final String  COMPRESSOR_KEY                     = "compressor";
+
+    public static final String  COMPRESSOR_THRESHOLD_KEY           = "compressor.threshold";
+
+    public static final String  STREAM_KEY                         = "stream";
+
+    public static final String  STREAM_CHUNK_KEY                   = "stream.chunk";
+
+    public static final String  STREAM_WINDOW_KEY                  = "stream.window";
+
+    public static final String  STREAM_TIMEOUT_KEY                 = "stream.timeout";
+
     public static final String  EXCHANGER_KEY                      = "exchanger";
 
     public static final String  TRANSPORTER_KEY                    = "transporter";
@@ -359,6 +411,16 @@ public class Constants {
 
     public static final int     DEFAULT_CONNECT_QUEUE_WARNING_SIZE = 1000;
 
+    public static final String  ORDER_KEY                          = "order";
+
+    public static final String  ORDER_CONNECTION                   = "connection";
+
+    public static final String  ORDER_ARGUMENT                     = "argument";
+
+    public static final String  ORDER_ARGUMENT_KEY                 = "order.argument";
+
+    public static final String  STRIPES_KEY                        = "stripes";
+
     public static final String  CHANNEL_ATTRIBUTE_READONLY_KEY     = "channel.readonly";
 
     public static final String  CHANNEL_READONLYEVENT_SENT_KEY     = "channel.readonly.sent";
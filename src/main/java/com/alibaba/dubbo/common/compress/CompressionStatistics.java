@@ -0,0 +1,111 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.compress;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.dubbo.common.extension.ExtensionLoader;
+
+/**
+ * Process-wide counters of the messages compressed and decompressed by a compressor, the
+ * elapsed time is spent in the compressor streams, i.e. the cpu time of the codec.
+ */
+public final class CompressionStatistics {
+
+    // <compressor name, statistics>
+    private static final ConcurrentMap<String, CompressionStatistics> STATISTICS = new ConcurrentHashMap<String, CompressionStatistics>();
+
+    public static CompressionStatistics getStatistics(String compressor) {
+        CompressionStatistics statistics = STATISTICS.get(compressor);
+        if (statistics == null) {
+            STATISTICS.putIfAbsent(compressor, new CompressionStatistics(compressor));
+            statistics = STATISTICS.get(compressor);
+        }
+        return statistics;
+    }
+
+    public static CompressionStatistics getStatistics(Compressor compressor) {
+        return getStatistics(ExtensionLoader.getExtensionLoader(Compressor.class).getExtensionName(compressor));
+    }
+
+    public static Collection<CompressionStatistics> getAllStatistics() {
+        return new ArrayList<CompressionStatistics>(STATISTICS.values());
+    }
+
+    private final String compressor;
+
+    private final AtomicLong compressed = new AtomicLong();
+
+    private final AtomicLong compressInput = new AtomicLong();
+
+    private final AtomicLong compressOutput = new AtomicLong();
+
+    private final AtomicLong compressElapsed = new AtomicLong();
+
+    private final AtomicLong decompressed = new AtomicLong();
+
+    private final AtomicLong decompressInput = new AtomicLong();
+
+    private final AtomicLong decompressOutput = new AtomicLong();
+
+    private final AtomicLong decompressElapsed = new AtomicLong();
+
+    private CompressionStatistics(String compressor) {
+        this.compressor = compressor;
+    }
+
+    /**
+     * @param input the uncompressed bytes
+     * @param output the compressed bytes
+     * @param elapsed nanoseconds
+     */
+    public void compressed(long input, long output, long elapsed) {
+        compressed.incrementAndGet();
+        compressInput.addAndGet(input);
+        compressOutput.addAndGet(output);
+        compressElapsed.addAndGet(elapsed);
+    }
+
+    /**
+     * @param input the compressed bytes
+     * @param output the uncompressed bytes
+     * @param elapsed nanoseconds
+     */
+    public void decompressed(long input, long output, long elapsed) {
+        decompressed.incrementAndGet();
+        decompressInput.addAndGet(input);
+        decompressOutput.addAndGet(output);
+        decompressElapsed.addAndGet(elapsed);
+    }
+
+    public String getCompressor() {
+        return compressor;
+    }
+
+    /**
+     * the counters: compressed messages, input bytes, output bytes, elapsed nanoseconds, then the
+     * same of the decompressed messages.
+     */
+    public long[] getCounters() {
+        return new long[] {compressed.get(), compressInput.get(), compressOutput.get(), compressElapsed.get(),
+                decompressed.get(), decompressInput.get(), decompressOutput.get(), decompressElapsed.get()};
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.alibaba.dubbo.common.extension.SPI;
+
+/**
+ * Compressor of the message bodies. (SPI, Singleton, ThreadSafe)
+ * <p>
+ * The streams are created per message, the compressed stream must be self delimited or end with
+ * the input stream given to {@link #decompress(InputStream)}.
+ * </p>
+ */
+@SPI("deflate")
+public interface Compressor {
+
+    /**
+     * get compressor id, written before the compressed body.
+     *
+     * @return compressor id, 1 to 127
+     */
+    byte getId();
+
+    /**
+     * create compressing stream, the stream is closed once the body is written.
+     *
+     * @param output
+     * @return compressing stream
+     * @throws IOException
+     */
+    OutputStream compress(OutputStream output) throws IOException;
+
+    /**
+     * create decompressing stream.
+     *
+     * @param input
+     * @return decompressing stream
+     * @throws IOException
+     */
+    InputStream decompress(InputStream input) throws IOException;
+
+}
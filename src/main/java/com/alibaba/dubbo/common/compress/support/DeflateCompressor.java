@@ -0,0 +1,68 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.compress.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import com.alibaba.dubbo.common.compress.Compressor;
+
+/**
+ * Compressor of the jdk zlib, favours speed over ratio, always available.
+ */
+public class DeflateCompressor implements Compressor {
+
+    public static final byte ID = 1;
+
+    private static final int BUFFER_SIZE = 4096;
+
+    public byte getId() {
+        return ID;
+    }
+
+    public OutputStream compress(OutputStream output) throws IOException {
+        // the native memory is released on close, not left to the finalizer.
+        return new DeflaterOutputStream(output, new Deflater(Deflater.BEST_SPEED), BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    def.end();
+                }
+            }
+        };
+    }
+
+    public InputStream decompress(InputStream input) throws IOException {
+        return new InflaterInputStream(input, new Inflater(), BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inf.end();
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.compress.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.xerial.snappy.Snappy;
+import org.xerial.snappy.SnappyInputStream;
+import org.xerial.snappy.SnappyOutputStream;
+
+import com.alibaba.dubbo.common.compress.Compressor;
+
+/**
+ * Compressor of the snappy streams, requires snappy-java in the classpath and its native library
+ * loadable on the platform, the extension fails to load otherwise.
+ */
+public class SnappyCompressor implements Compressor {
+
+    public static final byte ID = 3;
+
+    public SnappyCompressor() {
+        // loads the native library
+        Snappy.getNativeLibraryVersion();
+    }
+
+    public byte getId() {
+        return ID;
+    }
+
+    public OutputStream compress(OutputStream output) throws IOException {
+        return new SnappyOutputStream(output);
+    }
+
+    public InputStream decompress(InputStream input) throws IOException {
+        return new SnappyInputStream(input);
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.threadpool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.dubbo.common.utils.RollingHistogram;
+
+/**
+ * Process-wide statistics of the tasks of the server thread pools of a name over the last minute.
+ * The queue wait is the time from the decode of the request, or the dispatch of the event, to its
+ * start. The client pools are not recorded, their names carry the provider address and would
+ * leave an entry behind for every provider ever connected.
+ */
+public final class ThreadPoolStatistics {
+
+    private static final int  SLOTS       = 6;
+
+    private static final long SLOT_MILLIS = 10 * 1000;
+
+    // <thread name, statistics>
+    private static final ConcurrentMap<String, ThreadPoolStatistics> STATISTICS = new ConcurrentHashMap<String, ThreadPoolStatistics>();
+
+    public static ThreadPoolStatistics getStatistics(String name) {
+        ThreadPoolStatistics statistics = STATISTICS.get(name);
+        if (statistics == null) {
+            STATISTICS.putIfAbsent(name, new ThreadPoolStatistics(name));
+            statistics = STATISTICS.get(name);
+        }
+        return statistics;
+    }
+
+    /**
+     * @return the statistics of the name, null if its pools are not recorded
+     */
+    public static ThreadPoolStatistics findStatistics(String name) {
+        return STATISTICS.get(name);
+    }
+
+    public static Collection<ThreadPoolStatistics> getAllStatistics() {
+        return new ArrayList<ThreadPoolStatistics>(STATISTICS.values());
+    }
+
+    /**
+     * discard the tasks never going to run, e.g. the tasks returned by <code>shutdownNow()</code>.
+     */
+    public static void discard(Collection<Runnable> tasks) {
+        for (Runnable task : tasks) {
+            if (task instanceof Task) {
+                ((Task) task).discard();
+            }
+        }
+    }
+
+    private final String           name;
+
+    private final AtomicInteger    active        = new AtomicInteger();
+
+    private final AtomicInteger    queued        = new AtomicInteger();
+
+    private final AtomicLong       rejected      = new AtomicLong();
+
+    // microseconds
+    private final RollingHistogram queueWait     = new RollingHistogram(SLOTS, SLOT_MILLIS);
+
+    // microseconds
+    private final RollingHistogram execution     = new RollingHistogram(SLOTS, SLOT_MILLIS);
+
+    // sampled at every start
+    private final RollingHistogram activeThreads = new RollingHistogram(SLOTS, SLOT_MILLIS);
+
+    // sampled at every dispatch
+    private final RollingHistogram queueDepth    = new RollingHistogram(SLOTS, SLOT_MILLIS);
+
+    private final RollingHistogram rejections    = new RollingHistogram(SLOTS, SLOT_MILLIS);
+
+    private ThreadPoolStatistics(String name) {
+        this.name = name;
+    }
+
+    public void dispatched() {
+        queueDepth.record(queued.incrementAndGet());
+    }
+
+    /**
+     * @param wait nanoseconds from decode or dispatch
+     */
+    public void started(long wait) {
+        queued.decrementAndGet();
+        activeThreads.record(active.incrementAndGet());
+        queueWait.record(wait / 1000);
+    }
+
+    /**
+     * @param elapsed nanoseconds from start
+     */
+    public void finished(long elapsed) {
+        active.decrementAndGet();
+        execution.record(elapsed / 1000);
+    }
+
+    /**
+     * a dispatched task will never start.
+     */
+    public void discarded() {
+        queued.decrementAndGet();
+    }
+
+    public void rejected() {
+        rejected.incrementAndGet();
+        rejections.record(1);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getActiveCount() {
+        return Math.max(active.get(), 0);
+    }
+
+    public int getQueueSize() {
+        return Math.max(queued.get(), 0);
+    }
+
+    /**
+     * @return the tasks rejected since started
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public RollingHistogram.Snapshot getQueueWait() {
+        return queueWait.getSnapshot();
+    }
+
+    public RollingHistogram.Snapshot getExecution() {
+        return execution.getSnapshot();
+    }
+
+    public RollingHistogram.Snapshot getActiveThreads() {
+        return activeThreads.getSnapshot();
+    }
+
+    public RollingHistogram.Snapshot getQueueDepth() {
+        return queueDepth.getSnapshot();
+    }
+
+    public RollingHistogram.Snapshot getRejections() {
+        return rejections.getSnapshot();
+    }
+
+    /**
+     * A task counted as queued from its dispatch to its start.
+     */
+    public interface Task extends Runnable {
+
+        /**
+         * uncount the task never going to run, no-op if started or discarded already.
+         */
+        void discard();
+
+    }
+
+}
@@ -21,6 +21,7 @@ import java.util.concurrent.ThreadPoolExecutor;
 import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.threadpool.ThreadPoolStatistics;
 
 /**
  * Abort Policy.
@@ -50,7 +51,29 @@ public class AbortPolicyWithReport extends ThreadPoolExecutor.AbortPolicy {
                 e.getTaskCount(), e.getCompletedTaskCount(), e.isShutdown(), e.isTerminated(), e.isTerminating(),
                 url.getProtocol(), url.getIp(), url.getPort());
         logger.warn(msg);
+        rejected();
         throw new RejectedExecutionException(msg);
     }
 
+    /**
+     * report the task rejected by an executor other than {@link ThreadPoolExecutor}.
+     * 
+     * @param status the pool size, tasks and executor status of the executor
+     */
+    public void rejectedExecution(Runnable r, String status) {
+        String msg = String.format("Thread pool is EXHAUSTED!" +
+                " Thread Name: %s, %s, in %s://%s:%d!" ,
+                threadName, status, url.getProtocol(), url.getIp(), url.getPort());
+        logger.warn(msg);
+        rejected();
+        throw new RejectedExecutionException(msg);
+    }
+
+    private void rejected() {
+        ThreadPoolStatistics statistics = ThreadPoolStatistics.findStatistics(threadName);
+        if (statistics != null) {
+            statistics.rejected();
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.threadpool.support.eager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.dubbo.common.threadpool.support.AbortPolicyWithReport;
+import com.alibaba.dubbo.common.utils.RollingHistogram;
+
+/**
+ * The executor growing to the maximum pool size before queueing with a {@link TaskQueue}, and
+ * recording how long the tasks waited in the queue in the last minute.
+ */
+public class EagerThreadPoolExecutor extends ThreadPoolExecutor {
+
+    // a task refused by the queue is offered again before reporting
+    private static final RejectedExecutionHandler RETRY = new RejectedExecutionHandler() {
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            throw new RejectedExecutionException();
+        }
+    };
+
+    private final AbortPolicyWithReport handler;
+
+    // the tasks submitted and not finished, running or queued
+    private final AtomicInteger         submittedTaskCount = new AtomicInteger();
+
+    // microseconds, 6 slots of 10 seconds
+    private final RollingHistogram      queueWait          = new RollingHistogram(6, 10 * 1000);
+
+    public EagerThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                                   TaskQueue workQueue, ThreadFactory threadFactory, AbortPolicyWithReport handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, RETRY);
+        this.handler = handler;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        QueuedTask task = new QueuedTask(command);
+        submittedTaskCount.incrementAndGet();
+        try {
+            super.execute(task);
+        } catch (RejectedExecutionException e) {
+            boolean queued;
+            try {
+                queued = ! isShutdown() && ((TaskQueue) getQueue()).retryOffer(task);
+            } catch (RejectedExecutionException ex) {
+                queued = false;
+            }
+            if (! queued) {
+                submittedTaskCount.decrementAndGet();
+                handler.rejectedExecution(command, this);
+            }
+        }
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        if (r instanceof QueuedTask) {
+            queueWait.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - ((QueuedTask) r).queued));
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        submittedTaskCount.decrementAndGet();
+    }
+
+    /**
+     * @return the submitted tasks never started, not the queue entries wrapping them
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for (Runnable task : super.shutdownNow()) {
+            tasks.add(task instanceof QueuedTask ? ((QueuedTask) task).task : task);
+        }
+        submittedTaskCount.addAndGet(- tasks.size());
+        return tasks;
+    }
+
+    /**
+     * @return the tasks submitted and not finished, running or queued
+     */
+    public int getSubmittedTaskCount() {
+        return submittedTaskCount.get();
+    }
+
+    /**
+     * @return the microseconds the tasks started in the last minute waited before running
+     */
+    public RollingHistogram.Snapshot getQueueWait() {
+        return queueWait.getSnapshot();
+    }
+
+    private static final class QueuedTask implements Runnable {
+
+        private final Runnable task;
+
+        private final long     queued = System.nanoTime();
+
+        QueuedTask(Runnable task) {
+            this.task = task;
+        }
+
+        public void run() {
+            task.run();
+        }
+    }
+
+}
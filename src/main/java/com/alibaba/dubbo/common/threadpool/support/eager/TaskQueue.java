@@ -0,0 +1,73 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.threadpool.support.eager;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The queue of {@link EagerThreadPoolExecutor}, refusing the tasks while the pool may grow, so
+ * the executor creates a thread for the task instead of queueing it.
+ * <p>
+ * With <code>queues</code> &lt; 0 the queue is unbounded, with <code>queues</code> = 0 no task
+ * is queued and the task is rejected once all the threads are busy.
+ * </p>
+ */
+public class TaskQueue extends LinkedBlockingQueue<Runnable> {
+
+    private static final long serialVersionUID = -2635853580887179627L;
+
+    private final boolean                       queueing;
+
+    private transient EagerThreadPoolExecutor   executor;
+
+    public TaskQueue(int queues) {
+        super(queues > 0 ? queues : (queues < 0 ? Integer.MAX_VALUE : 1));
+        this.queueing = queues != 0;
+    }
+
+    void setExecutor(EagerThreadPoolExecutor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        if (executor == null) {
+            throw new RejectedExecutionException("The task queue does not have an executor!");
+        }
+        int poolSize = executor.getPoolSize();
+        // a thread is idle, queue it for that thread
+        if (queueing && executor.getSubmittedTaskCount() <= poolSize) {
+            return super.offer(task);
+        }
+        // refuse it to create a new thread
+        if (poolSize < executor.getMaximumPoolSize()) {
+            return false;
+        }
+        return queueing && super.offer(task);
+    }
+
+    /**
+     * queue the task refused when the pool was about to grow, but grew to the max in the meantime.
+     */
+    boolean retryOffer(Runnable task) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Executor is shutdown!");
+        }
+        return queueing && super.offer(task);
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.threadpool.support.virtual;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.threadpool.support.AbortPolicyWithReport;
+
+/**
+ * Runs every task on a new thread of the factory, at most <code>threads</code> of them at the same
+ * time. With <code>queues</code> &gt; 0 up to that many tasks more wait for a permit, parked on the
+ * fair semaphore in their own thread, with <code>queues</code> &lt; 0 any number of them. Other
+ * tasks are rejected by the {@link AbortPolicyWithReport}.
+ */
+public class VirtualThreadExecutor extends AbstractExecutorService {
+
+    private static final Logger          logger    = LoggerFactory.getLogger(VirtualThreadExecutor.class);
+
+    private final int                    threads;
+
+    private final int                    capacity;
+
+    private final Semaphore              permits;
+
+    private final ThreadFactory          factory;
+
+    private final AbortPolicyWithReport  handler;
+
+    // the tasks accepted and not finished, running or waiting for a permit
+    private final AtomicInteger          tasks     = new AtomicInteger();
+
+    private final AtomicInteger          largest   = new AtomicInteger();
+
+    private final AtomicLong             completed = new AtomicLong();
+
+    private final Set<Thread>            running   = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+
+    private final Object                 termination = new Object();
+
+    private volatile boolean             shutdown;
+
+    public VirtualThreadExecutor(int threads, int queues, ThreadFactory factory, AbortPolicyWithReport handler) {
+        this.threads = threads;
+        this.capacity = queues < 0 ? Integer.MAX_VALUE : threads + queues;
+        this.permits = new Semaphore(threads, true);
+        this.factory = factory;
+        this.handler = handler;
+    }
+
+    public void execute(final Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        if (shutdown || ! acquire()) {
+            handler.rejectedExecution(task, getStatus());
+            return;
+        }
+        Thread thread = factory.newThread(new Runnable() {
+            public void run() {
+                runTask(task);
+            }
+        });
+        try {
+            thread.start();
+        } catch (Throwable t) {
+            release();
+            handler.rejectedExecution(task, getStatus() + ", cause: " + t.getMessage());
+        }
+    }
+
+    private boolean acquire() {
+        int n = tasks.incrementAndGet();
+        if (n > capacity) {
+            release();
+            return false;
+        }
+        for (int l = largest.get(); n > l && ! largest.compareAndSet(l, n); l = largest.get()) {
+        }
+        return true;
+    }
+
+    private void release() {
+        if (tasks.decrementAndGet() == 0 && shutdown) {
+            synchronized (termination) {
+                termination.notifyAll();
+            }
+        }
+    }
+
+    private void runTask(Runnable task) {
+        Thread thread = Thread.currentThread();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            release();
+            return;
+        }
+        running.add(thread);
+        try {
+            task.run();
+        } catch (Throwable t) {
+            logger.warn("Failed to run task in " + thread.getName() + ", cause: " + t.getMessage(), t);
+        } finally {
+            running.remove(thread);
+            permits.release();
+            completed.incrementAndGet();
+            release();
+        }
+    }
+
+    private String getStatus() {
+        return String.format("Pool Size: %d (active: %d, max: %d, largest: %d), Task: %d (completed: %d),"
+                + " Executor status:(isShutdown:%s, isTerminated:%s)",
+                tasks.get(), getActiveCount(), threads, largest.get(), tasks.get() + completed.get(),
+                completed.get(), isShutdown(), isTerminated());
+    }
+
+    /**
+     * @return the tasks running
+     */
+    public int getActiveCount() {
+        return threads - permits.availablePermits();
+    }
+
+    /**
+     * @return the tasks waiting for a permit
+     */
+    public int getQueueSize() {
+        return permits.getQueueLength();
+    }
+
+    public int getMaximumPoolSize() {
+        return threads;
+    }
+
+    /**
+     * @return the most tasks accepted at the same time
+     */
+    public int getLargestPoolSize() {
+        return largest.get();
+    }
+
+    public long getCompletedTaskCount() {
+        return completed.get();
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        if (tasks.get() == 0) {
+            synchronized (termination) {
+                termination.notifyAll();
+            }
+        }
+    }
+
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        for (Thread thread : running) {
+            thread.interrupt();
+        }
+        return new ArrayList<Runnable>();
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    public boolean isTerminated() {
+        return shutdown && tasks.get() == 0;
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (termination) {
+            while (! isTerminated()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(termination, remaining);
+            }
+            return true;
+        }
+    }
+
+}
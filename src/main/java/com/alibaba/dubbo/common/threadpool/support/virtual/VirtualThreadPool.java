@@ -0,0 +1,94 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.threadpool.support.virtual;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.threadpool.ThreadPool;
+import com.alibaba.dubbo.common.threadpool.support.AbortPolicyWithReport;
+import com.alibaba.dubbo.common.threadpool.support.fixed.FixedThreadPool;
+
+/**
+ * 每个任务一个虚拟线程，同时执行的任务不超过threads个，适合阻塞的服务。JDK21以下退化为fixed线程池
+ * 
+ * @see VirtualThreadExecutor
+ */
+public class VirtualThreadPool implements ThreadPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPool.class);
+
+    private static final Method OF_VIRTUAL;
+
+    private static final Method NAME;
+
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null, name = null, factory = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            // fails on the jdk with virtual threads as preview feature not enabled
+            newFactory(ofVirtual, name, factory, "VirtualThreadPool");
+        } catch (Throwable t) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    public Executor getExecutor(URL url) {
+        String name = url.getParameter(Constants.THREAD_NAME_KEY, Constants.DEFAULT_THREAD_NAME);
+        if (! isSupported()) {
+            logger.warn("Virtual threads are not supported by java " + System.getProperty("java.version")
+                    + ", use the fixed thread pool for " + name + " instead.");
+            return new FixedThreadPool().getExecutor(url);
+        }
+        int threads = url.getParameter(Constants.THREADS_KEY, Constants.DEFAULT_THREADS);
+        int queues = url.getParameter(Constants.QUEUES_KEY, Constants.DEFAULT_QUEUES);
+        ThreadFactory factory;
+        try {
+            factory = newFactory(OF_VIRTUAL, NAME, FACTORY, name + "-virtual-thread-");
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to create virtual thread factory, cause: " + e.getMessage(), e);
+        }
+        return new VirtualThreadExecutor(threads, queues, factory, new AbortPolicyWithReport(name, url));
+    }
+
+    /**
+     * @return true if the jdk supports virtual threads
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    // Thread.ofVirtual().name(prefix, 1).factory()
+    private static ThreadFactory newFactory(Method ofVirtual, Method name, Method factory, String prefix) throws Exception {
+        Object builder = ofVirtual.invoke(null);
+        builder = name.invoke(builder, prefix, 1L);
+        return (ThreadFactory) factory.invoke(builder);
+    }
+
+}
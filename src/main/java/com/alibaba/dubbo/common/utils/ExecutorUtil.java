@@ -25,6 +25,7 @@ import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.threadpool.ThreadPoolStatistics;
 
 /**
  * @author chao.liuc
@@ -59,10 +60,10 @@ public class ExecutorUtil {
         }
         try {
             if(! es.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
-                es.shutdownNow();
+                ThreadPoolStatistics.discard(es.shutdownNow());
             }
         } catch (InterruptedException ex) {
-            es.shutdownNow();
+            ThreadPoolStatistics.discard(es.shutdownNow());
             Thread.currentThread().interrupt();
         }
         if (!isShutdown(es)){
@@ -75,7 +76,7 @@ public class ExecutorUtil {
         }
         final ExecutorService es = (ExecutorService) executor;
         try {
-            es.shutdownNow();
+            ThreadPoolStatistics.discard(es.shutdownNow());
         } catch (SecurityException ex2) {
             return ;
         } catch (NullPointerException ex2) {
@@ -97,7 +98,7 @@ public class ExecutorUtil {
                 public void run() {
                     try {
                         for (int i=0;i<1000;i++){
-                            es.shutdownNow();
+                            ThreadPoolStatistics.discard(es.shutdownNow());
                             if (es.awaitTermination(10, TimeUnit.MILLISECONDS)){
                                 break;
                             }
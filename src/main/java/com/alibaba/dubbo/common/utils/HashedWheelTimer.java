@@ -0,0 +1,300 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+
+/**
+ * Hashed timing wheel, a timer for many short timeouts which are mostly cancelled.
+ * <p>
+ * Scheduling and cancelling are O(1), and every tick only visits the timeouts of one bucket,
+ * so the cost of a tick is proportional to the timeouts expiring in it (plus the ones scheduled
+ * more than one wheel ahead), not to all the pending timeouts. The accuracy is one tick.
+ * </p>
+ * <p>
+ * The tasks are run by the single worker thread, they should be short and must not block.
+ * </p>
+ */
+public class HashedWheelTimer {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    private static final int MAX_TRANSFER_PER_TICK = 100000;
+
+    private final long tickNanos;
+
+    private final Bucket[] wheel;
+
+    private final int mask;
+
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<Timeout>();
+
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<Timeout>();
+
+    private final Thread worker;
+
+    private final long startTime;
+
+    private volatile boolean stopped;
+
+    /**
+     * @param threadFactory factory of the worker thread, which is started at once.
+     * @param tickDuration duration of a tick.
+     * @param unit unit of tickDuration.
+     * @param ticksPerWheel number of buckets, rounded up to a power of two.
+     */
+    public HashedWheelTimer(ThreadFactory threadFactory, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration <= 0");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 30) {
+            throw new IllegalArgumentException("ticksPerWheel out of range (1 - 2^30): " + ticksPerWheel);
+        }
+        int length = 1;
+        while (length < ticksPerWheel) {
+            length <<= 1;
+        }
+        wheel = new Bucket[length];
+        for (int i = 0; i < length; i++) {
+            wheel[i] = new Bucket();
+        }
+        mask = length - 1;
+        tickNanos = unit.toNanos(tickDuration);
+        startTime = System.nanoTime();
+        worker = threadFactory.newThread(new Worker());
+        worker.start();
+    }
+
+    /**
+     * schedule the task to run once after the delay.
+     *
+     * @return timeout handle to cancel the task.
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException("task == null");
+        }
+        if (stopped) {
+            throw new IllegalStateException("Timer " + worker.getName() + " is stopped.");
+        }
+        Timeout timeout = new Timeout(this, task, System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0)));
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * stop the worker thread, the timeouts not expired yet are dropped.
+     */
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    public static final class Timeout {
+
+        private static final int INIT = 0;
+
+        private static final int CANCELLED = 1;
+
+        private static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedWheelTimer timer;
+
+        private final Runnable task;
+
+        // nanos since the start of the timer
+        private final long deadline;
+
+        private volatile int state = INIT;
+
+        // accessed by the worker only
+        private long remainingRounds;
+
+        private Bucket bucket;
+
+        private Timeout prev;
+
+        private Timeout next;
+
+        Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public Runnable getTask() {
+            return task;
+        }
+
+        /**
+         * @return false if the task has run or has been cancelled already.
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, INIT, CANCELLED)) {
+                return false;
+            }
+            timer.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        private void expire() {
+            if (STATE.compareAndSet(this, INIT, EXPIRED)) {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    logger.warn("Exception when run the timeout task " + task + ", cause: " + t.getMessage(), t);
+                }
+            }
+        }
+
+    }
+
+    // doubly linked list, accessed by the worker only
+    private static final class Bucket {
+
+        private Timeout head;
+
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void expire(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+    }
+
+    private final class Worker implements Runnable {
+
+        private long tick;
+
+        public void run() {
+            while (!stopped) {
+                long deadline = waitForNextTick();
+                if (deadline < 0) {
+                    continue;
+                }
+                removeCancelled();
+                transferScheduled();
+                wheel[(int) (tick & mask)].expire(deadline);
+                tick++;
+            }
+        }
+
+        private long waitForNextTick() {
+            long deadline = tickNanos * (tick + 1);
+            for (;;) {
+                long current = System.nanoTime() - startTime;
+                long sleepMillis = (deadline - current + 999999) / 1000000;
+                if (sleepMillis <= 0) {
+                    return current;
+                }
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    if (stopped) {
+                        return -1;
+                    }
+                }
+            }
+        }
+
+        private void removeCancelled() {
+            Timeout timeout;
+            while ((timeout = cancelled.poll()) != null) {
+                if (timeout.bucket != null) {
+                    timeout.bucket.remove(timeout);
+                }
+            }
+        }
+
+        private void transferScheduled() {
+            for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+                Timeout timeout = scheduled.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (timeout.isCancelled()) {
+                    continue;
+                }
+                long ticks = timeout.deadline / tickNanos;
+                timeout.remainingRounds = (ticks - tick) / wheel.length;
+                // expired already, run in the current tick
+                wheel[(int) (Math.max(ticks, tick) & mask)].add(timeout);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.common.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of the values recorded in the last <code>slots * slotMillis</code> milliseconds.
+ * <p>
+ * The values are counted in power of two buckets, so a percentile is known within a factor of
+ * two, and the window rolls by slots, the oldest slot is cleared when it is reused.
+ * </p>
+ */
+public class RollingHistogram {
+
+    // bucket i counts the values in [2^(i-1), 2^i), bucket 0 the values < 1
+    private static final int BUCKETS = 48;
+
+    private final long       slotMillis;
+
+    private final Slot[]     slots;
+
+    public RollingHistogram(int slots, long slotMillis) {
+        this.slotMillis = slotMillis;
+        this.slots = new Slot[slots];
+        for (int i = 0; i < slots; i ++) {
+            this.slots[i] = new Slot();
+        }
+    }
+
+    public void record(long value) {
+        Slot slot = getSlot(System.currentTimeMillis() / slotMillis);
+        int bucket = value <= 0 ? 0 : Math.min(64 - Long.numberOfLeadingZeros(value), BUCKETS - 1);
+        slot.buckets.incrementAndGet(bucket);
+        slot.count.incrementAndGet();
+        slot.sum.addAndGet(value);
+        for (long max = slot.max.get(); value > max && ! slot.max.compareAndSet(max, value); max = slot.max.get()) {
+        }
+    }
+
+    /**
+     * @return the values recorded in the window
+     */
+    public Snapshot getSnapshot() {
+        long epoch = System.currentTimeMillis() / slotMillis;
+        long[] buckets = new long[BUCKETS];
+        long count = 0, sum = 0, max = 0;
+        for (Slot slot : slots) {
+            if (slot.epoch <= epoch - slots.length) {
+                continue;
+            }
+            for (int i = 0; i < BUCKETS; i ++) {
+                buckets[i] += slot.buckets.get(i);
+            }
+            count += slot.count.get();
+            sum += slot.sum.get();
+            max = Math.max(max, slot.max.get());
+        }
+        return new Snapshot(buckets, count, sum, max);
+    }
+
+    private Slot getSlot(long epoch) {
+        Slot slot = slots[(int) (epoch % slots.length)];
+        if (slot.epoch != epoch) {
+            synchronized (slot) {
+                if (slot.epoch != epoch) {
+                    slot.clear();
+                    slot.epoch = epoch;
+                }
+            }
+        }
+        return slot;
+    }
+
+    private static final class Slot {
+
+        volatile long         epoch = -1;
+
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        final AtomicLong      count = new AtomicLong();
+
+        final AtomicLong      sum   = new AtomicLong();
+
+        final AtomicLong      max   = new AtomicLong();
+
+        void clear() {
+            for (int i = 0; i < BUCKETS; i ++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+        }
+    }
+
+    public static final class Snapshot {
+
+        private final long[] buckets;
+
+        private final long   count;
+
+        private final long   sum;
+
+        private final long   max;
+
+        Snapshot(long[] buckets, long count, long sum, long max) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public long getMean() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * @param percent 0 - 100
+         * @return the upper bound of the bucket of the percentile, at most the max
+         */
+        public long getPercentile(double percent) {
+            long rank = (long) Math.ceil(count * percent / 100);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i ++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(i == 0 ? 0 : (1L << i) - 1, max);
+                }
+            }
+            return max;
+        }
+    }
+
+}
@@ -27,6 +27,9 @@ public class ConsumerConfig extends AbstractReferenceConfig {
 
     // 是否为缺省
     private Boolean             isDefault;
+
+    // 客户端IO线程池大小(固定大小)，相同大小的客户端共享IO线程
+    private Integer             iothreads;
     
     @Override
     public void setTimeout(Integer timeout) {
@@ -46,4 +49,12 @@ public class ConsumerConfig extends AbstractReferenceConfig {
         this.isDefault = isDefault;
     }
 
+    public Integer getIothreads() {
+        return iothreads;
+    }
+
+    public void setIothreads(Integer iothreads) {
+        this.iothreads = iothreads;
+    }
+
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ package com.alibaba.dubbo.config;
 import java.util.Map;
 
 import com.alibaba.dubbo.common.extension.ExtensionLoader;
+import com.alibaba.dubbo.common.compress.Compressor;
 import com.alibaba.dubbo.common.serialize.Serialization;
 import com.alibaba.dubbo.common.status.StatusChecker;
 import com.alibaba.dubbo.common.threadpool.ThreadPool;
@@ -72,6 +73,9 @@ public class ProtocolConfig extends AbstractConfig {
     
     // 序列化方式
     private String              serialization;
+
+    // 报文压缩方式，提供给支持的消费者
+    private String              compressor;
     
     // 字符集
     private String              charset;
@@ -252,6 +256,17 @@ public class ProtocolConfig extends AbstractConfig {
         this.serialization = serialization;
     }
 
+    public String getCompressor() {
+        return compressor;
+    }
+
+    public void setCompressor(String compressor) {
+        if ("dubbo".equals(name)) {
+            checkExtension(Compressor.class, "compressor", compressor);
+        }
+        this.compressor = compressor;
+    }
+
     public String getCharset() {
         return charset;
     }
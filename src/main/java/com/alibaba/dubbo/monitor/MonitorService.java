@@ -63,12 +63,64 @@ public interface MonitorService {
 
     String MAX_CONCURRENT = "max.concurrent";
 
+    String COMPRESSOR = Constants.COMPRESSOR_KEY;
+
+    String COMPRESSED = "compressed";
+
+    String COMPRESS_INPUT = "compress.input";
+
+    String COMPRESS_OUTPUT = "compress.output";
+
+    String COMPRESS_RATIO = "compress.ratio";
+
+    String COMPRESS_ELAPSED = "compress.elapsed";
+
+    String DECOMPRESSED = "decompressed";
+
+    String DECOMPRESS_INPUT = "decompress.input";
+
+    String DECOMPRESS_OUTPUT = "decompress.output";
+
+    String DECOMPRESS_RATIO = "decompress.ratio";
+
+    String DECOMPRESS_ELAPSED = "decompress.elapsed";
+
+    String THREAD_NAME = Constants.THREAD_NAME_KEY;
+
+    String QUEUE_WAIT = "queue.wait";
+
+    String QUEUE_WAIT_P99 = "queue.wait.p99";
+
+    String MAX_QUEUE_WAIT = "max.queue.wait";
+
+    String EXECUTE_ELAPSED = "execute.elapsed";
+
+    String EXECUTE_ELAPSED_P99 = "execute.elapsed.p99";
+
+    String MAX_EXECUTE_ELAPSED = "max.execute.elapsed";
+
+    String ACTIVE = "active";
+
+    String MAX_ACTIVE = "max.active";
+
+    String QUEUE_DEPTH = "queue.depth";
+
+    String MAX_QUEUE_DEPTH = "max.queue.depth";
+
+    String REJECTED = "rejected";
+
     /**
      * 监控数据采集.
      * 1. 支持调用次数统计：count://host/interface?application=foo&method=foo&provider=10.20.153.11:20880&success=12&failure=2&elapsed=135423423
      * 1.1 host,application,interface,group,version,method 记录监控来源主机，应用，接口，方法信息。
      * 1.2 如果是消费者发送的数据，加上provider地址参数，反之，加上来源consumer地址参数。
      * 1.3 success,faulure,elapsed 记录距上次采集，调用的成功次数，失败次数，成功调用总耗时，平均时间将用总耗时除以成功次数。
+     * 2. 支持报文压缩统计：count://host/compressor/lz4?compressor=lz4&compressed=12&compress.input=102400&compress.output=30720&compress.ratio=30&compress.elapsed=1200
+     * 2.1 compressed,compress.input,compress.output,compress.elapsed 记录距上次采集，压缩的报文数，压缩前字节数，压缩后字节数，压缩总耗时(微秒)，每个报文的耗时将用总耗时除以报文数。
+     * 2.2 compress.ratio 为压缩后与压缩前字节数的百分比，decompressed,decompress.* 同样记录解压的报文。
+     * 3. 支持线程池统计：count://host/threadpool/DubboServerHandler-10.20.153.11:20880?threadname=DubboServerHandler-10.20.153.11:20880&queue.wait=120&queue.wait.p99=2047&max.queue.wait=3100&rejected=0
+     * 3.1 queue.wait,execute.elapsed 记录最近一分钟，任务从解码或派发到开始执行的平均等待时间，和执行的平均耗时(微秒)，.p99为99%分位，max.为最大值。
+     * 3.2 active,queue.depth 记录最近一分钟，任务开始时的平均活动线程数，和派发时的平均排队任务数，rejected 记录最近一分钟拒绝的任务数。
      * 
      * @param statistics
      */
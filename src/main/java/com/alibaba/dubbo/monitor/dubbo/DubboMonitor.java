@@ -15,6 +15,7 @@
  */
 package com.alibaba.dubbo.monitor.dubbo;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -25,10 +26,15 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.compress.CompressionStatistics;
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.threadpool.ThreadPoolStatistics;
 import com.alibaba.dubbo.common.utils.NamedThreadFactory;
+import com.alibaba.dubbo.common.utils.NetUtils;
+import com.alibaba.dubbo.common.utils.RollingHistogram;
 import com.alibaba.dubbo.monitor.Monitor;
 import com.alibaba.dubbo.monitor.MonitorService;
 import com.alibaba.dubbo.rpc.Invoker;
@@ -58,6 +64,9 @@ public class DubboMonitor implements Monitor {
     
     private final ConcurrentMap<Statistics, AtomicReference<long[]>> statisticsMap = new ConcurrentHashMap<Statistics, AtomicReference<long[]>>();
 
+    // 已发送的压缩统计 <compressor, counters>
+    private final ConcurrentMap<String, long[]> compressionMap = new ConcurrentHashMap<String, long[]>();
+
     public DubboMonitor(Invoker<MonitorService> monitorInvoker, MonitorService monitorService) {
         this.monitorInvoker = monitorInvoker;
         this.monitorService = monitorService;
@@ -134,6 +143,79 @@ public class DubboMonitor implements Monitor {
                 }
             } while (! reference.compareAndSet(current, update));
         }
+        sendCompression(timestamp);
+        sendThreadPool(timestamp);
+    }
+
+    // 发送距上次发送的报文压缩统计
+    private synchronized void sendCompression(String timestamp) {
+        Collection<CompressionStatistics> all = CompressionStatistics.getAllStatistics();
+        for (CompressionStatistics statistics : all) {
+            long[] numbers = statistics.getCounters();
+            long[] last = compressionMap.put(statistics.getCompressor(), numbers);
+            if (last != null) {
+                for (int i = 0; i < numbers.length; i ++) {
+                    last[i] = numbers[i] - last[i];
+                }
+            } else {
+                last = numbers;
+            }
+            if (last[0] == 0 && last[4] == 0) {
+                continue;
+            }
+            URL url = new URL(Constants.COUNT_PROTOCOL, NetUtils.getLocalHost(), 0,
+                    "compressor/" + statistics.getCompressor(),
+                    MonitorService.COMPRESSOR, statistics.getCompressor(),
+                    MonitorService.TIMESTAMP, timestamp,
+                    MonitorService.COMPRESSED, String.valueOf(last[0]),
+                    MonitorService.COMPRESS_INPUT, String.valueOf(last[1]),
+                    MonitorService.COMPRESS_OUTPUT, String.valueOf(last[2]),
+                    MonitorService.COMPRESS_RATIO, String.valueOf(ratio(last[2], last[1])),
+                    MonitorService.COMPRESS_ELAPSED, String.valueOf(last[3] / 1000),
+                    MonitorService.DECOMPRESSED, String.valueOf(last[4]),
+                    MonitorService.DECOMPRESS_INPUT, String.valueOf(last[5]),
+                    MonitorService.DECOMPRESS_OUTPUT, String.valueOf(last[6]),
+                    MonitorService.DECOMPRESS_RATIO, String.valueOf(ratio(last[5], last[6])),
+                    MonitorService.DECOMPRESS_ELAPSED, String.valueOf(last[7] / 1000))
+                    .addParameter(MonitorService.APPLICATION, getUrl().getParameter(Constants.APPLICATION_KEY));
+            monitorService.collect(url);
+        }
+    }
+
+    // 发送最近一分钟的线程池统计
+    private void sendThreadPool(String timestamp) {
+        for (ThreadPoolStatistics statistics : ThreadPoolStatistics.getAllStatistics()) {
+            RollingHistogram.Snapshot queueWait = statistics.getQueueWait();
+            RollingHistogram.Snapshot rejections = statistics.getRejections();
+            if (queueWait.getCount() == 0 && rejections.getCount() == 0) {
+                continue;
+            }
+            RollingHistogram.Snapshot execution = statistics.getExecution();
+            RollingHistogram.Snapshot active = statistics.getActiveThreads();
+            RollingHistogram.Snapshot queueDepth = statistics.getQueueDepth();
+            URL url = new URL(Constants.COUNT_PROTOCOL, NetUtils.getLocalHost(), 0,
+                    "threadpool/" + statistics.getName(),
+                    MonitorService.THREAD_NAME, statistics.getName(),
+                    MonitorService.TIMESTAMP, timestamp,
+                    MonitorService.QUEUE_WAIT, String.valueOf(queueWait.getMean()),
+                    MonitorService.QUEUE_WAIT_P99, String.valueOf(queueWait.getPercentile(99)),
+                    MonitorService.MAX_QUEUE_WAIT, String.valueOf(queueWait.getMax()),
+                    MonitorService.EXECUTE_ELAPSED, String.valueOf(execution.getMean()),
+                    MonitorService.EXECUTE_ELAPSED_P99, String.valueOf(execution.getPercentile(99)),
+                    MonitorService.MAX_EXECUTE_ELAPSED, String.valueOf(execution.getMax()),
+                    MonitorService.ACTIVE, String.valueOf(active.getMean()),
+                    MonitorService.MAX_ACTIVE, String.valueOf(active.getMax()),
+                    MonitorService.QUEUE_DEPTH, String.valueOf(queueDepth.getMean()),
+                    MonitorService.MAX_QUEUE_DEPTH, String.valueOf(queueDepth.getMax()),
+                    MonitorService.REJECTED, String.valueOf(rejections.getCount()))
+                    .addParameter(MonitorService.APPLICATION, getUrl().getParameter(Constants.APPLICATION_KEY));
+            monitorService.collect(url);
+        }
+    }
+
+    // 压缩后占压缩前的百分比
+    private static long ratio(long compressed, long uncompressed) {
+        return uncompressed == 0 ? 0 : compressed * 100 / uncompressed;
     }
     
     public void collect(URL url) {
@@ -91,6 +91,34 @@ public final class ChannelBuffers {
         return buffer;
     }
 
+    /**
+     * @return the big endian int at the index, the reader index is not changed.
+     */
+    public static int getInt(ChannelBuffer buffer, int index) {
+        return (buffer.getByte(index) & 0xff) << 24
+                | (buffer.getByte(index + 1) & 0xff) << 16
+                | (buffer.getByte(index + 2) & 0xff) << 8
+                | buffer.getByte(index + 3) & 0xff;
+    }
+
+    /**
+     * set the big endian int at the index, the writer index is not changed.
+     */
+    public static void setInt(ChannelBuffer buffer, int index, int value) {
+        buffer.setByte(index, value >>> 24);
+        buffer.setByte(index + 1, value >>> 16);
+        buffer.setByte(index + 2, value >>> 8);
+        buffer.setByte(index + 3, value);
+    }
+
+    /**
+     * set the big endian long at the index, the writer index is not changed.
+     */
+    public static void setLong(ChannelBuffer buffer, int index, long value) {
+        setInt(buffer, index, (int) (value >>> 32));
+        setInt(buffer, index + 4, (int) value);
+    }
+
     public static boolean equals(ChannelBuffer bufferA, ChannelBuffer bufferB) {
         final int aLen = bufferA.readableBytes();
         if (aLen != bufferB.readableBytes()) {
@@ -0,0 +1,134 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.buffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.alibaba.dubbo.common.compress.CompressionStatistics;
+import com.alibaba.dubbo.common.compress.Compressor;
+
+/**
+ * Writes the bytes to the buffer as they are until <code>threshold</code> bytes are written,
+ * then moves them back through the compressor, preceded by the compressor id, and compresses
+ * the rest as it is written. Only the bytes under the threshold are copied, the messages under
+ * the threshold are not touched.
+ */
+public class CompressingChannelBufferOutputStream extends ChannelBufferOutputStream {
+
+    private final ChannelBuffer buffer;
+
+    private final int           startIndex;
+
+    private final Compressor    compressor;
+
+    private final int           threshold;
+
+    private OutputStream        compressing;
+
+    private long                input;
+
+    private long                elapsed;
+
+    private boolean             closed;
+
+    public CompressingChannelBufferOutputStream(ChannelBuffer buffer, Compressor compressor, int threshold) {
+        super(buffer);
+        if (compressor == null) {
+            throw new NullPointerException("compressor");
+        }
+        this.buffer = buffer;
+        this.startIndex = buffer.writerIndex();
+        this.compressor = compressor;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return true if the bytes written are compressed, known once closed
+     */
+    public boolean isCompressed() {
+        return compressing != null;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        if (compressing == null) {
+            if (writtenBytes() + len < threshold) {
+                super.write(b, off, len);
+                return;
+            }
+            startCompress();
+        }
+        long start = System.nanoTime();
+        compressing.write(b, off, len);
+        elapsed += System.nanoTime() - start;
+        input += len;
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (compressing == null) {
+            if (writtenBytes() + 1 < threshold) {
+                super.write(b);
+                return;
+            }
+            startCompress();
+        }
+        long start = System.nanoTime();
+        compressing.write(b);
+        elapsed += System.nanoTime() - start;
+        input ++;
+    }
+
+    private void startCompress() throws IOException {
+        byte[] head = new byte[writtenBytes()];
+        buffer.getBytes(startIndex, head);
+        buffer.writerIndex(startIndex);
+        buffer.writeByte(compressor.getId());
+        long start = System.nanoTime();
+        compressing = compressor.compress(new ChannelBufferOutputStream(buffer));
+        compressing.write(head);
+        elapsed += System.nanoTime() - start;
+        input = head.length;
+    }
+
+    /**
+     * Finish the compressed stream, the output is not flushed before, the compressor would end
+     * its blocks early.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (compressing != null) {
+            long start = System.nanoTime();
+            compressing.close();
+            elapsed += System.nanoTime() - start;
+            CompressionStatistics.getStatistics(compressor).compressed(input, writtenBytes() - 1, elapsed);
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.alibaba.dubbo.common.compress.CompressionStatistics;
+import com.alibaba.dubbo.common.compress.Compressor;
+
+/**
+ * Decompresses a body read from the buffer, counts the bytes and the time of the compressor for
+ * the {@link CompressionStatistics}, recorded on close.
+ */
+public class DecompressingInputStream extends InputStream {
+
+    private final ChannelBufferInputStream input;
+
+    private final Compressor               compressor;
+
+    private final InputStream              decompressing;
+
+    private long                           output;
+
+    private long                           elapsed;
+
+    private boolean                        closed;
+
+    /**
+     * @param input the body, the compressor id is read
+     */
+    public DecompressingInputStream(ChannelBufferInputStream input, Compressor compressor) throws IOException {
+        this.input = input;
+        this.compressor = compressor;
+        long start = System.nanoTime();
+        this.decompressing = compressor.decompress(input);
+        elapsed = System.nanoTime() - start;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int b = decompressing.read();
+        elapsed += System.nanoTime() - start;
+        if (b >= 0) {
+            output ++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        int n = decompressing.read(b, off, len);
+        elapsed += System.nanoTime() - start;
+        if (n > 0) {
+            output += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = decompressing.skip(n);
+        output += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return decompressing.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // the body without the compressor id
+        int compressed = input.readBytes() + input.available() - 1;
+        decompressing.close();
+        CompressionStatistics.getStatistics(compressor).decompressed(compressed, output, elapsed);
+    }
+
+}
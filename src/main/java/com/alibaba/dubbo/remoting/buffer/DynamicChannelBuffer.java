@@ -65,6 +65,9 @@ public class DynamicChannelBuffer extends AbstractChannelBuffer {
 
         ChannelBuffer newBuffer = factory().getBuffer(newCapacity);
         newBuffer.writeBytes(buffer, 0, writerIndex());
+        if (factory instanceof PooledChannelBufferFactory) {
+            ((PooledChannelBufferFactory) factory).release(buffer);
+        }
         buffer = newBuffer;
     }
 
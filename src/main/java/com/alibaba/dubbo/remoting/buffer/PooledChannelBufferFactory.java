@@ -0,0 +1,189 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Heap buffers backed by pooled arrays.
+ * <p>
+ * The arrays are sized by powers of two from 256 bytes to 64K, larger buffers are not pooled.
+ * Every thread caches a few arrays of each size in front of a bounded arena shared by all the
+ * threads, so an array acquired by a worker thread may be released by the io thread which wrote it.
+ * </p>
+ * <p>
+ * A buffer must be released once, when nothing refers to it any more, by {@link #release(ChannelBuffer)}.
+ * Buffers which are not released are collected as usual. A {@link DynamicChannelBuffer} of this factory
+ * releases the arrays it outgrows.
+ * </p>
+ */
+public class PooledChannelBufferFactory implements ChannelBufferFactory {
+
+    private static final int MIN_SHIFT = 8;
+
+    private static final int MAX_SHIFT = 16;
+
+    private static final int SIZE_CLASSES = MAX_SHIFT - MIN_SHIFT + 1;
+
+    // arrays of every size cached by a thread.
+    private static final int THREAD_CACHE_SIZE = 8;
+
+    // arrays of every size kept by the shared arena.
+    private static final int ARENA_SIZE = 256;
+
+    private static final PooledChannelBufferFactory INSTANCE = new PooledChannelBufferFactory();
+
+    public static PooledChannelBufferFactory getInstance() {
+        return INSTANCE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private final Queue<byte[]>[] arena = new Queue[SIZE_CLASSES];
+
+    private final AtomicInteger[] arenaSizes = new AtomicInteger[SIZE_CLASSES];
+
+    private final ThreadLocal<ThreadCache> threadCache = new ThreadLocal<ThreadCache>() {
+        @Override
+        protected ThreadCache initialValue() {
+            return new ThreadCache();
+        }
+    };
+
+    public PooledChannelBufferFactory() {
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            arena[i] = new ConcurrentLinkedQueue<byte[]>();
+            arenaSizes[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * @return heap buffer of a pooled array, the capacity may be larger than requested.
+     */
+    public ChannelBuffer getBuffer(int capacity) {
+        if (capacity == 0) {
+            return ChannelBuffers.EMPTY_BUFFER;
+        }
+        ChannelBuffer buffer = new HeapChannelBuffer(acquire(capacity));
+        // empty, as the buffers of the heap factory
+        buffer.clear();
+        return buffer;
+    }
+
+    public ChannelBuffer getBuffer(byte[] array, int offset, int length) {
+        return ChannelBuffers.wrappedBuffer(array, offset, length);
+    }
+
+    public ChannelBuffer getBuffer(ByteBuffer nioBuffer) {
+        return HeapChannelBufferFactory.getInstance().getBuffer(nioBuffer);
+    }
+
+    /**
+     * @return an array of at least the capacity, pooled if the capacity is 64K at most.
+     */
+    public byte[] acquire(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity can not be negative");
+        }
+        int sizeClass = sizeClass(capacity);
+        if (sizeClass < 0) {
+            return new byte[capacity];
+        }
+        byte[] array = threadCache.get().poll(sizeClass);
+        if (array == null) {
+            array = arena[sizeClass].poll();
+            if (array != null) {
+                arenaSizes[sizeClass].decrementAndGet();
+            } else {
+                array = new byte[1 << (sizeClass + MIN_SHIFT)];
+            }
+        }
+        return array;
+    }
+
+    /**
+     * return the array to the pool, arrays not sized by the pool are ignored.
+     */
+    public void release(byte[] array) {
+        if (array == null) {
+            return;
+        }
+        int sizeClass = sizeClass(array.length);
+        if (sizeClass < 0 || array.length != 1 << (sizeClass + MIN_SHIFT)) {
+            return;
+        }
+        if (threadCache.get().offer(sizeClass, array)) {
+            return;
+        }
+        if (arenaSizes[sizeClass].incrementAndGet() <= ARENA_SIZE) {
+            arena[sizeClass].offer(array);
+        } else {
+            arenaSizes[sizeClass].decrementAndGet();
+        }
+    }
+
+    /**
+     * return the array of the buffer to the pool, a dynamic buffer returns its current array.
+     */
+    public void release(ChannelBuffer buffer) {
+        if (buffer != null && buffer.hasArray()) {
+            release(buffer.array());
+        }
+    }
+
+    // -1 if not pooled
+    private static int sizeClass(int capacity) {
+        if (capacity > 1 << MAX_SHIFT) {
+            return -1;
+        }
+        if (capacity <= 1 << MIN_SHIFT) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SHIFT;
+    }
+
+    private static final class ThreadCache {
+
+        private final byte[][][] arrays = new byte[SIZE_CLASSES][THREAD_CACHE_SIZE][];
+
+        private final int[] sizes = new int[SIZE_CLASSES];
+
+        byte[] poll(int sizeClass) {
+            int size = sizes[sizeClass];
+            if (size == 0) {
+                return null;
+            }
+            byte[][] stack = arrays[sizeClass];
+            byte[] array = stack[--size];
+            stack[size] = null;
+            sizes[sizeClass] = size;
+            return array;
+        }
+
+        boolean offer(int sizeClass, byte[] array) {
+            int size = sizes[sizeClass];
+            if (size == THREAD_CACHE_SIZE) {
+                return false;
+            }
+            arrays[sizeClass][size] = array;
+            sizes[sizeClass] = size + 1;
+            return true;
+        }
+    }
+
+}
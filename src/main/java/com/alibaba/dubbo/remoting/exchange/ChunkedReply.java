@@ -0,0 +1,44 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.exchange;
+
+/**
+ * The reply sent in chunks sharing the request id, returned by {@link ExchangeHandler#reply}.
+ * <p>
+ * The chunks but the last are sent as {@link Response#CHUNK} responses, at most
+ * <code>stream.window</code> of them ahead of the consumer, which grants one more by a
+ * {@link Request#CREDIT_EVENT} for every chunk it takes. The last chunk is sent as the final
+ * response, so neither side holds the whole reply.
+ * </p>
+ */
+public interface ChunkedReply {
+
+    /**
+     * @return false if the chunk returned last is the last one
+     */
+    boolean hasNext();
+
+    /**
+     * @return the next chunk, produced in the thread replying
+     */
+    Object next();
+
+    /**
+     * Called once the reply is sent, canceled by the consumer or failed.
+     */
+    void close();
+
+}
@@ -31,7 +31,7 @@ public interface ExchangeHandler extends ChannelHandler, TelnetHandler {
      * 
      * @param channel
      * @param request
-     * @return response
+     * @return response, or a {@link ChunkedReply} sent in chunks
      * @throws RemotingException
      */
     Object reply(ExchangeChannel channel, Object request) throws RemotingException;
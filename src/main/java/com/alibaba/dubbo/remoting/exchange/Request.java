@@ -28,6 +28,12 @@ public class Request {
     public static final String HEARTBEAT_EVENT = null;
     
     public static final String READONLY_EVENT = "R";
+
+    // the consumer takes a chunk of the response of the request with the same id, one more chunk may be sent.
+    public static final String CREDIT_EVENT = "C";
+
+    // the consumer drops the rest chunks of the response of the request with the same id.
+    public static final String CANCEL_EVENT = "X";
     
     private static final AtomicLong INVOKE_ID = new AtomicLong(0);
 
@@ -43,6 +49,12 @@ public class Request {
 
     private Object  mData;
 
+    // System.nanoTime() when decoded, 0 if not decoded from a channel
+    private long    mDecodeTime;
+
+    // System.nanoTime() the consumer stops waiting at, 0 if unknown
+    private long    mDeadline;
+
     public Request() {
         mId = newId();
     }
@@ -96,6 +108,29 @@ public class Request {
         mData = msg;
     }
 
+    public long getDecodeTime() {
+        return mDecodeTime;
+    }
+
+    public void setDecodeTime(long decodeTime) {
+        mDecodeTime = decodeTime;
+    }
+
+    public long getDeadline() {
+        return mDeadline;
+    }
+
+    public void setDeadline(long deadline) {
+        mDeadline = deadline;
+    }
+
+    /**
+     * @return true if the consumer stopped waiting for the response
+     */
+    public boolean isExpired() {
+        return mDeadline != 0 && mDeadline - System.nanoTime() <= 0;
+    }
+
     public boolean isHeartbeat() {
         return mEvent && HEARTBEAT_EVENT == mData;
     }
@@ -32,6 +32,11 @@ public class Response {
      */
     public static final byte OK                = 20;
 
+    /**
+     * ok, a chunk of the result, the next responses of the request carry the rest, the last one has the final status.
+     */
+    public static final byte CHUNK             = 21;
+
     /**
      * clien side timeout.
      */
@@ -42,6 +47,11 @@ public class Response {
      */
     public static final byte SERVER_TIMEOUT    = 31;
 
+    /**
+     * channel inactive, directly return the unfinished requests.
+     */
+    public static final byte CHANNEL_INACTIVE  = 35;
+
     /**
      * request format error.
      */
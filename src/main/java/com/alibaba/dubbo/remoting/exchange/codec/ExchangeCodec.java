@@ -18,6 +18,8 @@ package com.alibaba.dubbo.remoting.exchange.codec;
 import java.io.IOException;
 import java.io.InputStream;
 
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.compress.Compressor;
 import com.alibaba.dubbo.common.io.Bytes;
 import com.alibaba.dubbo.common.io.StreamUtils;
 import com.alibaba.dubbo.common.logger.Logger;
@@ -31,6 +33,9 @@ import com.alibaba.dubbo.remoting.RemotingException;
 import com.alibaba.dubbo.remoting.buffer.ChannelBuffer;
 import com.alibaba.dubbo.remoting.buffer.ChannelBufferInputStream;
 import com.alibaba.dubbo.remoting.buffer.ChannelBufferOutputStream;
+import com.alibaba.dubbo.remoting.buffer.ChannelBuffers;
+import com.alibaba.dubbo.remoting.buffer.CompressingChannelBufferOutputStream;
+import com.alibaba.dubbo.remoting.buffer.DecompressingInputStream;
 import com.alibaba.dubbo.remoting.exchange.Request;
 import com.alibaba.dubbo.remoting.exchange.Response;
 import com.alibaba.dubbo.remoting.exchange.support.DefaultFuture;
@@ -64,7 +69,21 @@ public class ExchangeCodec extends TelnetCodec {
 
     protected static final byte     FLAG_EVENT     = (byte) 0x20;
 
-    protected static final int      SERIALIZATION_MASK = 0x1f;
+    // the body starts with the compressor id and is compressed.
+    protected static final byte     FLAG_COMPRESSED    = (byte) 0x10;
+
+    protected static final int      SERIALIZATION_MASK = 0x0f;
+
+    // the compressor accepted by the consumer of the channel, advertised by the status byte of the requests.
+    private static final String     ACCEPT_COMPRESSOR_KEY = ExchangeCodec.class.getName() + ".compressor";
+
+    // header of the frame being decoded, reused by the io thread, decodeBody must not keep it.
+    private static final ThreadLocal<byte[]> DECODE_HEADER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[HEADER_LENGTH];
+        }
+    };
 
     public Short getMagicCode() {
         return MAGIC;
@@ -81,7 +100,21 @@ public class ExchangeCodec extends TelnetCodec {
     }
 
     public Object decode(Channel channel, ChannelBuffer buffer) throws IOException {
-       int readable = buffer.readableBytes();
+        int readable = buffer.readableBytes();
+        int readerIndex = buffer.readerIndex();
+        if (readable >= HEADER_LENGTH && buffer.getByte(readerIndex) == MAGIC_HIGH
+                && buffer.getByte(readerIndex + 1) == MAGIC_LOW) {
+            // get data length from the buffer, the header is read once the whole frame is received.
+            int len = ChannelBuffers.getInt(buffer, readerIndex + 12);
+            checkPayload(channel, len);
+            if (readable < len + HEADER_LENGTH) {
+                return DecodeResult.NEED_MORE_INPUT;
+            }
+            byte[] header = DECODE_HEADER.get();
+            buffer.readBytes(header);
+            return decodeFrame(channel, buffer, len, header);
+        }
+        // telnet or partial header.
         byte[] header = new byte[Math.min(readable, HEADER_LENGTH)];
         buffer.readBytes(header);
         return decode(channel, buffer, readable, header);
@@ -119,18 +152,42 @@ public class ExchangeCodec extends TelnetCodec {
             return DecodeResult.NEED_MORE_INPUT;
         }
 
+        return decodeFrame(channel, buffer, len, header);
+    }
+
+    private Object decodeFrame(Channel channel, ChannelBuffer buffer, int len, byte[] header) throws IOException {
         // limit input stream.
-        ChannelBufferInputStream is = new ChannelBufferInputStream(buffer, len);
+        ChannelBufferInputStream cis = new ChannelBufferInputStream(buffer, len);
+        InputStream is = cis;
+        if ((header[2] & FLAG_REQUEST) != 0) {
+            acceptCompressor(channel, header[3]);
+        }
+        if ((header[2] & FLAG_COMPRESSED) != 0) {
+            byte id = (byte) cis.read();
+            Compressor compressor = CodecSupport.getCompressorById(id);
+            if (compressor == null) {
+                StreamUtils.skipUnusedStream(cis);
+                throw new IOException("Unsupported compressor id " + id + " of the message from " + channel.getRemoteAddress());
+            }
+            is = new DecompressingInputStream(cis, compressor);
+        }
 
         try {
             return decodeBody(channel, is, header);//对报文主体数据解释
         } finally {
-            if (is.available() > 0) {
+            if (is != cis) {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                    logger.warn(e.getMessage(), e);
+                }
+            }
+            if (cis.available() > 0) {
                 try {
                     if (logger.isWarnEnabled()) {
-                        logger.warn("Skip input stream " + is.available());
+                        logger.warn("Skip input stream " + cis.available());
                     }
-                    StreamUtils.skipUnusedStream(is);
+                    StreamUtils.skipUnusedStream(cis);
                 } catch (IOException e) {
                     logger.warn(e.getMessage(), e);
                 }
@@ -153,7 +210,7 @@ public class ExchangeCodec extends TelnetCodec {
             // get status.
             byte status = header[3];
             res.setStatus(status);
-            if (status == Response.OK) {
+            if (status == Response.OK || status == Response.CHUNK) {
                 try {
                     Object data;
                     if (res.isHeartbeat()) {
@@ -161,7 +218,7 @@ public class ExchangeCodec extends TelnetCodec {
                     } else if (res.isEvent()) {
                         data = decodeEventData(channel, in);
                     } else {
-                        data = decodeResponseData(channel, in, getRequestData(id));
+                        data = decodeResponseData(channel, in, getRequestData(channel, id));
                     }
                     res.setResult(data);
                 } catch (Throwable t) {
@@ -175,6 +232,7 @@ public class ExchangeCodec extends TelnetCodec {
         } else {
             // decode request.
             Request req = new Request(id);
+            req.setDecodeTime(System.nanoTime());
             req.setVersion("2.0.0");
             req.setTwoWay((flag & FLAG_TWOWAY) != 0);
             if ((flag & FLAG_EVENT) != 0) {
@@ -199,8 +257,40 @@ public class ExchangeCodec extends TelnetCodec {
         }
     }
 
-    protected Object getRequestData(long id) {
-        DefaultFuture future = DefaultFuture.getFuture(id);
+    private static void acceptCompressor(Channel channel, byte id) {
+        Compressor accepted = (Compressor) channel.getAttribute(ACCEPT_COMPRESSOR_KEY);
+        if (id == 0) {
+            if (accepted != null) {
+                channel.removeAttribute(ACCEPT_COMPRESSOR_KEY);
+            }
+        } else if (accepted == null || accepted.getId() != id) {
+            Compressor compressor = CodecSupport.getCompressorById(id);
+            if (compressor != null) {
+                channel.setAttribute(ACCEPT_COMPRESSOR_KEY, compressor);
+            } else if (accepted != null) {
+                channel.removeAttribute(ACCEPT_COMPRESSOR_KEY);
+            }
+        }
+    }
+
+    /**
+     * The body is compressed once it reaches <code>compressor.threshold</code> bytes.
+     */
+    private static ChannelBufferOutputStream newOutputStream(Channel channel, ChannelBuffer buffer, Compressor compressor) {
+        if (compressor == null) {
+            return new ChannelBufferOutputStream(buffer);
+        }
+        int threshold = channel.getUrl().getPositiveParameter(Constants.COMPRESSOR_THRESHOLD_KEY, Constants.DEFAULT_COMPRESSOR_THRESHOLD);
+        return new CompressingChannelBufferOutputStream(buffer, compressor, threshold);
+    }
+
+    private static boolean isCompressed(ChannelBufferOutputStream bos) {
+        return bos instanceof CompressingChannelBufferOutputStream
+                && ((CompressingChannelBufferOutputStream) bos).isCompressed();
+    }
+
+    protected Object getRequestData(Channel channel, long id) {
+        DefaultFuture future = DefaultFuture.getFuture(channel, id);
         if (future == null)
             return null;
         Request req = future.getRequest();
@@ -217,19 +307,16 @@ public class ExchangeCodec extends TelnetCodec {
         //+ 1 //一个字节的消息标志位，用来表示消息是request还是//response,twoway还是oneway,是心跳还是正常请求以及采用//的序列化反序列化协议
         //+ 1 //状态位， 消息类型为response时，设置请求响应状态
         //+ 8 //设置消息的id long类型
-        // header.
-        byte[] header = new byte[HEADER_LENGTH];
-        // set magic number.
-        Bytes.short2bytes(MAGIC, header);
-
+        //+ 4 //设置消息体body长度 int类型
         // set request and serialization flag.
-        header[2] = (byte) (FLAG_REQUEST | serialization.getContentTypeId());
+        byte flag = (byte) (FLAG_REQUEST | serialization.getContentTypeId());
 
-        if (req.isTwoWay()) header[2] |= FLAG_TWOWAY;
-        if (req.isEvent()) header[2] |= FLAG_EVENT;
+        if (req.isTwoWay()) flag |= FLAG_TWOWAY;
+        if (req.isEvent()) flag |= FLAG_EVENT;
+        // the compressor configured is used for the requests and accepted for the responses.
+        Compressor compressor = CodecSupport.getCompressor(channel.getUrl());
+        byte accept = compressor == null ? 0 : compressor.getId();
         //注意：这里隐含省略了respon标志设置，因为是request，默认就是0
-        // set request id.
-        Bytes.long2bytes(req.getId(), header, 4);
 
         // encode request data.
         int savedWriteIndex = buffer.writerIndex();
@@ -237,7 +324,7 @@ public class ExchangeCodec extends TelnetCodec {
         buffer.writerIndex(savedWriteIndex + HEADER_LENGTH);
         //这里开始把Rpcinvocation用配置的序列化方案写进buffer中
         //序列化方式：把Rpcinvocation里面的参数，经过转型后，写入buffer中
-        ChannelBufferOutputStream bos = new ChannelBufferOutputStream(buffer);
+        ChannelBufferOutputStream bos = newOutputStream(channel, buffer, req.isEvent() ? null : compressor);
         ObjectOutput out = serialization.serialize(channel.getUrl(), bos);
         if (req.isEvent()) {
             encodeEventData(channel, out, req.getData());
@@ -250,38 +337,31 @@ public class ExchangeCodec extends TelnetCodec {
         
         int len = bos.writtenBytes();
         checkPayload(channel, len);
-        //+ 4 //设置消息体body长度 int类型
-        Bytes.int2bytes(len, header, 12);
+        if (isCompressed(bos)) flag |= FLAG_COMPRESSED;
 
-        //reset write index
-        buffer.writerIndex(savedWriteIndex);
-        buffer.writeBytes(header); // write header.
+        // write header in place.
+        setHeader(buffer, savedWriteIndex, flag, accept, req.getId(), len);
         buffer.writerIndex(savedWriteIndex + HEADER_LENGTH + len);//因为header和body已经写完，所以重新设置写指针的位置
     }
 
     protected void encodeResponse(Channel channel, ChannelBuffer buffer, Response res) throws IOException {
         try {
             Serialization serialization = getSerialization(channel);
-            // header.
-            byte[] header = new byte[HEADER_LENGTH];
-            // set magic number.
-            Bytes.short2bytes(MAGIC, header);
             // set request and serialization flag.
-            header[2] = serialization.getContentTypeId();
-            if (res.isHeartbeat()) header[2] |= FLAG_EVENT;
+            byte flag = serialization.getContentTypeId();
+            if (res.isHeartbeat()) flag |= FLAG_EVENT;
             // set response status.
             byte status = res.getStatus();
-            header[3] = status;
-            // set request id.
-            Bytes.long2bytes(res.getId(), header, 4);
 
             int savedWriteIndex = buffer.writerIndex();
             //把写指针移动16字节，避免后面的序列化内容覆盖
             buffer.writerIndex(savedWriteIndex + HEADER_LENGTH);
-            ChannelBufferOutputStream bos = new ChannelBufferOutputStream(buffer);
+            // compressed if the consumer accepts.
+            Compressor compressor = res.isHeartbeat() ? null : (Compressor) channel.getAttribute(ACCEPT_COMPRESSOR_KEY);
+            ChannelBufferOutputStream bos = newOutputStream(channel, buffer, compressor);
             ObjectOutput out = serialization.serialize(channel.getUrl(), bos);
             // encode response data or error message.
-            if (status == Response.OK) {
+            if (status == Response.OK || status == Response.CHUNK) {
                 if (res.isHeartbeat()) {
                     encodeHeartbeatData(channel, out, res.getResult());
                 } else {
@@ -296,10 +376,9 @@ public class ExchangeCodec extends TelnetCodec {
 
             int len = bos.writtenBytes();
             checkPayload(channel, len);
-            Bytes.int2bytes(len, header, 12);
-            // write
-            buffer.writerIndex(savedWriteIndex);//把写指针归位
-            buffer.writeBytes(header); // write header.
+            if (isCompressed(bos)) flag |= FLAG_COMPRESSED;
+            // write header in place.
+            setHeader(buffer, savedWriteIndex, flag, status, res.getId(), len);
             buffer.writerIndex(savedWriteIndex + HEADER_LENGTH + len);//因为header和body已经写完，所以重新设置写指针的位置
         } catch (Throwable t) {
             // 发送失败信息给Consumer，否则Consumer只能等超时了
@@ -332,6 +411,15 @@ public class ExchangeCodec extends TelnetCodec {
         }
     }
     
+    private static void setHeader(ChannelBuffer buffer, int index, byte flag, byte status, long id, int len) {
+        buffer.setByte(index, MAGIC_HIGH);
+        buffer.setByte(index + 1, MAGIC_LOW);
+        buffer.setByte(index + 2, flag);
+        buffer.setByte(index + 3, status);
+        ChannelBuffers.setLong(buffer, index + 4, id);
+        ChannelBuffers.setInt(buffer, index + 12, len);
+    }
+
     @Override
     protected Object decodeData(ObjectInput in) throws IOException {
         return decodeRequestData(in);
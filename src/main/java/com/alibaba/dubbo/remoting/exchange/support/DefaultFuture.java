@@ -16,27 +16,50 @@
 package com.alibaba.dubbo.remoting.exchange.support;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.utils.HashedWheelTimer;
+import com.alibaba.dubbo.common.utils.LongHashMap;
+import com.alibaba.dubbo.common.utils.NamedThreadFactory;
 import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.remoting.ChannelHandler;
 import com.alibaba.dubbo.remoting.RemotingException;
 import com.alibaba.dubbo.remoting.TimeoutException;
 import com.alibaba.dubbo.remoting.exchange.Request;
 import com.alibaba.dubbo.remoting.exchange.Response;
 import com.alibaba.dubbo.remoting.exchange.ResponseCallback;
 import com.alibaba.dubbo.remoting.exchange.ResponseFuture;
+import com.alibaba.dubbo.remoting.transport.AbstractClient;
 
 /**
  * DefaultFuture.
+ * <p>
+ * The futures waiting for responses are kept in a table per channel and fail at once when
+ * the channel they are sent by is disconnected, the timeouts are checked by a hashed timing wheel,
+ * so a tick costs as much as the requests expiring in it rather than all the outstanding requests.
+ * The table of a client is kept by the client rather than its connection, which is replaced
+ * on reconnect, so the requests made while reconnecting find their responses.
+ * </p>
+ * <p>
+ * The completion is lock free: the response is set once by CAS, then the parked waiters are
+ * unparked and the callback, published by CAS as well, is invoked by exactly one thread.
+ * </p>
+ * <p>
+ * A chunked response completes the future with its first chunk, the future stays in the table
+ * and queues the next chunks and the final response for {@link #nextChunk(int)}.
+ * </p>
  * 
  * @author qian.lei
  * @author chao.liuc
@@ -45,39 +68,106 @@ public class DefaultFuture implements ResponseFuture {
 
     private static final Logger                   logger = LoggerFactory.getLogger(DefaultFuture.class);
 
-    private static final Map<Long, Channel>       CHANNELS   = new ConcurrentHashMap<Long, Channel>();
+    private static final HashedWheelTimer         TIMEOUT_TIMER = new HashedWheelTimer(
+            new NamedThreadFactory("DubboResponseTimeoutScanTimer", true), 10, TimeUnit.MILLISECONDS, 512);
 
-    private static final Map<Long, DefaultFuture> FUTURES   = new ConcurrentHashMap<Long, DefaultFuture>();
+    private static final AtomicReferenceFieldUpdater<DefaultFuture, Response> RESPONSE_UPDATER = 
+            AtomicReferenceFieldUpdater.newUpdater(DefaultFuture.class, Response.class, "response");
+
+    private static final AtomicReferenceFieldUpdater<DefaultFuture, ResponseCallback> CALLBACK_UPDATER = 
+            AtomicReferenceFieldUpdater.newUpdater(DefaultFuture.class, ResponseCallback.class, "callback");
+
+    private static final AtomicReferenceFieldUpdater<DefaultFuture, Waiter> WAITERS_UPDATER = 
+            AtomicReferenceFieldUpdater.newUpdater(DefaultFuture.class, Waiter.class, "waiters");
+
+    // the callback has been claimed by the thread invoking it.
+    private static final ResponseCallback         INVOKED = new ResponseCallback() {
+        public void done(Object response) {
+        }
+
+        public void caught(Throwable exception) {
+        }
+    };
 
     // invoke id.
     private final long                            id;
 
     private final Channel                         channel;
+
+    private final Futures                         futures;
     
     private final Request                         request;
 
     private final int                             timeout;
 
-    private final Lock                            lock = new ReentrantLock();
-
-    private final Condition                       done = lock.newCondition();
-
     private final long                            start = System.currentTimeMillis();
 
     private volatile long                         sent;
+
+    // the connection the request is written to.
+    private volatile Channel                      sentChannel;
     
     private volatile Response                     response;
 
     private volatile ResponseCallback             callback;
 
+    // threads parked in get, a stack.
+    private volatile Waiter                       waiters;
+
+    private volatile HashedWheelTimer.Timeout     timeoutCheck;
+
+    // the responses after the first chunk, null if the response is not chunked.
+    private volatile BlockingQueue<Response>      chunks;
+
     public DefaultFuture(Channel channel, Request request, int timeout){
+        this(channel, request, timeout, Futures.getFutures(channel, true));
+        // put into waiting table of the channel.
+        futures.put(id, this);
+        startTimeoutCheck(this.timeout);
+    }
+
+    private DefaultFuture(Channel channel, Request request, int timeout, Futures futures){
         this.channel = channel;
         this.request = request;
         this.id = request.getId();
-        this.timeout = timeout > 0 ? timeout : channel.getUrl().getPositiveParameter(Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
-        // put into waiting map.
-        FUTURES.put(id, this);
-        CHANNELS.put(id, channel);
+        this.timeout = timeout > 0 ? timeout : channel.getUrl().getPositiveParameter(Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
+        this.futures = futures;
+    }
+
+    /**
+     * create the future of a request of the channel. With <code>inflight=M</code> in the url of the channel
+     * at most M requests of the channel wait for responses: the caller waits for one of them to complete
+     * until the timeout, or fails at once with <code>inflight.failfast=true</code>.
+     */
+    public static DefaultFuture newFuture(Channel channel, Request request, int timeout) throws RemotingException {
+        int inflight = channel.getUrl().getParameter(Constants.INFLIGHT_KEY, 0);
+        if (inflight <= 0) {
+            return new DefaultFuture(channel, request, timeout);
+        }
+        boolean failfast = channel.getUrl().getParameter(Constants.INFLIGHT_FAILFAST_KEY, false);
+        DefaultFuture future = new DefaultFuture(channel, request, timeout, Futures.getFutures(channel, true));
+        long start = System.currentTimeMillis();
+        boolean put;
+        try {
+            // the slot is taken under the lock of the table, so concurrent callers cannot overshoot the limit
+            put = future.futures.putBelow(future.id, future, inflight, failfast ? 0 : future.timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            put = false;
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        if (! put) {
+            String message = "Waiting in-flight requests " + (failfast ? "rejected" : "timeout") + " in client-side, elapsed: "
+                    + elapsed + " ms, timeout: " + future.timeout + " ms, max in-flight requests: " + inflight
+                    + ", request: " + request + ", channel: " + channel.getLocalAddress() + " -> " + channel.getRemoteAddress();
+            throw failfast ? new RemotingException(channel, message) : new TimeoutException(false, channel, message);
+        }
+        future.startTimeoutCheck(Math.max(future.timeout - elapsed, 1));
+        return future;
+    }
+
+    private void startTimeoutCheck(long timeout) {
+        this.timeoutCheck = TIMEOUT_TIMER.newTimeout(new TimeoutCheck(this), timeout, TimeUnit.MILLISECONDS);
     }
     
     public Object get() throws RemotingException {
@@ -89,19 +179,26 @@ public class DefaultFuture implements ResponseFuture {
             timeout = Constants.DEFAULT_TIMEOUT;
         }
         if (! isDone()) {
-            long start = System.currentTimeMillis();
-            lock.lock();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+            Waiter waiter = new Waiter(Thread.currentThread());
+            Waiter head;
+            do {
+                head = waiters;
+                waiter.next = head;
+            } while (! WAITERS_UPDATER.compareAndSet(this, head, waiter));
             try {
                 while (! isDone()) {
-                    done.await(timeout, TimeUnit.MILLISECONDS);
-                    if (isDone() || System.currentTimeMillis() - start > timeout) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
                         break;
                     }
+                    LockSupport.parkNanos(this, remaining);
+                    if (Thread.interrupted()) {
+                        throw new RuntimeException(new InterruptedException());
+                    }
                 }
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
             } finally {
-                lock.unlock();
+                waiter.thread = null;
             }
             if (! isDone()) {
                 throw new TimeoutException(sent > 0, channel, getTimeoutMessage(false));
@@ -113,34 +210,89 @@ public class DefaultFuture implements ResponseFuture {
     public void cancel(){
         Response errorResult = new Response(id);
         errorResult.setErrorMessage("request future has been canceled.");
-        response = errorResult ;
-        FUTURES.remove(id);
-        CHANNELS.remove(id);
+        futures.remove(id);
+        doReceived(errorResult);
     }
 
     public boolean isDone() {
         return response != null;
     }
 
+    /**
+     * @return true if the response got is the first chunk, the next ones are taken by {@link #nextChunk(int)}
+     */
+    public boolean isChunked() {
+        return chunks != null;
+    }
+
+    /**
+     * take the next chunk or the final response, the provider may send one more chunk once a chunk is taken.
+     */
+    public Response nextChunk(int timeout) throws RemotingException {
+        BlockingQueue<Response> queue = chunks;
+        if (queue == null) {
+            throw new IllegalStateException("The response of request " + id + " is not chunked");
+        }
+        if (timeout <= 0) {
+            timeout = this.timeout;
+        }
+        Response res;
+        try {
+            res = queue.poll(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        if (res == null) {
+            cancelChunks();
+            throw new TimeoutException(true, channel, "Waiting server-side chunk timeout, timeout: " + timeout
+                    + " ms, request: " + request + ", channel: " + channel.getLocalAddress() + " -> " + channel.getRemoteAddress());
+        }
+        if (res.getStatus() == Response.CHUNK) {
+            sendChunkEvent(channel, id, Request.CREDIT_EVENT);
+        }
+        return res;
+    }
+
+    /**
+     * drop the chunks not taken yet, the provider stops sending.
+     */
+    public void cancelChunks() {
+        if (chunks != null && futures.remove(id) != null) {
+            sendChunkEvent(channel, id, Request.CANCEL_EVENT);
+        }
+    }
+
+    private static void sendChunkEvent(Channel channel, long id, String event) {
+        Request req = new Request(id);
+        req.setVersion("2.0.0");
+        req.setTwoWay(false);
+        req.setEvent(event);
+        try {
+            channel.send(req);
+        } catch (RemotingException e) {
+            logger.warn("Failed to send chunk event " + event + " of request " + id + ", cause: " + e.getMessage(), e);
+        }
+    }
+
     public void setCallback(ResponseCallback callback) {
         if (isDone()) {
-            invokeCallback(callback);
-        } else {
-            boolean isdone = false;
-            lock.lock();
-            try{
-                if (!isDone()) {
-                    this.callback = callback;
-                } else {
-                    isdone = true;
-                }
-            }finally {
-                lock.unlock();
-            }
-            if (isdone){
+            invokeCallback(callback);
+            return;
+        }
+        for (;;) {
+            ResponseCallback current = this.callback;
+            if (current == INVOKED) {
                 invokeCallback(callback);
+                return;
             }
-        }
+            if (CALLBACK_UPDATER.compareAndSet(this, current, callback)) {
+                break;
+            }
+        }
+        // completed meanwhile, invoke unless the completing thread did.
+        if (isDone() && CALLBACK_UPDATER.compareAndSet(this, callback, INVOKED)) {
+            invokeCallback(callback);
+        }
     }
     private void invokeCallback(ResponseCallback c){
         ResponseCallback callbackCopy = c;
@@ -153,7 +305,7 @@ public class DefaultFuture implements ResponseFuture {
             throw new IllegalStateException("response cannot be null. url:"+channel.getUrl());
         }
         
-        if (res.getStatus() == Response.OK) {
+        if (res.getStatus() == Response.OK || res.getStatus() == Response.CHUNK) {
             try {
                 callbackCopy.done(res.getResult());
             } catch (Exception e) {
@@ -181,7 +333,7 @@ public class DefaultFuture implements ResponseFuture {
         if (res == null) {
             throw new IllegalStateException("response cannot be null");
         }
-        if (res.getStatus() == Response.OK) {
+        if (res.getStatus() == Response.OK || res.getStatus() == Response.CHUNK) {
             return res.getResult();
         }
         if (res.getStatus() == Response.CLIENT_TIMEOUT || res.getStatus() == Response.SERVER_TIMEOUT) {
@@ -190,14 +342,10 @@ public class DefaultFuture implements ResponseFuture {
         throw new RemotingException(channel, res.getErrorMessage());
     }
 
-    private long getId() {
+    public long getId() {
         return id;
     }
     
-    private Channel getChannel() {
-        return channel;
-    }
-    
     private boolean isSent() {
         return sent > 0;
     }
@@ -206,65 +354,122 @@ public class DefaultFuture implements ResponseFuture {
         return request;
     }
 
-    private int getTimeout() {
-        return timeout;
-    }
-
-    private long getStartTimestamp() {
-        return start;
-    }
+    public static DefaultFuture getFuture(Channel channel, long id) {
+        Futures futures = Futures.getFutures(channel, false);
+        return futures == null ? null : futures.get(id);
+    }
 
-    public static DefaultFuture getFuture(long id) {
-        return FUTURES.get(id);
+    public static boolean hasFuture(Channel channel) {
+        Futures futures = Futures.getFutures(channel, false);
+        return futures != null && ! futures.isEmpty();
     }
-
-    public static boolean hasFuture(Channel channel) {
-        return CHANNELS.containsValue(channel);
-    }
-
-    public static void sent(Channel channel, Request request) {
-        DefaultFuture future = FUTURES.get(request.getId());
+
+    /**
+     * the requests of the channel waiting for responses.
+     */
+    public static int getPendingCount(Channel channel) {
+        Futures futures = Futures.getFutures(channel, false);
+        return futures == null ? 0 : futures.count;
+    }
+
+    public static void sent(Channel channel, Request request) {
+        DefaultFuture future = getFuture(channel, request.getId());
         if (future != null) {
-            future.doSent();
+            future.doSent(channel);
         }
     }
 
-    private void doSent() {
+    private void doSent(Channel channel) {
+        sentChannel = channel;
         sent = System.currentTimeMillis();
     }
 
     public static void received(Channel channel, Response response) {
-        try {
-            DefaultFuture future = FUTURES.remove(response.getId());
-            if (future != null) {
-                future.doReceived(response);
-            } else {
-                logger.warn("The timeout response finally returned at " 
-                            + (new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date())) 
-                            + ", response " + response 
-                            + (channel == null ? "" : ", channel: " + channel.getLocalAddress() 
-                                + " -> " + channel.getRemoteAddress()));
+        Futures futures = channel == null ? null : Futures.getFutures(channel, false);
+        DefaultFuture future;
+        if (futures == null) {
+            future = null;
+        } else if (response.getStatus() == Response.CHUNK) {
+            future = futures.get(response.getId());
+        } else {
+            future = futures.remove(response.getId());
+        }
+        if (future != null) {
+            future.doReceived(response);
+        } else {
+            if (channel != null && response.getStatus() == Response.CHUNK) {
+                sendChunkEvent(channel, response.getId(), Request.CANCEL_EVENT);
             }
-        } finally {
-            CHANNELS.remove(response.getId());
+            logger.warn("The timeout response finally returned at " 
+                        + (new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date())) 
+                        + ", response " + response 
+                        + (channel == null ? "" : ", channel: " + channel.getLocalAddress() 
+                            + " -> " + channel.getRemoteAddress()));
         }
     }
 
-    private void doReceived(Response res) {
-        lock.lock();
-        try {
-            response = res;
-            if (done != null) {
-                done.signal();
+    /**
+     * fail the requests waiting for responses of the disconnected channel at once. Of a client
+     * not closed only the requests sent by the channel fail, the others are sent after reconnect.
+     */
+    public static void closeChannel(Channel channel) {
+        Futures futures = Futures.getFutures(channel, false);
+        if (futures == null) {
+            return;
+        }
+        AbstractClient client = Futures.getClient(channel);
+        List<DefaultFuture> closed;
+        if (client == null || client.isClosed()) {
+            closed = futures.removeAll();
+            if (client != null) {
+                Futures.removeFutures(client, futures);
             }
-        } finally {
-            lock.unlock();
+        } else {
+            closed = futures.removeSentBy(channel);
         }
-        if (callback != null) {
-            invokeCallback(callback);
+        for (DefaultFuture future : closed) {
+            Response disconnectResponse = new Response(future.getId());
+            disconnectResponse.setStatus(Response.CHANNEL_INACTIVE);
+            disconnectResponse.setErrorMessage("Channel " + channel + " is inactive. Directly return the unfinished request : " 
+                        + future.getRequest());
+            future.doReceived(disconnectResponse);
         }
     }
 
+    private void cancelTimeoutCheck() {
+        HashedWheelTimer.Timeout t = timeoutCheck;
+        if (t != null) {
+            t.cancel();
+        }
+    }
+
+    private void doReceived(Response res) {
+        BlockingQueue<Response> queue = chunks;
+        if (queue != null) {
+            queue.offer(res);
+            return;
+        }
+        if (res.getStatus() == Response.CHUNK) {
+            chunks = new LinkedBlockingQueue<Response>();
+        }
+        if (! RESPONSE_UPDATER.compareAndSet(this, null, res)) {
+            return;
+        }
+        cancelTimeoutCheck();
+        if (waiters != null) {
+            for (Waiter w = WAITERS_UPDATER.getAndSet(this, null); w != null; w = w.next) {
+                Thread thread = w.thread;
+                if (thread != null) {
+                    LockSupport.unpark(thread);
+                }
+            }
+        }
+        ResponseCallback c = callback;
+        if (c != null && c != INVOKED && CALLBACK_UPDATER.compareAndSet(this, c, INVOKED)) {
+            invokeCallback(c);
+        }
+    }
+
     private String getTimeoutMessage(boolean scan) {
         long nowTimestamp = System.currentTimeMillis();
         return (sent > 0 ? "Waiting server-side response timeout" : "Sending request timeout in client-side")
@@ -278,37 +483,178 @@ public class DefaultFuture implements ResponseFuture {
                     + " -> " + channel.getRemoteAddress();
     }
 
-    private static class RemotingInvocationTimeoutScan implements Runnable {
+    private static final class Waiter {
+
+        volatile Thread thread;
+
+        Waiter next;
+
+        Waiter(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    private static class TimeoutCheck implements Runnable {
+
+        private final DefaultFuture future;
+
+        TimeoutCheck(DefaultFuture future) {
+            this.future = future;
+        }
 
         public void run() {
-            while (true) {
+            if (future.isDone() || future.futures.remove(future.getId()) == null) {
+                return;
+            }
+            // create exception response.
+            Response timeoutResponse = new Response(future.getId());
+            // set timeout status.
+            timeoutResponse.setStatus(future.isSent() ? Response.SERVER_TIMEOUT : Response.CLIENT_TIMEOUT);
+            timeoutResponse.setErrorMessage(future.getTimeoutMessage(true));
+            // handle response.
+            future.doReceived(timeoutResponse);
+        }
+    }
+
+    /**
+     * futures waiting for responses of a channel, kept in the channel attribute, or of a client,
+     * kept for the client and linked to its current connection.
+     */
+    private static final class Futures {
+
+        private static final String CHANNEL_KEY = Futures.class.getName();
+
+        private static final ConcurrentMap<AbstractClient, Futures> CLIENT_FUTURES = new ConcurrentHashMap<AbstractClient, Futures>();
+
+        private final LongHashMap<DefaultFuture> futures = new LongHashMap<DefaultFuture>();
+
+        // size of the futures, read without lock
+        private volatile int count;
+
+        // threads waiting in putBelow, guarded by this
+        private int waiting;
+
+        static Futures getFutures(Channel channel, boolean create) {
+            AbstractClient client = getClient(channel);
+            if (client != null) {
+                Futures result = CLIENT_FUTURES.get(client);
+                if (result == null) {
+                    if (! create) {
+                        return null;
+                    }
+                    CLIENT_FUTURES.putIfAbsent(client, new Futures());
+                    result = CLIENT_FUTURES.get(client);
+                }
+                // the wrappers of the client read the table by the attribute of its connection
+                if (channel.getAttribute(CHANNEL_KEY) != result) {
+                    channel.setAttribute(CHANNEL_KEY, result);
+                }
+                return result;
+            }
+            Futures result = (Futures) channel.getAttribute(CHANNEL_KEY);
+            if (result == null && create) {
+                // the channel may be wrapped by clients, so not synchronized on it
+                synchronized (Futures.class) {
+                    result = (Futures) channel.getAttribute(CHANNEL_KEY);
+                    if (result == null) {
+                        result = new Futures();
+                        channel.setAttribute(CHANNEL_KEY, result);
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * the client owning the channel, a client or one of its connections.
+         */
+        static AbstractClient getClient(Channel channel) {
+            if (channel instanceof AbstractClient) {
+                return (AbstractClient) channel;
+            }
+            ChannelHandler handler = channel.getChannelHandler();
+            return handler instanceof AbstractClient ? (AbstractClient) handler : null;
+        }
+
+        static void removeFutures(AbstractClient client, Futures futures) {
+            CLIENT_FUTURES.remove(client, futures);
+        }
+
+        synchronized void put(long id, DefaultFuture future) {
+            futures.put(id, future);
+            count = futures.size();
+        }
+
+        synchronized DefaultFuture get(long id) {
+            return futures.get(id);
+        }
+
+        synchronized DefaultFuture remove(long id) {
+            DefaultFuture future = futures.remove(id);
+            if (future != null) {
+                removed();
+            }
+            return future;
+        }
+
+        synchronized boolean isEmpty() {
+            return futures.isEmpty();
+        }
+
+        synchronized List<DefaultFuture> removeSentBy(Channel channel) {
+            List<DefaultFuture> result = new ArrayList<DefaultFuture>();
+            for (DefaultFuture future : futures.values()) {
+                if (channel.equals(future.sentChannel)) {
+                    futures.remove(future.getId());
+                    result.add(future);
+                }
+            }
+            if (! result.isEmpty()) {
+                removed();
+            }
+            return result;
+        }
+
+        synchronized List<DefaultFuture> removeAll() {
+            List<DefaultFuture> result = futures.values();
+            futures.clear();
+            removed();
+            return result;
+        }
+
+        /**
+         * put the future once less than <code>limit</code> futures are waiting for responses.
+         * 
+         * @return false if timeout
+         */
+        synchronized boolean putBelow(long id, DefaultFuture future, int limit, long timeout) throws InterruptedException {
+            if (futures.size() >= limit) {
+                long deadline = System.currentTimeMillis() + timeout;
+                long remain = timeout;
+                waiting ++;
                 try {
-                    for (DefaultFuture future : FUTURES.values()) {
-                        if (future == null || future.isDone()) {
-                            continue;
-                        }
-                        if (System.currentTimeMillis() - future.getStartTimestamp() > future.getTimeout()) {
-                            // create exception response.
-                            Response timeoutResponse = new Response(future.getId());
-                            // set timeout status.
-                            timeoutResponse.setStatus(future.isSent() ? Response.SERVER_TIMEOUT : Response.CLIENT_TIMEOUT);
-                            timeoutResponse.setErrorMessage(future.getTimeoutMessage(true));
-                            // handle response.
-                            DefaultFuture.received(future.getChannel(), timeoutResponse);
+                    while (futures.size() >= limit) {
+                        if (remain <= 0) {
+                            return false;
                         }
+                        wait(remain);
+                        remain = deadline - System.currentTimeMillis();
                     }
-                    Thread.sleep(30);
-                } catch (Throwable e) {
-                    logger.error("Exception when scan the timeout invocation of remoting.", e);
+                } finally {
+                    waiting --;
                 }
             }
+            put(id, future);
+            return true;
         }
-    }
 
-    static {
-        Thread th = new Thread(new RemotingInvocationTimeoutScan(), "DubboResponseTimeoutScanTimer");
-        th.setDaemon(true);
-        th.start();
+        // guarded by this
+        private void removed() {
+            count = futures.size();
+            if (waiting > 0) {
+                notifyAll();
+            }
+        }
     }
 
 }
\ No newline at end of file
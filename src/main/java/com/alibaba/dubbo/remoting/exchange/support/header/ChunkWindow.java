@@ -0,0 +1,112 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.exchange.support.header;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.remoting.exchange.ChunkedReply;
+import com.alibaba.dubbo.remoting.exchange.Request;
+
+/**
+ * The chunks of a {@link ChunkedReply} the provider may send before the consumer takes them,
+ * the windows of a channel are kept in the channel attribute and credited by the events of the
+ * consumer in the io thread, the threads sending the chunks may fill the pool.
+ */
+final class ChunkWindow {
+
+    private static final String CHANNEL_KEY = ChunkWindow.class.getName();
+
+    private final ConcurrentMap<Long, ChunkWindow> windows;
+
+    private final long id;
+
+    private final Semaphore credits;
+
+    private volatile boolean canceled;
+
+    private ChunkWindow(ConcurrentMap<Long, ChunkWindow> windows, long id, int window) {
+        this.windows = windows;
+        this.id = id;
+        this.credits = new Semaphore(window);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<Long, ChunkWindow> getWindows(Channel channel, boolean create) {
+        ConcurrentMap<Long, ChunkWindow> windows = (ConcurrentMap<Long, ChunkWindow>) channel.getAttribute(CHANNEL_KEY);
+        if (windows == null && create) {
+            synchronized (ChunkWindow.class) {
+                windows = (ConcurrentMap<Long, ChunkWindow>) channel.getAttribute(CHANNEL_KEY);
+                if (windows == null) {
+                    windows = new ConcurrentHashMap<Long, ChunkWindow>();
+                    channel.setAttribute(CHANNEL_KEY, windows);
+                }
+            }
+        }
+        return windows;
+    }
+
+    static ChunkWindow open(Channel channel, long id, int window) {
+        ConcurrentMap<Long, ChunkWindow> windows = getWindows(channel, true);
+        ChunkWindow result = new ChunkWindow(windows, id, window);
+        windows.put(id, result);
+        return result;
+    }
+
+    /**
+     * credit or cancel the window of the request.
+     */
+    static void received(Channel channel, Request event) {
+        ConcurrentMap<Long, ChunkWindow> windows = getWindows(channel, false);
+        ChunkWindow window = windows == null ? null : windows.get(event.getId());
+        if (window == null) {
+            return;
+        }
+        if (Request.CANCEL_EVENT.equals(event.getData())) {
+            window.canceled = true;
+        }
+        window.credits.release();
+    }
+
+    static boolean isEvent(Object message) {
+        if (message instanceof Request && ((Request) message).isEvent()) {
+            Object data = ((Request) message).getData();
+            return Request.CREDIT_EVENT.equals(data) || Request.CANCEL_EVENT.equals(data);
+        }
+        return false;
+    }
+
+    /**
+     * wait for the consumer to take a chunk if the window is full.
+     *
+     * @return false if canceled or timeout
+     */
+    boolean acquire(long timeout) throws InterruptedException {
+        return credits.tryAcquire(timeout, TimeUnit.MILLISECONDS) && ! canceled;
+    }
+
+    boolean isCanceled() {
+        return canceled;
+    }
+
+    void close() {
+        windows.remove(id);
+    }
+
+}
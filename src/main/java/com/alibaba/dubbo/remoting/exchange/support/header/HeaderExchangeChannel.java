@@ -107,7 +107,7 @@ final class HeaderExchangeChannel implements ExchangeChannel {
         req.setVersion("2.0.0");
         req.setTwoWay(true);
         req.setData(request);
-        DefaultFuture future = new DefaultFuture(channel, req, timeout);
+        DefaultFuture future = DefaultFuture.newFuture(channel, req, timeout);
         try{
             channel.send(req);
         }catch (RemotingException e) {
@@ -127,6 +127,8 @@ final class HeaderExchangeChannel implements ExchangeChannel {
         } catch (Throwable e) {
             logger.warn(e.getMessage(), e);
         }
+        // a client closed before connected gets no disconnected event
+        DefaultFuture.closeChannel(channel);
     }
 
     // graceful close
@@ -137,7 +139,7 @@ final class HeaderExchangeChannel implements ExchangeChannel {
         closed = true;
         if (timeout > 0) {
             long start = System.currentTimeMillis();
-            while (DefaultFuture.hasFuture(HeaderExchangeChannel.this) 
+            while (DefaultFuture.hasFuture(channel) 
                     && System.currentTimeMillis() - start < timeout) {
                 try {
                     Thread.sleep(10);
@@ -16,6 +16,7 @@
 package com.alibaba.dubbo.remoting.exchange.support.header;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
 
 import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
@@ -27,6 +28,7 @@ import com.alibaba.dubbo.remoting.Channel;
 import com.alibaba.dubbo.remoting.ChannelHandler;
 import com.alibaba.dubbo.remoting.ExecutionException;
 import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.remoting.exchange.ChunkedReply;
 import com.alibaba.dubbo.remoting.exchange.ExchangeChannel;
 import com.alibaba.dubbo.remoting.exchange.ExchangeHandler;
 import com.alibaba.dubbo.remoting.exchange.Request;
@@ -77,11 +79,21 @@ public class HeaderExchangeHandler implements ChannelHandlerDelegate {
 
             return res;
         }
+        // the consumer stopped waiting while queued, answer without invoking
+        if (req.isExpired()) {
+            res.setStatus(Response.SERVER_TIMEOUT);
+            res.setErrorMessage("The request expired " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - req.getDeadline())
+                    + "ms before invoking, consumer: " + channel.getRemoteAddress() + ", request: " + req);
+            return res;
+        }
         // find handler by message class.
         Object msg = req.getData();
         try {
             // handle data.
             Object result = handler.reply(channel, msg);
+            if (result instanceof ChunkedReply) {
+                return handleChunks(channel, req, res, (ChunkedReply) result);
+            }
             res.setStatus(Response.OK);
             res.setResult(result);
         } catch (Throwable e) {
@@ -91,6 +103,42 @@ public class HeaderExchangeHandler implements ChannelHandlerDelegate {
         return res;
     }
 
+    /**
+     * send the chunks but the last one as the consumer takes them.
+     * 
+     * @return the final response with the last chunk, null if canceled by the consumer
+     */
+    private Response handleChunks(ExchangeChannel channel, Request req, Response res, ChunkedReply reply) throws Exception {
+        URL url = channel.getUrl();
+        int window = url.getPositiveParameter(Constants.STREAM_WINDOW_KEY, Constants.DEFAULT_STREAM_WINDOW);
+        int timeout = url.getPositiveParameter(Constants.STREAM_TIMEOUT_KEY, Constants.DEFAULT_STREAM_TIMEOUT);
+        ChunkWindow credits = ChunkWindow.open(channel, req.getId(), window);
+        try {
+            Object chunk = reply.next();
+            while (reply.hasNext()) {
+                if (! credits.acquire(timeout)) {
+                    if (credits.isCanceled()) {
+                        return null;
+                    }
+                    res.setStatus(Response.SERVER_TIMEOUT);
+                    res.setErrorMessage("The consumer " + channel.getRemoteAddress() + " took no chunk in " + timeout + "ms, request: " + req);
+                    return res;
+                }
+                Response part = new Response(req.getId(), req.getVersion());
+                part.setStatus(Response.CHUNK);
+                part.setResult(chunk);
+                channel.send(part);
+                chunk = reply.next();
+            }
+            res.setStatus(Response.OK);
+            res.setResult(chunk);
+            return res;
+        } finally {
+            credits.close();
+            reply.close();
+        }
+    }
+
     static void handleResponse(Channel channel, Response response) throws RemotingException {
         if (response != null && !response.isHeartbeat()) {
             DefaultFuture.received(channel, response);
@@ -115,6 +163,7 @@ public class HeaderExchangeHandler implements ChannelHandlerDelegate {
         try {
             handler.disconnected(exchangeChannel);
         } finally {
+            DefaultFuture.closeChannel(channel);
             HeaderExchangeChannel.removeChannelIfDisconnected(channel);
         }
     }
@@ -168,7 +217,9 @@ public class HeaderExchangeHandler implements ChannelHandlerDelegate {
                 } else {
                     if (request.isTwoWay()) {
                         Response response = handleRequest(exchangeChannel, request);
-                        channel.send(response);
+                        if (response != null) {
+                            channel.send(response);
+                        }
                     } else {
                         handler.received(exchangeChannel, request.getData());
                     }
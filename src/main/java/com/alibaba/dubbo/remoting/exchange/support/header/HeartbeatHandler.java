@@ -24,6 +24,7 @@ import com.alibaba.dubbo.remoting.ChannelHandler;
 import com.alibaba.dubbo.remoting.RemotingException;
 import com.alibaba.dubbo.remoting.exchange.Request;
 import com.alibaba.dubbo.remoting.exchange.Response;
+import com.alibaba.dubbo.remoting.exchange.support.DefaultFuture;
 import com.alibaba.dubbo.remoting.transport.AbstractChannelHandlerDelegate;
 
 /**
@@ -77,6 +78,16 @@ public class HeartbeatHandler extends AbstractChannelHandlerDelegate {
             }
             return;
         }
+        // the chunk events and responses are handled in the io thread, in order, the threads of
+        // the pool may all wait for them.
+        if (ChunkWindow.isEvent(message)) {
+            ChunkWindow.received(channel, (Request) message);
+            return;
+        }
+        if (isChunkResponse(message)) {
+            DefaultFuture.received(channel, (Response) message);
+            return;
+        }
         if (isHeartbeatResponse(message)) {
             if (logger.isDebugEnabled()) {
             	logger.debug(
@@ -110,6 +121,10 @@ public class HeartbeatHandler extends AbstractChannelHandlerDelegate {
         return message instanceof Request && ((Request) message).isHeartbeat();
     }
 
+    private boolean isChunkResponse(Object message) {
+        return message instanceof Response && ((Response) message).getStatus() == Response.CHUNK;
+    }
+
     private boolean isHeartbeatResponse(Object message) {
         return message instanceof Response && ((Response)message).isHeartbeat();
     }
@@ -19,9 +19,11 @@ package com.alibaba.dubbo.remoting.transport;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.compress.Compressor;
 import com.alibaba.dubbo.common.extension.ExtensionLoader;
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
@@ -55,6 +57,37 @@ public class CodecSupport {
         }
     }
 
+    private static Map<String, Compressor> NAME_COMPRESSOR_MAP = new HashMap<String, Compressor>();
+
+    private static Map<Byte, Compressor> ID_COMPRESSOR_MAP = new HashMap<Byte, Compressor>();
+
+    // the unavailable compressors configured, warned once
+    private static Map<String, Boolean> UNAVAILABLE_COMPRESSORS = new ConcurrentHashMap<String, Boolean>();
+
+    static {
+        ExtensionLoader<Compressor> loader = ExtensionLoader.getExtensionLoader(Compressor.class);
+        for (String name : loader.getSupportedExtensions()) {
+            Compressor compressor;
+            try {
+                compressor = loader.getExtension(name);
+            } catch (Throwable t) {
+                // the optional library is not in the classpath
+                logger.info("Compressor extension " + name + " is unavailable, cause: " + t.getMessage());
+                continue;
+            }
+            byte idByte = compressor.getId();
+            if (ID_COMPRESSOR_MAP.containsKey(idByte)) {
+                logger.error("Compressor extension " + compressor.getClass().getName()
+                                 + " has duplicate id to Compressor extension "
+                                 + ID_COMPRESSOR_MAP.get(idByte).getClass().getName()
+                                 + ", ignore this Compressor extension");
+                continue;
+            }
+            ID_COMPRESSOR_MAP.put(idByte, compressor);
+            NAME_COMPRESSOR_MAP.put(name, compressor);
+        }
+    }
+
     public static Serialization getSerializationById(Byte id) {
         return ID_SERIALIZATION_MAP.get(id);
     }
@@ -72,4 +105,23 @@ public class CodecSupport {
         return result;
     }
 
+    public static Compressor getCompressorById(byte id) {
+        return ID_COMPRESSOR_MAP.get(id);
+    }
+
+    /**
+     * @return the compressor configured by the url, null if none or unavailable
+     */
+    public static Compressor getCompressor(URL url) {
+        String name = url.getParameter(Constants.COMPRESSOR_KEY);
+        if (name == null || name.length() == 0) {
+            return null;
+        }
+        Compressor compressor = NAME_COMPRESSOR_MAP.get(name);
+        if (compressor == null && UNAVAILABLE_COMPRESSORS.put(name, Boolean.TRUE) == null) {
+            logger.warn("Compressor " + name + " is unavailable, the messages to " + url.getAddress() + " are not compressed");
+        }
+        return compressor;
+    }
+
 }
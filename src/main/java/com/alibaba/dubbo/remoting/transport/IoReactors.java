@@ -0,0 +1,250 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.transport;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+
+/**
+ * Process-wide registry of the IO reactors (netty channel factories and event loop groups).
+ * <p>
+ * The servers and the clients of a transporter share one reactor per name and size, e.g. all the
+ * servers with <code>iothreads=8</code> run on the same 8 IO threads whatever protocol or port
+ * they export. A reactor is destroyed by its factory when it is released by the last server or
+ * client using it, unless the factory keeps it.
+ * </p>
+ * <p>
+ * The codecs record the channels and the reads of every IO thread (loop), see
+ * {@link #currentLoop()}, for the <code>ioreactor</code> status checker.
+ * </p>
+ */
+public final class IoReactors {
+
+    private static final Logger logger = LoggerFactory.getLogger(IoReactors.class);
+
+    public interface ReactorFactory<T> {
+
+        T create(String name, int threads);
+
+        /**
+         * @return false to keep the unused reactor for the next {@link IoReactors#acquire}
+         */
+        boolean destroy(T reactor);
+
+    }
+
+    // <name-threads, reactor>, guarded by itself
+    private static final Map<String, Reactor> REACTORS = new LinkedHashMap<String, Reactor>();
+
+    // <thread name, loop>
+    private static final ConcurrentMap<String, Loop> LOOPS = new ConcurrentHashMap<String, Loop>();
+
+    private static final ThreadLocal<Loop> CURRENT = new ThreadLocal<Loop>();
+
+    /**
+     * Get the shared reactor of the name and size, create it on the first call.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T acquire(String name, int threads, ReactorFactory<T> factory) {
+        String key = name + "-" + threads;
+        synchronized (REACTORS) {
+            Reactor reactor = REACTORS.get(key);
+            if (reactor == null) {
+                reactor = new Reactor(name, threads, factory.create(name, threads), factory);
+                REACTORS.put(key, reactor);
+                if (logger.isInfoEnabled()) {
+                    logger.info("Create io reactor " + key);
+                }
+            }
+            reactor.references ++;
+            return (T) reactor.reactor;
+        }
+    }
+
+    /**
+     * Release a reactor got by {@link #acquire}, destroy it if it is not used any more.
+     */
+    public static void release(Object reactor) {
+        synchronized (REACTORS) {
+            for (Iterator<Reactor> iterator = REACTORS.values().iterator(); iterator.hasNext(); ) {
+                Reactor r = iterator.next();
+                if (r.reactor == reactor) {
+                    if (-- r.references <= 0 && r.destroy()) {
+                        iterator.remove();
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    public static List<Reactor> getReactors() {
+        synchronized (REACTORS) {
+            return new ArrayList<Reactor>(REACTORS.values());
+        }
+    }
+
+    /**
+     * The loop of the current IO thread, netty 3 renames its pooled worker threads so the
+     * loops are known by the thread names.
+     */
+    public static Loop currentLoop() {
+        Thread thread = Thread.currentThread();
+        String name = thread.getName();
+        Loop loop = CURRENT.get();
+        if (loop == null || ! loop.name.equals(name)) {
+            loop = LOOPS.get(name);
+            if (loop == null) {
+                LOOPS.putIfAbsent(name, new Loop(name));
+                loop = LOOPS.get(name);
+            }
+            loop.thread = thread;
+            CURRENT.set(loop);
+        }
+        return loop;
+    }
+
+    /**
+     * The loops in use, the loops of the terminated threads without channel are removed.
+     */
+    public static Collection<Loop> getLoops() {
+        List<Loop> loops = new ArrayList<Loop>();
+        for (Iterator<Loop> iterator = LOOPS.values().iterator(); iterator.hasNext(); ) {
+            Loop loop = iterator.next();
+            Thread thread = loop.thread;
+            if (loop.getChannels() <= 0 && (thread == null || ! thread.isAlive())) {
+                iterator.remove();
+            } else {
+                loops.add(loop);
+            }
+        }
+        return loops;
+    }
+
+    public static final class Reactor {
+
+        private final String name;
+
+        private final int threads;
+
+        private final Object reactor;
+
+        private final ReactorFactory<Object> factory;
+
+        private int references;
+
+        @SuppressWarnings("unchecked")
+        <T> Reactor(String name, int threads, T reactor, ReactorFactory<T> factory) {
+            this.name = name;
+            this.threads = threads;
+            this.reactor = reactor;
+            this.factory = (ReactorFactory<Object>) factory;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public int getReferences() {
+            synchronized (REACTORS) {
+                return references;
+            }
+        }
+
+        boolean destroy() {
+            try {
+                if (! factory.destroy(reactor)) {
+                    return false;
+                }
+                if (logger.isInfoEnabled()) {
+                    logger.info("Destroy io reactor " + name + "-" + threads);
+                }
+            } catch (Throwable t) {
+                logger.warn("Failed to destroy io reactor " + name + "-" + threads + ", cause: " + t.getMessage(), t);
+            }
+            return true;
+        }
+
+    }
+
+    public static final class Loop {
+
+        private final String name;
+
+        private volatile Thread thread;
+
+        private final AtomicInteger channels = new AtomicInteger();
+
+        private final AtomicLong reads = new AtomicLong();
+
+        private final AtomicLong bytes = new AtomicLong();
+
+        Loop(String name) {
+            this.name = name;
+        }
+
+        public void connected() {
+            channels.incrementAndGet();
+        }
+
+        /**
+         * May be called out of the loop, netty 3 fires the disconnected event in the closing thread.
+         */
+        public void disconnected() {
+            channels.decrementAndGet();
+        }
+
+        public void read(int length) {
+            reads.incrementAndGet();
+            bytes.addAndGet(length);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getChannels() {
+            return channels.get();
+        }
+
+        public long getReads() {
+            return reads.get();
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+
+    }
+
+    private IoReactors() {}
+
+}
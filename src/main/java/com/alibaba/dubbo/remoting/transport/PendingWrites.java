@@ -0,0 +1,55 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.dubbo.remoting.Channel;
+
+/**
+ * The bytes encoded for a channel and not written to the socket yet, kept in the channel
+ * attribute, so they are seen through the clients wrapping the channel.
+ */
+public final class PendingWrites {
+
+    private static final String CHANNEL_KEY = PendingWrites.class.getName();
+
+    /**
+     * the counter of the channel, the transporter adds the encoded bytes and subtracts them
+     * once written.
+     */
+    public static AtomicLong getCounter(Channel channel) {
+        AtomicLong counter = (AtomicLong) channel.getAttribute(CHANNEL_KEY);
+        if (counter == null) {
+            synchronized (PendingWrites.class) {
+                counter = (AtomicLong) channel.getAttribute(CHANNEL_KEY);
+                if (counter == null) {
+                    counter = new AtomicLong();
+                    channel.setAttribute(CHANNEL_KEY, counter);
+                }
+            }
+        }
+        return counter;
+    }
+
+    public static long getBytes(Channel channel) {
+        Object counter = channel.getAttribute(CHANNEL_KEY);
+        return counter instanceof AtomicLong ? ((AtomicLong) counter).get() : 0;
+    }
+
+    private PendingWrites() {}
+
+}
@@ -15,16 +15,20 @@
  */
 package com.alibaba.dubbo.remoting.transport.dispatcher;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.threadpool.ThreadPoolStatistics;
 import com.alibaba.dubbo.remoting.Channel;
 import com.alibaba.dubbo.remoting.ChannelHandler;
+import com.alibaba.dubbo.remoting.exchange.Request;
 
 /**
  * @author chao.liuc
  *
  */
-public class ChannelEventRunnable implements Runnable {
+public class ChannelEventRunnable implements ThreadPoolStatistics.Task {
     private static final Logger logger             = LoggerFactory.getLogger(ChannelEventRunnable.class);
 
     private final ChannelHandler handler;
@@ -32,6 +36,11 @@ public class ChannelEventRunnable implements Runnable {
     private final ChannelState state;
     private final Throwable exception;
     private final Object message;
+    private final ThreadPoolStatistics statistics;
+    // System.nanoTime() when dispatched, 0 if not recorded
+    private final long dispatchTime;
+    // uncounted from the queued tasks, by the start or the discard
+    private final AtomicBoolean dequeued = new AtomicBoolean();
     
     public ChannelEventRunnable(Channel channel, ChannelHandler handler, ChannelState state) {
         this(channel, handler, state, null);
@@ -46,14 +55,61 @@ public class ChannelEventRunnable implements Runnable {
     }
 
     public ChannelEventRunnable(Channel channel, ChannelHandler handler, ChannelState state, Object message, Throwable exception) {
+        this(null, channel, handler, state, message, exception);
+    }
+
+    public ChannelEventRunnable(ThreadPoolStatistics statistics, Channel channel, ChannelHandler handler, ChannelState state) {
+        this(statistics, channel, handler, state, null, null);
+    }
+
+    public ChannelEventRunnable(ThreadPoolStatistics statistics, Channel channel, ChannelHandler handler, ChannelState state, Object message) {
+        this(statistics, channel, handler, state, message, null);
+    }
+
+    public ChannelEventRunnable(ThreadPoolStatistics statistics, Channel channel, ChannelHandler handler, ChannelState state, Throwable t) {
+        this(statistics, channel, handler, state, null, t);
+    }
+
+    /**
+     * @param statistics the statistics of the pool the event is dispatched to, null if not recorded
+     */
+    public ChannelEventRunnable(ThreadPoolStatistics statistics, Channel channel, ChannelHandler handler, ChannelState state, Object message, Throwable exception) {
         this.channel = channel;
         this.handler = handler;
         this.state = state;
         this.message = message;
         this.exception = exception;
+        this.statistics = statistics;
+        if (statistics != null) {
+            dispatchTime = System.nanoTime();
+            statistics.dispatched();
+        } else {
+            dispatchTime = 0;
+        }
     }
     
     public void run() {
+        if (statistics == null || ! dequeued.compareAndSet(false, true)) {
+            handle();
+            return;
+        }
+        long start = System.nanoTime();
+        long decodeTime = message instanceof Request ? ((Request) message).getDecodeTime() : 0;
+        statistics.started(start - (decodeTime != 0 ? decodeTime : dispatchTime));
+        try {
+            handle();
+        } finally {
+            statistics.finished(System.nanoTime() - start);
+        }
+    }
+
+    public void discard() {
+        if (statistics != null && dequeued.compareAndSet(false, true)) {
+            statistics.discarded();
+        }
+    }
+
+    private void handle() {
         switch (state) {
             case CONNECTED:
                 try{
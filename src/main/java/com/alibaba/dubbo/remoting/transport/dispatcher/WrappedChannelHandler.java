@@ -15,8 +15,10 @@
  */
 package com.alibaba.dubbo.remoting.transport.dispatcher;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
@@ -25,6 +27,7 @@ import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
 import com.alibaba.dubbo.common.store.DataStore;
 import com.alibaba.dubbo.common.threadpool.ThreadPool;
+import com.alibaba.dubbo.common.threadpool.ThreadPoolStatistics;
 import com.alibaba.dubbo.common.utils.NamedThreadFactory;
 import com.alibaba.dubbo.remoting.Channel;
 import com.alibaba.dubbo.remoting.ChannelHandler;
@@ -42,15 +45,26 @@ public class WrappedChannelHandler implements ChannelHandlerDelegate {
     protected final ChannelHandler handler;
 
     protected final URL url;
+
+    // null for the client pools
+    protected final ThreadPoolStatistics statistics;
     
     public WrappedChannelHandler(ChannelHandler handler, URL url) {
+        this(handler, url, (ExecutorService) ExtensionLoader.getExtensionLoader(ThreadPool.class).getAdaptiveExtension().getExecutor(url));
+    }
+
+    protected WrappedChannelHandler(ChannelHandler handler, URL url, ExecutorService executor) {
         this.handler = handler;
         this.url = url;
-        executor = (ExecutorService) ExtensionLoader.getExtensionLoader(ThreadPool.class).getAdaptiveExtension().getExecutor(url);
+        this.executor = executor;
 
         String componentKey = Constants.EXECUTOR_SERVICE_COMPONENT_KEY;
         if (Constants.CONSUMER_SIDE.equalsIgnoreCase(url.getParameter(Constants.SIDE_KEY))) {
             componentKey = Constants.CONSUMER_SIDE;
+            // the client pools are named by provider address, not recorded
+            this.statistics = null;
+        } else {
+            this.statistics = ThreadPoolStatistics.getStatistics(url.getParameter(Constants.THREAD_NAME_KEY, Constants.DEFAULT_THREAD_NAME));
         }
         DataStore dataStore = ExtensionLoader.getExtensionLoader(DataStore.class).getDefaultExtension();
         dataStore.put(componentKey, Integer.toString(url.getPort()), executor);
@@ -86,6 +100,18 @@ public class WrappedChannelHandler implements ChannelHandlerDelegate {
         handler.caught(channel, exception);
     }
     
+    /**
+     * execute the event, uncounting it from the queued tasks if rejected.
+     */
+    protected void execute(Executor executor, ChannelEventRunnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.discard();
+            throw e;
+        }
+    }
+
     public ExecutorService getExecutor() {
         return executor;
     }
@@ -52,7 +52,7 @@ public class ConnectionOrderedChannelHandler extends WrappedChannelHandler {
     public void connected(Channel channel) throws RemotingException {
         try{
             checkQueueLength();
-            connectionExecutor.execute(new ChannelEventRunnable(channel, handler ,ChannelState.CONNECTED));
+            execute(connectionExecutor, new ChannelEventRunnable(statistics, channel, handler ,ChannelState.CONNECTED));
         }catch (Throwable t) {
             throw new ExecutionException("connect event", channel, getClass()+" error when process connected event ." , t);
         }
@@ -61,7 +61,7 @@ public class ConnectionOrderedChannelHandler extends WrappedChannelHandler {
     public void disconnected(Channel channel) throws RemotingException {
         try{
             checkQueueLength();
-            connectionExecutor.execute(new ChannelEventRunnable(channel, handler ,ChannelState.DISCONNECTED));
+            execute(connectionExecutor, new ChannelEventRunnable(statistics, channel, handler ,ChannelState.DISCONNECTED));
         }catch (Throwable t) {
             throw new ExecutionException("disconnected event", channel, getClass()+" error when process disconnected event ." , t);
         }
@@ -73,7 +73,7 @@ public class ConnectionOrderedChannelHandler extends WrappedChannelHandler {
             cexecutor = SHARED_EXECUTOR;
         }
         try {
-            cexecutor.execute(new ChannelEventRunnable(channel, handler, ChannelState.RECEIVED, message));
+            execute(cexecutor, new ChannelEventRunnable(statistics, channel, handler, ChannelState.RECEIVED, message));
         } catch (Throwable t) {
             throw new ExecutionException(message, channel, getClass() + " error when process received event .", t);
         }
@@ -85,7 +85,7 @@ public class ConnectionOrderedChannelHandler extends WrappedChannelHandler {
             cexecutor = SHARED_EXECUTOR;
         } 
         try{
-            cexecutor.execute(new ChannelEventRunnable(channel, handler ,ChannelState.CAUGHT, exception));
+            execute(cexecutor, new ChannelEventRunnable(statistics, channel, handler ,ChannelState.CAUGHT, exception));
         }catch (Throwable t) {
             throw new ExecutionException("caught event", channel, getClass()+" error when process caught event ." , t);
         }
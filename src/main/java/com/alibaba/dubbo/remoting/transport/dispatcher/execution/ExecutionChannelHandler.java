@@ -30,19 +30,19 @@ public class ExecutionChannelHandler extends WrappedChannelHandler {
     }
 
     public void connected(Channel channel) throws RemotingException {
-        executor.execute(new ChannelEventRunnable(channel, handler ,ChannelState.CONNECTED));
+        execute(executor, new ChannelEventRunnable(statistics, channel, handler ,ChannelState.CONNECTED));
     }
 
     public void disconnected(Channel channel) throws RemotingException {
-        executor.execute(new ChannelEventRunnable(channel, handler ,ChannelState.DISCONNECTED));
+        execute(executor, new ChannelEventRunnable(statistics, channel, handler ,ChannelState.DISCONNECTED));
     }
 
     public void received(Channel channel, Object message) throws RemotingException {
-        executor.execute(new ChannelEventRunnable(channel, handler, ChannelState.RECEIVED, message));
+        execute(executor, new ChannelEventRunnable(statistics, channel, handler, ChannelState.RECEIVED, message));
     }
 
     public void caught(Channel channel, Throwable exception) throws RemotingException {
-        executor.execute(new ChannelEventRunnable(channel, handler ,ChannelState.CAUGHT, exception));
+        execute(executor, new ChannelEventRunnable(statistics, channel, handler ,ChannelState.CAUGHT, exception));
     }
 
 }
\ No newline at end of file
@@ -38,7 +38,7 @@ public class MessageOnlyChannelHandler extends WrappedChannelHandler {
             cexecutor = SHARED_EXECUTOR;
         }
         try {
-            cexecutor.execute(new ChannelEventRunnable(channel, handler, ChannelState.RECEIVED, message));
+            execute(cexecutor, new ChannelEventRunnable(statistics, channel, handler, ChannelState.RECEIVED, message));
         } catch (Throwable t) {
             throw new ExecutionException(message, channel, getClass() + " error when process received event .", t);
         }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.transport.dispatcher.striped;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.remoting.Arguments;
+import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.remoting.ChannelHandler;
+import com.alibaba.dubbo.remoting.Decodeable;
+import com.alibaba.dubbo.remoting.ExecutionException;
+import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.remoting.exchange.Request;
+import com.alibaba.dubbo.remoting.transport.dispatcher.ChannelEventRunnable;
+import com.alibaba.dubbo.remoting.transport.dispatcher.ChannelEventRunnable.ChannelState;
+import com.alibaba.dubbo.remoting.transport.dispatcher.WrappedChannelHandler;
+
+/**
+ * Dispatches the events to a {@link StripedExecutor}. The connect, disconnect and caught events
+ * of a channel are always run in order, the requests are run in order per channel with
+ * <code>order=connection</code>, per the argument at <code>order.argument</code> with
+ * <code>order=argument</code>, and in any order by default.
+ */
+public class StripedChannelHandler extends WrappedChannelHandler {
+
+    private final String order;
+
+    private final int    argument;
+
+    public StripedChannelHandler(ChannelHandler handler, URL url) {
+        super(handler, url, newExecutor(url));
+        order = url.getParameter(Constants.ORDER_KEY, "");
+        argument = url.getParameter(Constants.ORDER_ARGUMENT_KEY, 0);
+    }
+
+    private static ExecutorService newExecutor(URL url) {
+        String name = url.getParameter(Constants.THREAD_NAME_KEY, Constants.DEFAULT_THREAD_NAME);
+        int threads = url.getPositiveParameter(Constants.THREADS_KEY, Constants.DEFAULT_THREADS);
+        int queues = url.getParameter(Constants.QUEUES_KEY, Constants.DEFAULT_QUEUES);
+        int stripes = url.getPositiveParameter(Constants.STRIPES_KEY, threads);
+        return new StripedExecutor(name, threads, stripes, queues < 0 ? Integer.MAX_VALUE : threads + queues, url);
+    }
+
+    public void connected(Channel channel) throws RemotingException {
+        try {
+            execute(channel, new ChannelEventRunnable(statistics, channel, handler, ChannelState.CONNECTED));
+        } catch (Throwable t) {
+            throw new ExecutionException("connect event", channel, getClass() + " error when process connected event .", t);
+        }
+    }
+
+    public void disconnected(Channel channel) throws RemotingException {
+        try {
+            execute(channel, new ChannelEventRunnable(statistics, channel, handler, ChannelState.DISCONNECTED));
+        } catch (Throwable t) {
+            throw new ExecutionException("disconnect event", channel, getClass() + " error when process disconnected event .", t);
+        }
+    }
+
+    public void received(Channel channel, Object message) throws RemotingException {
+        try {
+            execute(getOrderKey(channel, message), new ChannelEventRunnable(statistics, channel, handler, ChannelState.RECEIVED, message));
+        } catch (Throwable t) {
+            throw new ExecutionException(message, channel, getClass() + " error when process received event .", t);
+        }
+    }
+
+    public void caught(Channel channel, Throwable exception) throws RemotingException {
+        try {
+            execute(channel, new ChannelEventRunnable(statistics, channel, handler, ChannelState.CAUGHT, exception));
+        } catch (Throwable t) {
+            throw new ExecutionException("caught event", channel, getClass() + " error when process caught event .", t);
+        }
+    }
+
+    private void execute(Object key, ChannelEventRunnable task) {
+        if (executor.isShutdown()) {
+            execute(SHARED_EXECUTOR, task);
+            return;
+        }
+        try {
+            ((StripedExecutor) executor).execute(key, task);
+        } catch (RejectedExecutionException e) {
+            task.discard();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the key the message is ordered by, null if not ordered
+     */
+    private Object getOrderKey(Channel channel, Object message) throws Exception {
+        if (Constants.ORDER_CONNECTION.equals(order)) {
+            return channel;
+        }
+        if (Constants.ORDER_ARGUMENT.equals(order)) {
+            Object data = message instanceof Request ? ((Request) message).getData() : null;
+            // the arguments are needed before dispatching, decode in the io thread
+            if (data instanceof Decodeable) {
+                ((Decodeable) data).decode();
+            }
+            if (data instanceof Arguments) {
+                Object[] args = ((Arguments) data).getArguments();
+                if (args != null && argument >= 0 && argument < args.length && args[argument] != null) {
+                    return args[argument];
+                }
+            }
+            return channel;
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.transport.dispatcher.striped;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.threadpool.support.AbortPolicyWithReport;
+
+/**
+ * An executor over a work stealing {@link ForkJoinPool}, every worker takes the tasks from its
+ * own queue and steals from the others when idle, so no single queue is shared by the workers.
+ * <p>
+ * The tasks of the same key are queued in one of the <code>stripes</code> and run one by one.
+ * A stripe is run as a single task of the pool, at most {@link #BATCH} tasks at a time, so the
+ * ordered keys neither lock each other nor hold a worker.
+ * </p>
+ * 
+ * @see java.util.concurrent.ForkJoinPool
+ */
+public class StripedExecutor extends AbstractExecutorService {
+
+    private static final Logger         logger  = LoggerFactory.getLogger(StripedExecutor.class);
+
+    private static final int            BATCH   = 16;
+
+    private final ForkJoinPool          pool;
+
+    private final Stripe[]              stripes;
+
+    private final int                   capacity;
+
+    private final AtomicInteger         pending = new AtomicInteger();
+
+    private final String                name;
+
+    private final AbortPolicyWithReport handler;
+
+    public StripedExecutor(String name, int threads, int stripes, int capacity, URL url) {
+        this.name = name;
+        this.handler = new AbortPolicyWithReport(name, url);
+        this.capacity = capacity;
+        this.pool = new ForkJoinPool(threads, new WorkerThreadFactory(name), null, true);
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i ++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * run the task in any order.
+     */
+    public void execute(Runnable task) {
+        acquire(task);
+        try {
+            pool.execute(new Task(task));
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * run the task after the tasks of the same key executed before, in any order if the key is null.
+     */
+    public void execute(Object key, Runnable task) {
+        if (key == null) {
+            execute(task);
+            return;
+        }
+        acquire(task);
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        stripes[(h & Integer.MAX_VALUE) % stripes.length].add(task);
+    }
+
+    private void acquire(Runnable task) {
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            handler.rejectedExecution(task, String.format("Pool Size: %d (active: %d, running: %d), Task: %d (queued: %d, stolen: %d),"
+                    + " Executor status:(isShutdown:%s, isTerminated:%s)",
+                    pool.getPoolSize(), pool.getActiveThreadCount(), pool.getRunningThreadCount(), capacity,
+                    pool.getQueuedTaskCount() + pool.getQueuedSubmissionCount(), pool.getStealCount(),
+                    pool.isShutdown(), pool.isTerminated()));
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            logger.warn("Failed to run task in " + name + ", cause: " + t.getMessage(), t);
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return the tasks submitted but not finished yet
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public int getActiveCount() {
+        return pool.getActiveThreadCount();
+    }
+
+    public int getPoolSize() {
+        return pool.getPoolSize();
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public long getStealCount() {
+        return pool.getStealCount();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = new ArrayList<Runnable>(pool.shutdownNow());
+        for (Stripe stripe : stripes) {
+            for (Runnable task = stripe.tasks.poll(); task != null; task = stripe.tasks.poll()) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    public boolean isShutdown() {
+        return pool.isShutdown();
+    }
+
+    public boolean isTerminated() {
+        return pool.isTerminated();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    private final class Task implements Runnable {
+
+        private final Runnable task;
+
+        Task(Runnable task) {
+            this.task = task;
+        }
+
+        public void run() {
+            StripedExecutor.this.run(task);
+        }
+    }
+
+    private final class Stripe implements Runnable {
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+        // the tasks queued, the stripe is submitted to the pool when it gets the first one
+        private final AtomicInteger   size  = new AtomicInteger();
+
+        void add(Runnable task) {
+            tasks.offer(task);
+            if (size.getAndIncrement() == 0) {
+                try {
+                    pool.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // shut down, take the task back
+                    tasks.remove(task);
+                    pending.decrementAndGet();
+                    if (size.decrementAndGet() > 0) {
+                        // the tasks accepted meanwhile wait for this stripe to be scheduled, run them here
+                        run();
+                    }
+                    throw e;
+                }
+            }
+        }
+
+        public void run() {
+            int batch = BATCH;
+            do {
+                StripedExecutor.this.run(tasks.poll());
+                if (size.decrementAndGet() == 0) {
+                    return;
+                }
+            } while (-- batch > 0 || pool.isShutdown());
+            // leave the worker to the other stripes
+            try {
+                pool.execute(this);
+            } catch (RejectedExecutionException e) {
+                run();
+            }
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+        private final AtomicInteger threadNum = new AtomicInteger(1);
+
+        private final String        prefix;
+
+        WorkerThreadFactory(String name) {
+            this.prefix = name + "-striped-thread-";
+        }
+
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {
+            };
+            thread.setName(prefix + threadNum.getAndIncrement());
+            return thread;
+        }
+    }
+
+}
@@ -46,12 +46,16 @@ final class NettyChannel extends AbstractChannel {
 
     private final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
 
+    // null unless write.coalesce=true
+    private final NettyWriteQueue writeQueue;
+
     private NettyChannel(org.jboss.netty.channel.Channel channel, URL url, ChannelHandler handler){
         super(url, handler);
         if (channel == null) {
             throw new IllegalArgumentException("netty channel == null;");
         }
         this.channel = channel;
+        this.writeQueue = NettyWriteQueue.create(this, channel, url);
     }
 
     static NettyChannel getOrAddChannel(org.jboss.netty.channel.Channel ch, URL url, ChannelHandler handler) {
@@ -95,14 +99,16 @@ final class NettyChannel extends AbstractChannel {
         boolean success = true;
         int timeout = 0;
         try {
-            ChannelFuture future = channel.write(message);
-            if (sent) {
-                timeout = getUrl().getPositiveParameter(Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
-                success = future.await(timeout);
-            }
-            Throwable cause = future.getCause();
-            if (cause != null) {
-                throw cause;
+            ChannelFuture future = writeQueue == null ? channel.write(message) : writeQueue.write(message, sent);
+            if (future != null) {
+                if (sent) {
+                    timeout = getUrl().getPositiveParameter(Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
+                    success = future.await(timeout);
+                }
+                Throwable cause = future.getCause();
+                if (cause != null) {
+                    throw cause;
+                }
             }
         } catch (Throwable e) {
             throw new RemotingException(this, "Failed to send message " + message + " to " + getRemoteAddress() + ", cause: " + e.getMessage(), e);
@@ -15,7 +15,6 @@
  */
 package com.alibaba.dubbo.remoting.transport.netty;
 
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import org.jboss.netty.bootstrap.ClientBootstrap;
@@ -25,18 +24,17 @@ import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelPipelineFactory;
 import org.jboss.netty.channel.Channels;
-import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
 
 import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.common.Version;
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
-import com.alibaba.dubbo.common.utils.NamedThreadFactory;
 import com.alibaba.dubbo.common.utils.NetUtils;
 import com.alibaba.dubbo.remoting.ChannelHandler;
 import com.alibaba.dubbo.remoting.RemotingException;
 import com.alibaba.dubbo.remoting.transport.AbstractClient;
+import com.alibaba.dubbo.remoting.transport.IoReactors;
 
 /**
  * NettyClient.
@@ -48,11 +46,10 @@ public class NettyClient extends AbstractClient {
     
     private static final Logger logger = LoggerFactory.getLogger(NettyClient.class);
 
-    // 因ChannelFactory的关闭有DirectMemory泄露，采用静态化规避
+    // 因ChannelFactory的关闭有DirectMemory泄露，采用共享规避，见NettyHelper.CLIENT_REACTOR
     // https://issues.jboss.org/browse/NETTY-424
-    private static final ChannelFactory channelFactory = new NioClientSocketChannelFactory(Executors.newCachedThreadPool(new NamedThreadFactory("NettyClientBoss", true)), 
-                                                                                           Executors.newCachedThreadPool(new NamedThreadFactory("NettyClientWorker", true)), 
-                                                                                           Constants.DEFAULT_IO_THREADS);
+    private ChannelFactory channelFactory;
+
     private ClientBootstrap bootstrap;
 
     private volatile Channel channel; // volatile, please copy reference to use
@@ -64,6 +61,9 @@ public class NettyClient extends AbstractClient {
     @Override
     protected void doOpen() throws Throwable {
         NettyHelper.setNettyLoggerFactory();
+        channelFactory = IoReactors.acquire("NettyClientWorker",
+                                            getUrl().getPositiveParameter(Constants.IO_THREADS_KEY, Constants.DEFAULT_IO_THREADS),
+                                            NettyHelper.CLIENT_REACTOR);
         bootstrap = new ClientBootstrap(channelFactory);
         // config
         // @see org.jboss.netty.channel.socket.SocketChannelConfig
@@ -147,6 +147,9 @@ public class NettyClient extends AbstractClient {
     
     @Override
     protected void doClose() throws Throwable {
+        if (channelFactory != null) {
+            IoReactors.release(channelFactory);
+        }
         /*try {
             bootstrap.releaseExternalResources();
         } catch (Throwable t) {
@@ -16,13 +16,18 @@
 package com.alibaba.dubbo.remoting.transport.netty;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.jboss.netty.buffer.BigEndianHeapChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffer;
-import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
 import org.jboss.netty.channel.ChannelHandler;
 import org.jboss.netty.channel.ChannelHandler.Sharable;
 import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
 import org.jboss.netty.channel.Channels;
 import org.jboss.netty.channel.ExceptionEvent;
 import org.jboss.netty.channel.MessageEvent;
@@ -33,6 +38,9 @@ import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.remoting.Codec2;
 import com.alibaba.dubbo.remoting.buffer.DynamicChannelBuffer;
+import com.alibaba.dubbo.remoting.buffer.PooledChannelBufferFactory;
+import com.alibaba.dubbo.remoting.transport.IoReactors;
+import com.alibaba.dubbo.remoting.transport.PendingWrites;
 
 /**
  * NettyCodecAdapter.
@@ -70,19 +78,72 @@ final class NettyCodecAdapter {
     }
 
     @Sharable
-    private class InternalEncoder extends OneToOneEncoder {
+    class InternalEncoder extends OneToOneEncoder {
+
+        @Override
+        public void handleDownstream(ChannelHandlerContext ctx, ChannelEvent evt) throws Exception {
+            if (! (evt instanceof MessageEvent) || ((MessageEvent) evt).getMessage() instanceof ChannelBuffer) {
+                // encoded by the sending thread already, see NettyWriteQueue
+                ctx.sendDownstream(evt);
+                return;
+            }
+            MessageEvent e = (MessageEvent) evt;
+            PooledBuffer buffer = encode(e.getChannel(), e.getMessage());
+            Channels.write(ctx, e.getFuture(), buffer, e.getRemoteAddress());
+            e.getFuture().addListener(buffer);
+        }
 
         @Override
         protected Object encode(ChannelHandlerContext ctx, Channel ch, Object msg) throws Exception {
+            return msg instanceof ChannelBuffer ? msg : encode(ch, msg);
+        }
+
+        /**
+         * encode into pooled arrays, the buffer must be released once written.
+         */
+        PooledBuffer encode(Channel ch, Object msg) throws Exception {
             com.alibaba.dubbo.remoting.buffer.ChannelBuffer buffer =
-                com.alibaba.dubbo.remoting.buffer.ChannelBuffers.dynamicBuffer(1024);
+                com.alibaba.dubbo.remoting.buffer.ChannelBuffers.dynamicBuffer(1024, PooledChannelBufferFactory.getInstance());
             NettyChannel channel = NettyChannel.getOrAddChannel(ch, url, handler);
             try {
             	codec.encode(channel, buffer, msg);
+            } catch (Throwable t) {
+                PooledChannelBufferFactory.getInstance().release(buffer);
+                throw t;
             } finally {
                 NettyChannel.removeChannelIfDisconnected(ch);
             }
-            return ChannelBuffers.wrappedBuffer(buffer.toByteBuffer());
+            return new PooledBuffer(buffer.array(), buffer.readerIndex(), buffer.writerIndex(),
+                                    PendingWrites.getCounter(channel));
+        }
+    }
+
+    /**
+     * Netty buffer of an array of the {@link PooledChannelBufferFactory}, returned to the pool
+     * when the write is complete. The bytes are counted in the {@link PendingWrites} of the
+     * channel meanwhile.
+     */
+    static final class PooledBuffer extends BigEndianHeapChannelBuffer implements ChannelFutureListener {
+
+        private final AtomicLong pending;
+
+        private final int length;
+
+        PooledBuffer(byte[] array, int readerIndex, int writerIndex, AtomicLong pending) {
+            super(array);
+            setIndex(readerIndex, writerIndex);
+            this.pending = pending;
+            this.length = writerIndex - readerIndex;
+            pending.addAndGet(length);
+        }
+
+        public void operationComplete(ChannelFuture future) {
+            release();
+        }
+
+        void release() {
+            pending.addAndGet(- length);
+            PooledChannelBufferFactory.getInstance().release(array);
         }
     }
 
@@ -91,6 +152,19 @@ final class NettyCodecAdapter {
         private com.alibaba.dubbo.remoting.buffer.ChannelBuffer buffer =
             com.alibaba.dubbo.remoting.buffer.ChannelBuffers.EMPTY_BUFFER;
 
+        // the worker of the channel, known on the first read: netty 3.2 fires the connected event
+        // of the accepted channels in the boss thread
+        private volatile IoReactors.Loop loop;
+
+        @Override
+        public void channelDisconnected(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+            if (loop != null) {
+                loop.disconnected();
+                loop = null;
+            }
+            super.channelDisconnected(ctx, e);
+        }
+
         @Override
         public void messageReceived(ChannelHandlerContext ctx, MessageEvent event) throws Exception {
             Object o = event.getMessage();
@@ -104,6 +178,12 @@ final class NettyCodecAdapter {
             if (readable <= 0) {
                 return;
             }
+            IoReactors.Loop l = loop;
+            if (l == null) {
+                loop = l = IoReactors.currentLoop();
+                l.connected();
+            }
+            l.read(readable);
 
             com.alibaba.dubbo.remoting.buffer.ChannelBuffer message;
             if (buffer.readable()) {
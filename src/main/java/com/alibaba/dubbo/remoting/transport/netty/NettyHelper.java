@@ -15,18 +15,60 @@
  */
 package com.alibaba.dubbo.remoting.transport.netty;
 
+import java.util.concurrent.Executors;
+
+import org.jboss.netty.channel.ChannelFactory;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
 import org.jboss.netty.logging.AbstractInternalLogger;
 import org.jboss.netty.logging.InternalLogger;
 import org.jboss.netty.logging.InternalLoggerFactory;
 
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.utils.NamedThreadFactory;
+import com.alibaba.dubbo.remoting.transport.IoReactors;
 
 /**
  * @author <a href="mailto:gang.lvg@taobao.com">kimi</a>
  */
 final class NettyHelper {
 
+    /**
+     * The servers of the same <code>iothreads</code> share the channel factory, every bound port
+     * has its boss thread and the accepted channels are spread on the shared workers.
+     */
+    static final IoReactors.ReactorFactory<ChannelFactory> SERVER_REACTOR = new IoReactors.ReactorFactory<ChannelFactory>() {
+
+        public ChannelFactory create(String name, int threads) {
+            return new NioServerSocketChannelFactory(Executors.newCachedThreadPool(new NamedThreadFactory("NettyServerBoss", true)),
+                                                     Executors.newCachedThreadPool(new NamedThreadFactory(name, true)),
+                                                     threads);
+        }
+
+        public boolean destroy(ChannelFactory channelFactory) {
+            channelFactory.releaseExternalResources();
+            return true;
+        }
+    };
+
+    /**
+     * The client channel factories are never released, because of the DirectMemory leak on closing
+     * a ChannelFactory, https://issues.jboss.org/browse/NETTY-424
+     */
+    static final IoReactors.ReactorFactory<ChannelFactory> CLIENT_REACTOR = new IoReactors.ReactorFactory<ChannelFactory>() {
+
+        public ChannelFactory create(String name, int threads) {
+            return new NioClientSocketChannelFactory(Executors.newCachedThreadPool(new NamedThreadFactory("NettyClientBoss", true)),
+                                                     Executors.newCachedThreadPool(new NamedThreadFactory(name, true)),
+                                                     threads);
+        }
+
+        public boolean destroy(ChannelFactory channelFactory) {
+            return false;
+        }
+    };
+
     public static void setNettyLoggerFactory() {
         InternalLoggerFactory factory = InternalLoggerFactory.getDefaultFactory();
         if (factory == null || !(factory instanceof DubboLoggerFactory)) {
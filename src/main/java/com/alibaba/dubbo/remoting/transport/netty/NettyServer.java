@@ -19,28 +19,25 @@ import java.net.InetSocketAddress;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.jboss.netty.bootstrap.ServerBootstrap;
 import org.jboss.netty.channel.ChannelFactory;
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelPipelineFactory;
 import org.jboss.netty.channel.Channels;
-import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
 
 import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
 import com.alibaba.dubbo.common.utils.ExecutorUtil;
-import com.alibaba.dubbo.common.utils.NamedThreadFactory;
 import com.alibaba.dubbo.common.utils.NetUtils;
 import com.alibaba.dubbo.remoting.Channel;
 import com.alibaba.dubbo.remoting.ChannelHandler;
 import com.alibaba.dubbo.remoting.RemotingException;
 import com.alibaba.dubbo.remoting.Server;
 import com.alibaba.dubbo.remoting.transport.AbstractServer;
+import com.alibaba.dubbo.remoting.transport.IoReactors;
 import com.alibaba.dubbo.remoting.transport.dispatcher.ChannelHandlers;
 
 /**
@@ -55,6 +52,8 @@ public class NettyServer extends AbstractServer implements Server {
 
     private Map<String, Channel>  channels; // <ip:port, channel>
 
+    private ChannelFactory                  channelFactory;
+
     private ServerBootstrap                 bootstrap;
 
     private org.jboss.netty.channel.Channel channel;
@@ -66,9 +65,9 @@ public class NettyServer extends AbstractServer implements Server {
     @Override
     protected void doOpen() throws Throwable {
         NettyHelper.setNettyLoggerFactory();
-        ExecutorService boss = Executors.newCachedThreadPool(new NamedThreadFactory("NettyServerBoss", true));
-        ExecutorService worker = Executors.newCachedThreadPool(new NamedThreadFactory("NettyServerWorker", true));
-        ChannelFactory channelFactory = new NioServerSocketChannelFactory(boss, worker, getUrl().getPositiveParameter(Constants.IO_THREADS_KEY, Constants.DEFAULT_IO_THREADS));
+        channelFactory = IoReactors.acquire("NettyServerWorker",
+                                            getUrl().getPositiveParameter(Constants.IO_THREADS_KEY, Constants.DEFAULT_IO_THREADS),
+                                            NettyHelper.SERVER_REACTOR);
         bootstrap = new ServerBootstrap(channelFactory);
         
         final NettyHandler nettyHandler = new NettyHandler(getUrl(), this);
@@ -119,9 +118,9 @@ public class NettyServer extends AbstractServer implements Server {
             logger.warn(e.getMessage(), e);
         }
         try {
-            if (bootstrap != null) { 
-                // release external resource.
-                bootstrap.releaseExternalResources();
+            if (channelFactory != null) {
+                // release the shared workers, do not release the external resources of the bootstrap.
+                IoReactors.release(channelFactory);
             }
         } catch (Throwable e) {
             logger.warn(e.getMessage(), e);
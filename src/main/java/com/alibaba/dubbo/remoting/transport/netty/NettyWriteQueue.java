@@ -0,0 +1,258 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.transport.netty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.Channels;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+
+/**
+ * Coalesces the messages sent to a channel by concurrent threads into batched writes,
+ * enabled by <code>write.coalesce=true</code>.
+ * <p>
+ * The sending thread encodes its message and queues the bytes. The thread which finds no flush in
+ * progress becomes the flusher and writes everything queued, as one composite buffer per
+ * <code>write.coalesce.messages</code> messages or <code>write.coalesce.bytes</code> bytes, until the
+ * queue is empty. The other threads return at once, or wait for the write of their batch when
+ * <code>sent=true</code>. A lone sender writes at once, so no latency is added without contention.
+ * The handler of the channel is told each message sent once its batch is written.
+ * </p>
+ *
+ * @see com.alibaba.dubbo.remoting.transport.netty.status.WriteBatchStatusChecker
+ */
+public final class NettyWriteQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(NettyWriteQueue.class);
+
+    // batch sizes: 1, 2-3, 4-7, 8-15, 16-31, 32-63, 64+
+    private static final int HISTOGRAM_SIZE = 7;
+
+    private static final AtomicLong WRITES = new AtomicLong();
+
+    private static final AtomicLong MESSAGES = new AtomicLong();
+
+    private static final AtomicLong BYTES = new AtomicLong();
+
+    private static final AtomicLong MAX_BATCH = new AtomicLong();
+
+    private static final AtomicLongArray HISTOGRAM = new AtomicLongArray(HISTOGRAM_SIZE);
+
+    private final Channel channel;
+
+    private final NettyChannel nettyChannel;
+
+    private final NettyCodecAdapter.InternalEncoder encoder;
+
+    private final int maxMessages;
+
+    private final int maxBytes;
+
+    private final Queue<QueuedWrite> queue = new ConcurrentLinkedQueue<QueuedWrite>();
+
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    NettyWriteQueue(NettyChannel nettyChannel, Channel channel, NettyCodecAdapter.InternalEncoder encoder, URL url) {
+        this.nettyChannel = nettyChannel;
+        this.channel = channel;
+        this.encoder = encoder;
+        this.maxMessages = url.getPositiveParameter(Constants.WRITE_COALESCE_MESSAGES_KEY, Constants.DEFAULT_WRITE_COALESCE_MESSAGES);
+        this.maxBytes = url.getPositiveParameter(Constants.WRITE_COALESCE_BYTES_KEY, Constants.DEFAULT_WRITE_COALESCE_BYTES);
+    }
+
+    /**
+     * @return the write queue of the channel, or null if it is not enabled by the url or the pipeline has no dubbo encoder.
+     */
+    static NettyWriteQueue create(NettyChannel nettyChannel, Channel channel, URL url) {
+        if (url == null || ! url.getParameter(Constants.WRITE_COALESCE_KEY, false)) {
+            return null;
+        }
+        org.jboss.netty.channel.ChannelHandler encoder = channel.getPipeline().get("encoder");
+        if (! (encoder instanceof NettyCodecAdapter.InternalEncoder)) {
+            return null;
+        }
+        return new NettyWriteQueue(nettyChannel, channel, (NettyCodecAdapter.InternalEncoder) encoder, url);
+    }
+
+    /**
+     * encode and queue the message.
+     *
+     * @return future of the write if sent, null otherwise.
+     */
+    ChannelFuture write(Object message, boolean sent) throws Exception {
+        NettyCodecAdapter.PooledBuffer buffer = encoder.encode(channel, message);
+        ChannelFuture future = sent ? Channels.future(channel) : null;
+        queue.add(new QueuedWrite(buffer, message, future));
+        flush();
+        return future;
+    }
+
+    private void flush() {
+        // recheck, the flusher may have seen an empty queue before the message was added
+        while (! queue.isEmpty() && flushing.compareAndSet(false, true)) {
+            try {
+                QueuedWrite first;
+                while ((first = queue.poll()) != null) {
+                    writeBatch(first);
+                }
+            } finally {
+                flushing.set(false);
+            }
+        }
+    }
+
+    private void writeBatch(QueuedWrite first) {
+        List<QueuedWrite> writes = new ArrayList<QueuedWrite>();
+        int bytes = 0;
+        QueuedWrite next = first;
+        do {
+            writes.add(next);
+            bytes += next.buffer.readableBytes();
+        } while (writes.size() < maxMessages && bytes < maxBytes && (next = queue.poll()) != null);
+
+        ChannelBuffer batch;
+        if (writes.size() == 1) {
+            batch = first.buffer;
+        } else {
+            ChannelBuffer[] buffers = new ChannelBuffer[writes.size()];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = writes.get(i).buffer;
+            }
+            batch = ChannelBuffers.wrappedBuffer(buffers);
+        }
+        record(writes.size(), bytes);
+        channel.write(batch).addListener(new BatchListener(nettyChannel, writes));
+    }
+
+    private static void record(int messages, int bytes) {
+        WRITES.incrementAndGet();
+        MESSAGES.addAndGet(messages);
+        BYTES.addAndGet(bytes);
+        HISTOGRAM.incrementAndGet(Math.min(31 - Integer.numberOfLeadingZeros(messages), HISTOGRAM_SIZE - 1));
+        long max;
+        while (messages > (max = MAX_BATCH.get())) {
+            if (MAX_BATCH.compareAndSet(max, messages)) {
+                break;
+            }
+        }
+    }
+
+    public static long getWrites() {
+        return WRITES.get();
+    }
+
+    public static long getMessages() {
+        return MESSAGES.get();
+    }
+
+    public static long getBytes() {
+        return BYTES.get();
+    }
+
+    public static long getMaxBatch() {
+        return MAX_BATCH.get();
+    }
+
+    /**
+     * @return count of the writes by batch size: 1, 2-3, 4-7, 8-15, 16-31, 32-63, 64+ messages.
+     */
+    public static long[] getHistogram() {
+        long[] result = new long[HISTOGRAM_SIZE];
+        for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+            result[i] = HISTOGRAM.get(i);
+        }
+        return result;
+    }
+
+    private static final class QueuedWrite {
+
+        // released once written
+        private final NettyCodecAdapter.PooledBuffer buffer;
+
+        private final Object message;
+
+        // null unless sent=true
+        private final ChannelFuture future;
+
+        QueuedWrite(NettyCodecAdapter.PooledBuffer buffer, Object message, ChannelFuture future) {
+            this.buffer = buffer;
+            this.message = message;
+            this.future = future;
+        }
+    }
+
+    private static final class BatchListener implements ChannelFutureListener {
+
+        private final NettyChannel channel;
+
+        private final List<QueuedWrite> writes;
+
+        BatchListener(NettyChannel channel, List<QueuedWrite> writes) {
+            this.channel = channel;
+            this.writes = writes;
+        }
+
+        public void operationComplete(ChannelFuture future) throws Exception {
+            for (QueuedWrite write : writes) {
+                write.buffer.release();
+            }
+            if (! future.isSuccess()) {
+                logger.warn("Failed to write " + writes.size() + " coalesced messages to " + future.getChannel()
+                        + ", cause: " + future.getCause(), future.getCause());
+            }
+            for (QueuedWrite write : writes) {
+                if (future.isSuccess()) {
+                    sent(write.message);
+                }
+                ChannelFuture f = write.future;
+                if (f == null) {
+                    continue;
+                }
+                if (future.isSuccess()) {
+                    f.setSuccess();
+                } else if (future.getCause() != null) {
+                    f.setFailure(future.getCause());
+                } else {
+                    f.cancel();
+                }
+            }
+        }
+
+        private void sent(Object message) {
+            try {
+                channel.getChannelHandler().sent(channel, message);
+            } catch (Throwable t) {
+                logger.warn("Failed to handle the sent message " + message + " of " + channel + ", cause: " + t.getMessage(), t);
+            }
+        }
+    }
+
+}
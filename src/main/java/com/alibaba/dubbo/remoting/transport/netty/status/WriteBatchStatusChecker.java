@@ -0,0 +1,51 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.transport.netty.status;
+
+import com.alibaba.dubbo.common.extension.Activate;
+import com.alibaba.dubbo.common.status.Status;
+import com.alibaba.dubbo.common.status.StatusChecker;
+import com.alibaba.dubbo.remoting.transport.netty.NettyWriteQueue;
+
+/**
+ * Batch sizes of the coalesced netty writes (<code>write.coalesce=true</code>).
+ */
+@Activate
+public class WriteBatchStatusChecker implements StatusChecker {
+
+    private static final String[] BATCH_SIZES = { "1", "2-3", "4-7", "8-15", "16-31", "32-63", "64+" };
+
+    public Status check() {
+        long writes = NettyWriteQueue.getWrites();
+        if (writes == 0) {
+            return new Status(Status.Level.UNKNOWN);
+        }
+        long messages = NettyWriteQueue.getMessages();
+        long[] histogram = NettyWriteQueue.getHistogram();
+        StringBuilder msg = new StringBuilder();
+        msg.append("writes:").append(writes)
+            .append(", messages:").append(messages)
+            .append(", bytes:").append(NettyWriteQueue.getBytes())
+            .append(", average batch:").append(String.format("%.2f", (double) messages / writes))
+            .append(", max batch:").append(NettyWriteQueue.getMaxBatch())
+            .append(", batches");
+        for (int i = 0; i < histogram.length && i < BATCH_SIZES.length; i++) {
+            msg.append(i == 0 ? " " : ",").append(BATCH_SIZES[i]).append(':').append(histogram[i]);
+        }
+        return new Status(Status.Level.OK, msg.toString());
+    }
+
+}
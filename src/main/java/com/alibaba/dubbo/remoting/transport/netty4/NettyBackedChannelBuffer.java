@@ -0,0 +1,333 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.transport.netty4;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import io.netty.buffer.ByteBuf;
+
+import com.alibaba.dubbo.common.utils.Assert;
+import com.alibaba.dubbo.remoting.buffer.ChannelBuffer;
+import com.alibaba.dubbo.remoting.buffer.ChannelBufferFactory;
+import com.alibaba.dubbo.remoting.buffer.ChannelBuffers;
+
+/**
+ * Dubbo view of a netty 4 <code>ByteBuf</code>, the codec reads and writes the pooled buffer
+ * of the pipeline directly.
+ * <p>
+ * The view does not own the buffer, it is released by the pipeline. The buffers returned by
+ * {@link #copy()} and {@link #readBytes(int)} are unpooled heap buffers.
+ * </p>
+ */
+public class NettyBackedChannelBuffer implements ChannelBuffer {
+
+    private final ByteBuf buffer;
+
+    public NettyBackedChannelBuffer(ByteBuf buffer) {
+        Assert.notNull(buffer, "buffer == null");
+        this.buffer = buffer;
+    }
+
+    public ByteBuf nettyByteBuf() {
+        return buffer;
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    public ChannelBuffer copy(int index, int length) {
+        byte[] data = new byte[length];
+        buffer.getBytes(index, data);
+        return ChannelBuffers.wrappedBuffer(data);
+    }
+
+    public ChannelBufferFactory factory() {
+        return NettyBackedChannelBufferFactory.getInstance();
+    }
+
+    public byte getByte(int index) {
+        return buffer.getByte(index);
+    }
+
+    public void getBytes(int index, byte[] dst, int dstIndex, int length) {
+        buffer.getBytes(index, dst, dstIndex, length);
+    }
+
+    public void getBytes(int index, ByteBuffer dst) {
+        buffer.getBytes(index, dst);
+    }
+
+    public void getBytes(int index, ChannelBuffer dst, int dstIndex, int length) {
+        if (dst instanceof NettyBackedChannelBuffer) {
+            buffer.getBytes(index, ((NettyBackedChannelBuffer) dst).buffer, dstIndex, length);
+        } else if (dst.hasArray()) {
+            buffer.getBytes(index, dst.array(), dst.arrayOffset() + dstIndex, length);
+        } else {
+            dst.setBytes(dstIndex, buffer.nioBuffer(index, length));
+        }
+    }
+
+    public void getBytes(int index, OutputStream dst, int length) throws IOException {
+        buffer.getBytes(index, dst, length);
+    }
+
+    public boolean isDirect() {
+        return buffer.isDirect();
+    }
+
+    public void setByte(int index, int value) {
+        buffer.setByte(index, value);
+    }
+
+    public void setBytes(int index, byte[] src, int srcIndex, int length) {
+        buffer.setBytes(index, src, srcIndex, length);
+    }
+
+    public void setBytes(int index, ByteBuffer src) {
+        buffer.setBytes(index, src);
+    }
+
+    public void setBytes(int index, ChannelBuffer src, int srcIndex, int length) {
+        if (src instanceof NettyBackedChannelBuffer) {
+            buffer.setBytes(index, ((NettyBackedChannelBuffer) src).buffer, srcIndex, length);
+        } else if (src.hasArray()) {
+            buffer.setBytes(index, src.array(), src.arrayOffset() + srcIndex, length);
+        } else {
+            buffer.setBytes(index, src.toByteBuffer(srcIndex, length));
+        }
+    }
+
+    public int setBytes(int index, InputStream src, int length) throws IOException {
+        return buffer.setBytes(index, src, length);
+    }
+
+    public ByteBuffer toByteBuffer(int index, int length) {
+        return buffer.nioBuffer(index, length);
+    }
+
+    public byte[] array() {
+        return buffer.array();
+    }
+
+    public boolean hasArray() {
+        return buffer.hasArray();
+    }
+
+    public int arrayOffset() {
+        return buffer.arrayOffset();
+    }
+
+    public void clear() {
+        buffer.clear();
+    }
+
+    public ChannelBuffer copy() {
+        return copy(buffer.readerIndex(), buffer.readableBytes());
+    }
+
+    public void discardReadBytes() {
+        buffer.discardReadBytes();
+    }
+
+    public void ensureWritableBytes(int writableBytes) {
+        buffer.ensureWritable(writableBytes);
+    }
+
+    public void getBytes(int index, byte[] dst) {
+        buffer.getBytes(index, dst);
+    }
+
+    public void getBytes(int index, ChannelBuffer dst) {
+        getBytes(index, dst, dst.writableBytes());
+    }
+
+    public void getBytes(int index, ChannelBuffer dst, int length) {
+        if (length > dst.writableBytes()) {
+            throw new IndexOutOfBoundsException();
+        }
+        getBytes(index, dst, dst.writerIndex(), length);
+        dst.writerIndex(dst.writerIndex() + length);
+    }
+
+    public void markReaderIndex() {
+        buffer.markReaderIndex();
+    }
+
+    public void markWriterIndex() {
+        buffer.markWriterIndex();
+    }
+
+    public boolean readable() {
+        return buffer.isReadable();
+    }
+
+    public int readableBytes() {
+        return buffer.readableBytes();
+    }
+
+    public byte readByte() {
+        return buffer.readByte();
+    }
+
+    public void readBytes(byte[] dst) {
+        buffer.readBytes(dst);
+    }
+
+    public void readBytes(byte[] dst, int dstIndex, int length) {
+        buffer.readBytes(dst, dstIndex, length);
+    }
+
+    public void readBytes(ByteBuffer dst) {
+        buffer.readBytes(dst);
+    }
+
+    public void readBytes(ChannelBuffer dst) {
+        readBytes(dst, dst.writableBytes());
+    }
+
+    public void readBytes(ChannelBuffer dst, int length) {
+        if (length > dst.writableBytes()) {
+            throw new IndexOutOfBoundsException();
+        }
+        readBytes(dst, dst.writerIndex(), length);
+        dst.writerIndex(dst.writerIndex() + length);
+    }
+
+    public void readBytes(ChannelBuffer dst, int dstIndex, int length) {
+        if (readableBytes() < length) {
+            throw new IndexOutOfBoundsException();
+        }
+        getBytes(buffer.readerIndex(), dst, dstIndex, length);
+        buffer.skipBytes(length);
+    }
+
+    public ChannelBuffer readBytes(int length) {
+        ChannelBuffer result = copy(buffer.readerIndex(), length);
+        buffer.skipBytes(length);
+        return result;
+    }
+
+    public void resetReaderIndex() {
+        buffer.resetReaderIndex();
+    }
+
+    public void resetWriterIndex() {
+        buffer.resetWriterIndex();
+    }
+
+    public int readerIndex() {
+        return buffer.readerIndex();
+    }
+
+    public void readerIndex(int readerIndex) {
+        buffer.readerIndex(readerIndex);
+    }
+
+    public void readBytes(OutputStream dst, int length) throws IOException {
+        buffer.readBytes(dst, length);
+    }
+
+    public void setBytes(int index, byte[] src) {
+        buffer.setBytes(index, src);
+    }
+
+    public void setBytes(int index, ChannelBuffer src) {
+        setBytes(index, src, src.readableBytes());
+    }
+
+    public void setBytes(int index, ChannelBuffer src, int length) {
+        if (length > src.readableBytes()) {
+            throw new IndexOutOfBoundsException();
+        }
+        setBytes(index, src, src.readerIndex(), length);
+        src.readerIndex(src.readerIndex() + length);
+    }
+
+    public void setIndex(int readerIndex, int writerIndex) {
+        buffer.setIndex(readerIndex, writerIndex);
+    }
+
+    public void skipBytes(int length) {
+        buffer.skipBytes(length);
+    }
+
+    public ByteBuffer toByteBuffer() {
+        return buffer.nioBuffer();
+    }
+
+    public boolean writable() {
+        return buffer.isWritable();
+    }
+
+    public int writableBytes() {
+        return buffer.writableBytes();
+    }
+
+    public void writeByte(int value) {
+        buffer.writeByte(value);
+    }
+
+    public void writeBytes(byte[] src) {
+        buffer.writeBytes(src);
+    }
+
+    public void writeBytes(byte[] src, int index, int length) {
+        buffer.writeBytes(src, index, length);
+    }
+
+    public void writeBytes(ByteBuffer src) {
+        buffer.writeBytes(src);
+    }
+
+    public void writeBytes(ChannelBuffer src) {
+        writeBytes(src, src.readableBytes());
+    }
+
+    public void writeBytes(ChannelBuffer src, int length) {
+        if (length > src.readableBytes()) {
+            throw new IndexOutOfBoundsException();
+        }
+        writeBytes(src, src.readerIndex(), length);
+        src.readerIndex(src.readerIndex() + length);
+    }
+
+    public void writeBytes(ChannelBuffer src, int srcIndex, int length) {
+        buffer.ensureWritable(length);
+        setBytes(buffer.writerIndex(), src, srcIndex, length);
+        buffer.writerIndex(buffer.writerIndex() + length);
+    }
+
+    public int writeBytes(InputStream src, int length) throws IOException {
+        return buffer.writeBytes(src, length);
+    }
+
+    public int writerIndex() {
+        return buffer.writerIndex();
+    }
+
+    public void writerIndex(int writerIndex) {
+        buffer.writerIndex(writerIndex);
+    }
+
+    public int compareTo(ChannelBuffer o) {
+        return ChannelBuffers.compare(this, o);
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.transport.netty4;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.remoting.Codec2;
+import com.alibaba.dubbo.remoting.buffer.ChannelBuffer;
+import com.alibaba.dubbo.remoting.transport.IoReactors;
+import com.alibaba.dubbo.remoting.transport.PendingWrites;
+
+/**
+ * NettyCodecAdapter of netty 4.
+ * <p>
+ * The codec writes into the pooled buffer allocated by the encoder and reads the cumulated
+ * buffer of the decoder through a {@link NettyBackedChannelBuffer}, no bytes are copied between
+ * netty and dubbo buffers.
+ * </p>
+ */
+final class NettyCodecAdapter {
+
+    private final ChannelHandler encoder = new InternalEncoder();
+
+    private final ChannelHandler decoder = new InternalDecoder();
+
+    private final Codec2 codec;
+
+    private final URL url;
+
+    private final com.alibaba.dubbo.remoting.ChannelHandler handler;
+
+    public NettyCodecAdapter(Codec2 codec, URL url, com.alibaba.dubbo.remoting.ChannelHandler handler) {
+        this.codec = codec;
+        this.url = url;
+        this.handler = handler;
+    }
+
+    public ChannelHandler getEncoder() {
+        return encoder;
+    }
+
+    public ChannelHandler getDecoder() {
+        return decoder;
+    }
+
+    private class InternalEncoder extends MessageToByteEncoder<Object> {
+
+        // bytes of the last encoded message, in the event loop only
+        private int encoded;
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            encoded = 0;
+            super.write(ctx, msg, promise);
+            final int length = encoded;
+            if (length > 0 && ! promise.isVoid()) {
+                // counted in the pending writes of the channel until written
+                final AtomicLong pending;
+                try {
+                    pending = PendingWrites.getCounter(NettyChannel.getOrAddChannel(ctx.channel(), url, handler));
+                } finally {
+                    NettyChannel.removeChannelIfDisconnected(ctx.channel());
+                }
+                pending.addAndGet(length);
+                promise.addListener(new ChannelFutureListener() {
+                    public void operationComplete(ChannelFuture future) {
+                        pending.addAndGet(- length);
+                    }
+                });
+            }
+        }
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) throws Exception {
+            ChannelBuffer buffer = new NettyBackedChannelBuffer(out);
+            io.netty.channel.Channel ch = ctx.channel();
+            NettyChannel channel = NettyChannel.getOrAddChannel(ch, url, handler);
+            int start = out.writerIndex();
+            try {
+                codec.encode(channel, buffer, msg);
+                encoded = out.writerIndex() - start;
+            } finally {
+                NettyChannel.removeChannelIfDisconnected(ch);
+            }
+        }
+    }
+
+    private class InternalDecoder extends ByteToMessageDecoder {
+
+        private IoReactors.Loop loop;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            loop = IoReactors.currentLoop();
+            loop.connected();
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            if (loop != null) {
+                loop.disconnected();
+                loop = null;
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (loop != null && msg instanceof ByteBuf) {
+                loop.read(((ByteBuf) msg).readableBytes());
+            }
+            super.channelRead(ctx, msg);
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf input, List<Object> out) throws Exception {
+            ChannelBuffer message = new NettyBackedChannelBuffer(input);
+            NettyChannel channel = NettyChannel.getOrAddChannel(ctx.channel(), url, handler);
+            Object msg;
+            int saveReaderIndex;
+
+            try {
+                // decode object.
+                do {
+                    saveReaderIndex = message.readerIndex();
+                    try {
+                        msg = codec.decode(channel, message);
+                    } catch (IOException e) {
+                        // drop the cumulated bytes, as the netty 3 decoder does
+                        input.skipBytes(input.readableBytes());
+                        throw e;
+                    }
+                    if (msg == Codec2.DecodeResult.NEED_MORE_INPUT) {
+                        message.readerIndex(saveReaderIndex);
+                        break;
+                    }
+                    if (saveReaderIndex == message.readerIndex()) {
+                        input.skipBytes(input.readableBytes());
+                        throw new IOException("Decode without read data.");
+                    }
+                    if (msg != null) {
+                        out.add(msg);
+                    }
+                } while (message.readable());
+            } finally {
+                NettyChannel.removeChannelIfDisconnected(ctx.channel());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.transport.netty4;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.utils.NamedThreadFactory;
+import com.alibaba.dubbo.remoting.transport.IoReactors;
+
+/**
+ * Event loops of the native epoll transport on linux, nio elsewhere or if the native library
+ * can not be loaded.
+ */
+final class NettyHelper {
+
+    private static final Logger logger = LoggerFactory.getLogger(NettyHelper.class);
+
+    private static final boolean EPOLL = isEpollAvailable();
+
+    /**
+     * The servers of the same <code>iothreads</code> share the event loops, the groups are shut
+     * down with the last server.
+     */
+    static final IoReactors.ReactorFactory<EventLoopGroup> SERVER_REACTOR = new IoReactors.ReactorFactory<EventLoopGroup>() {
+
+        public EventLoopGroup create(String name, int threads) {
+            // the loops of the groups of the same name are known by the thread names
+            return eventLoopGroup(threads, name + "-" + threads);
+        }
+
+        public boolean destroy(EventLoopGroup group) {
+            group.shutdownGracefully();
+            return true;
+        }
+    };
+
+    /**
+     * The clients of the same <code>iothreads</code> share the event loops, the groups are kept
+     * for the next clients.
+     */
+    static final IoReactors.ReactorFactory<EventLoopGroup> CLIENT_REACTOR = new IoReactors.ReactorFactory<EventLoopGroup>() {
+
+        public EventLoopGroup create(String name, int threads) {
+            // the loops of the groups of the same name are known by the thread names
+            return eventLoopGroup(threads, name + "-" + threads);
+        }
+
+        public boolean destroy(EventLoopGroup group) {
+            return false;
+        }
+    };
+
+    private NettyHelper() {
+    }
+
+    static EventLoopGroup eventLoopGroup(int threads, String threadName) {
+        NamedThreadFactory threadFactory = new NamedThreadFactory(threadName, true);
+        return EPOLL ? new EpollEventLoopGroup(threads, threadFactory) : new NioEventLoopGroup(threads, threadFactory);
+    }
+
+    static Class<? extends ServerChannel> serverSocketChannelClass(EventLoopGroup group) {
+        return group instanceof EpollEventLoopGroup ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    static Class<? extends SocketChannel> socketChannelClass(EventLoopGroup group) {
+        return group instanceof EpollEventLoopGroup ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    private static boolean isEpollAvailable() {
+        try {
+            if (Epoll.isAvailable()) {
+                return true;
+            }
+            if (logger.isInfoEnabled()) {
+                logger.info("Use netty nio transport, epoll is unavailable: " + Epoll.unavailabilityCause());
+            }
+        } catch (Throwable t) {
+            // no epoll classes
+            if (logger.isInfoEnabled()) {
+                logger.info("Use netty nio transport, epoll is unavailable: " + t);
+            }
+        }
+        return false;
+    }
+
+}
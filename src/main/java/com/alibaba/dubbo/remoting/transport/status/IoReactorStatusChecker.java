@@ -0,0 +1,58 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.transport.status;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.alibaba.dubbo.common.extension.Activate;
+import com.alibaba.dubbo.common.status.Status;
+import com.alibaba.dubbo.common.status.StatusChecker;
+import com.alibaba.dubbo.remoting.transport.IoReactors;
+
+/**
+ * The shared IO reactors and the load of every IO thread: channels, reads and bytes read.
+ */
+@Activate
+public class IoReactorStatusChecker implements StatusChecker {
+
+    public Status check() {
+        List<IoReactors.Reactor> reactors = IoReactors.getReactors();
+        if (reactors.isEmpty()) {
+            return new Status(Status.Level.UNKNOWN);
+        }
+        StringBuilder msg = new StringBuilder();
+        for (IoReactors.Reactor reactor : reactors) {
+            if (msg.length() > 0) {
+                msg.append(", ");
+            }
+            msg.append(reactor.getName())
+                .append("(threads:").append(reactor.getThreads())
+                .append(", references:").append(reactor.getReferences())
+                .append(")");
+        }
+        Collection<IoReactors.Loop> loops = IoReactors.getLoops();
+        for (IoReactors.Loop loop : loops) {
+            msg.append(", ").append(loop.getName())
+                .append("(channels:").append(loop.getChannels())
+                .append(", reads:").append(loop.getReads())
+                .append(", bytes:").append(loop.getBytes())
+                .append(")");
+        }
+        return new Status(Status.Level.OK, msg.toString());
+    }
+
+}
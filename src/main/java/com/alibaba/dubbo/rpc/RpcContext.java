@@ -86,6 +86,8 @@ public class RpcContext {
 
 	private InetSocketAddress remoteAddress;
 
+    private long deadline;
+
     private final Map<String, String> attachments = new HashMap<String, String>();
 
     private final Map<String, Object> values = new HashMap<String, Object>();
@@ -170,6 +172,35 @@ public class RpcContext {
         this.future = future;
     }
 
+    /**
+     * get deadline of the call being served, the calls made meanwhile wait no longer.
+     * 
+     * @return System.nanoTime() the consumer stops waiting at, 0 if unknown
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * set deadline.
+     * 
+     * @param deadline System.nanoTime() the consumer stops waiting at, 0 if unknown
+     * @return context
+     */
+    public RpcContext setDeadline(long deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * get the milliseconds left before the deadline of the call being served.
+     * 
+     * @return remaining milliseconds, negative if expired, Long.MAX_VALUE if no deadline
+     */
+    public long getRemainingTimeout() {
+        return deadline == 0 ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+
     public List<URL> getUrls() {
         return urls == null && url != null ? (List<URL>) Arrays.asList(url) : urls;
     }
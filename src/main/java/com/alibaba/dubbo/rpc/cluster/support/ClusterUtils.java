@@ -54,6 +54,9 @@ public class ClusterUtils {
 
             map.remove(Constants.ALIVE_KEY);
             map.remove(Constants.DEFAULT_KEY_PREFIX + Constants.ALIVE_KEY);
+
+            map.remove(Constants.IO_THREADS_KEY);
+            map.remove(Constants.DEFAULT_KEY_PREFIX + Constants.IO_THREADS_KEY);
         }
         
         if (localMap != null && localMap.size() > 0) {
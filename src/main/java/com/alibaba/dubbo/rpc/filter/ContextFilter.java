@@ -46,6 +46,8 @@ public class ContextFilter implements Filter {
             attachments.remove(Constants.DUBBO_VERSION_KEY);
             attachments.remove(Constants.TOKEN_KEY);
             attachments.remove(Constants.TIMEOUT_KEY);
+            attachments.remove(Constants.STREAM_KEY);
+            attachments.remove(Constants.DEADLINE_KEY);
         }
         RpcContext.getContext()
                 .setInvoker(invoker)
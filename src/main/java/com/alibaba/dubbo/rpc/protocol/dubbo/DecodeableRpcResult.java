@@ -54,6 +54,8 @@ public class DecodeableRpcResult extends RpcResult implements Codec, Decodeable
 
     private volatile boolean hasDecoded;
 
+    private boolean     chunk;
+
     public DecodeableRpcResult(Channel channel, Response response, InputStream is, Invocation invocation, byte id) {
         Assert.notNull(channel, "channel == null");
         Assert.notNull(response, "response == null");
@@ -87,6 +89,14 @@ public class DecodeableRpcResult extends RpcResult implements Codec, Decodeable
                     throw new IOException(StringUtils.toString("Read response data failed.", e));
                 }
                 break;
+            case DubboCodec.RESPONSE_CHUNK:
+                try {
+                    setValue(in.readObject());
+                    chunk = true;
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(StringUtils.toString("Read response data failed.", e));
+                }
+                break;
             case DubboCodec.RESPONSE_WITH_EXCEPTION:
                 try {
                     Object obj = in.readObject();
@@ -98,11 +108,18 @@ public class DecodeableRpcResult extends RpcResult implements Codec, Decodeable
                 }
                 break;
             default:
-                throw new IOException("Unknown result flag, expect '0' '1' '2', get " + flag);
+                throw new IOException("Unknown result flag, expect '0' '1' '2' '3', get " + flag);
         }
         return this;
     }
 
+    /**
+     * @return true if the value is a chunk of a streamed result
+     */
+    public boolean isChunk() {
+        return chunk;
+    }
+
     public void decode() throws Exception {
         if (!hasDecoded && channel != null && inputStream != null) {
             try {
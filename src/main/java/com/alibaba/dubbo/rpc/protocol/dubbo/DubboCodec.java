@@ -23,6 +23,7 @@ import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.common.Version;
 import com.alibaba.dubbo.common.io.Bytes;
 import com.alibaba.dubbo.common.io.UnsafeByteArrayInputStream;
+import com.alibaba.dubbo.common.io.UnsafeByteArrayOutputStream;
 import com.alibaba.dubbo.common.logger.Logger;
 import com.alibaba.dubbo.common.logger.LoggerFactory;
 import com.alibaba.dubbo.common.serialize.ObjectInput;
@@ -32,6 +33,7 @@ import com.alibaba.dubbo.common.utils.ReflectUtils;
 import com.alibaba.dubbo.common.utils.StringUtils;
 import com.alibaba.dubbo.remoting.Channel;
 import com.alibaba.dubbo.remoting.Codec2;
+import com.alibaba.dubbo.remoting.buffer.ChannelBufferInputStream;
 import com.alibaba.dubbo.remoting.exchange.Request;
 import com.alibaba.dubbo.remoting.exchange.Response;
 import com.alibaba.dubbo.remoting.exchange.codec.ExchangeCodec;
@@ -62,6 +64,8 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
 
     public static final byte RESPONSE_NULL_VALUE = 2;
 
+    public static final byte RESPONSE_CHUNK = 3;
+
     public static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
 
     public static final Class<?>[] EMPTY_CLASS_ARRAY = new Class<?>[0];
@@ -80,7 +84,7 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
             // get status.
             byte status = header[3];
             res.setStatus(status);
-            if (status == Response.OK) {
+            if (status == Response.OK || status == Response.CHUNK) {
                 try {
                     Object data;
                     if (res.isHeartbeat()) {
@@ -93,12 +97,12 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
                             Constants.DECODE_IN_IO_THREAD_KEY,
                             Constants.DEFAULT_DECODE_IN_IO_THREAD)) {
                             result = new DecodeableRpcResult(channel, res, is,
-                                                             (Invocation)getRequestData(id), proto);
+                                                             (Invocation)getRequestData(channel, id), proto);
                             result.decode();
                         } else {
                             result = new DecodeableRpcResult(channel, res,
                                                              new UnsafeByteArrayInputStream(readMessageData(is)),
-                                                             (Invocation) getRequestData(id), proto);
+                                                             (Invocation) getRequestData(channel, id), proto);
                         }
                         data = result;
                     }
@@ -117,6 +121,7 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
         } else {
             // decode request.
             Request req = new Request(id);
+            req.setDecodeTime(System.nanoTime());
             req.setVersion("2.0.0");
             req.setTwoWay((flag & FLAG_TWOWAY) != 0);
             if ((flag & FLAG_EVENT) != 0) {
@@ -167,12 +172,21 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
     }
 
     private byte[] readMessageData(InputStream is) throws IOException {
-        if (is.available() > 0) {
-            byte[] result = new byte[is.available()];
-            is.read(result);
-            return result;
+        if (is instanceof ChannelBufferInputStream) {
+            if (is.available() > 0) {
+                byte[] result = new byte[is.available()];
+                is.read(result);
+                return result;
+            }
+            return new byte[]{};
         }
-        return new byte[]{};
+        // decompressing, the length is unknown.
+        UnsafeByteArrayOutputStream bos = new UnsafeByteArrayOutputStream(1024);
+        byte[] b = new byte[1024];
+        for (int n; (n = is.read(b)) > 0; ) {
+            bos.write(b, 0, n);
+        }
+        return bos.toByteArray();
     }
 
     @Override
@@ -200,7 +214,10 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
         Throwable th = result.getException();
         if (th == null) {
             Object ret = result.getValue();
-            if (ret == null) {
+            if (result instanceof ResultChunk) {
+                out.writeByte(RESPONSE_CHUNK);
+                out.writeObject(ret);
+            } else if (ret == null) {
                 out.writeByte(RESPONSE_NULL_VALUE);
             } else {
                 out.writeByte(RESPONSE_VALUE);
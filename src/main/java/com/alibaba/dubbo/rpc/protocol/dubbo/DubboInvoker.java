@@ -25,6 +25,8 @@ import com.alibaba.dubbo.remoting.RemotingException;
 import com.alibaba.dubbo.remoting.TimeoutException;
 import com.alibaba.dubbo.remoting.exchange.ExchangeClient;
 import com.alibaba.dubbo.remoting.exchange.ResponseFuture;
+import com.alibaba.dubbo.remoting.exchange.support.DefaultFuture;
+import com.alibaba.dubbo.remoting.transport.PendingWrites;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
@@ -37,6 +39,15 @@ import com.alibaba.dubbo.rpc.support.RpcUtils;
 
 /**
  * DubboInvoker
+ * <p>
+ * Of several connections (<code>connections=N</code>) the request is sent by the least loaded one:
+ * the fewest requests waiting for responses, then the fewest bytes waiting to be written. With
+ * <code>inflight=M</code> a connection takes at most M requests waiting for responses, the
+ * invocation waits for a response of the connection until the timeout, or fails at once with
+ * <code>inflight.failfast=true</code>. The limit is taken by the connection when it registers the
+ * request, see {@link DefaultFuture#newFuture}, so a shared connection keeps the limit of the
+ * reference which opened it.
+ * </p>
  * 
  * @author william.liangf
  * @author chao.liuc
@@ -76,12 +87,15 @@ public class DubboInvoker<T> extends AbstractInvoker<T> {
         if (clients.length == 1) {
             currentClient = clients[0];
         } else {
-            currentClient = clients[index.getAndIncrement() % clients.length];
+            currentClient = selectClient();
         }
         try {
             boolean isAsync = RpcUtils.isAsync(getUrl(), invocation);
             boolean isOneway = RpcUtils.isOneway(getUrl(), invocation);
             int timeout = getUrl().getMethodParameter(methodName, Constants.TIMEOUT_KEY,Constants.DEFAULT_TIMEOUT);
+            if (! isOneway) {
+                timeout = applyDeadline(inv, timeout);
+            }
             if (isOneway) {
             	boolean isSent = getUrl().getMethodParameter(methodName, Constants.SENT_KEY, false);
                 currentClient.send(inv, isSent);
@@ -91,6 +105,13 @@ public class DubboInvoker<T> extends AbstractInvoker<T> {
             	ResponseFuture future = currentClient.request(inv, timeout) ;
                 RpcContext.getContext().setFuture(new FutureAdapter<Object>(future));
                 return new RpcResult();
+            } else if (RpcUtils.isStream(getUrl(), invocation)) {
+                RpcContext.getContext().setFuture(null);
+                inv.setAttachment(Constants.STREAM_KEY, Boolean.TRUE.toString());
+                ResponseFuture future = currentClient.request(inv, timeout);
+                Result result = (Result) future.get();
+                // 分块返回时结果迭代时逐块获取
+                return future instanceof DefaultFuture ? StreamIterator.toResult(invocation, (DefaultFuture) future, result, timeout) : result;
             } else {
             	RpcContext.getContext().setFuture(null);
             	/**
@@ -106,6 +127,48 @@ public class DubboInvoker<T> extends AbstractInvoker<T> {
         }
     }
     
+    /**
+     * wait no longer than the call being served, and send the budget left so the provider drops
+     * the request once the consumer stops waiting.
+     */
+    private int applyDeadline(RpcInvocation inv, int timeout) {
+        long remaining = RpcContext.getContext().getRemainingTimeout();
+        if (remaining <= 0) {
+            throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "Invoke remote method timeout. method: " + inv.getMethodName() + ", provider: " + getUrl() + ", cause: the deadline of the call being served expired " + (- remaining) + "ms ago");
+        }
+        if (remaining < timeout) {
+            timeout = (int) remaining;
+        }
+        inv.setAttachment(Constants.DEADLINE_KEY, String.valueOf(timeout));
+        return timeout;
+    }
+
+    /**
+     * the client with the fewest requests waiting for responses, then with the fewest bytes
+     * waiting to be written, the ties are broken round robin.
+     */
+    private ExchangeClient selectClient() {
+        int length = clients.length;
+        int start = index.getAndIncrement() % length;
+        ExchangeClient selected = null;
+        int selectedPending = Integer.MAX_VALUE;
+        long selectedBytes = Long.MAX_VALUE;
+        for (int i = 0; i < length; i ++) {
+            ExchangeClient client = clients[(start + i) % length];
+            int pending = DefaultFuture.getPendingCount(client);
+            if (pending > selectedPending) {
+                continue;
+            }
+            long bytes = PendingWrites.getBytes(client);
+            if (pending < selectedPending || bytes < selectedBytes) {
+                selected = client;
+                selectedPending = pending;
+                selectedBytes = bytes;
+            }
+        }
+        return selected;
+    }
+
     @Override
     public boolean isAvailable() {
         if (!super.isAvailable())
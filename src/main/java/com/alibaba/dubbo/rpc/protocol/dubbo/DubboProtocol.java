@@ -19,6 +19,7 @@ import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -44,6 +45,7 @@ import com.alibaba.dubbo.rpc.Exporter;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Protocol;
+import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcContext;
 import com.alibaba.dubbo.rpc.RpcException;
 import com.alibaba.dubbo.rpc.RpcInvocation;
@@ -71,6 +73,8 @@ public class DubboProtocol extends AbstractProtocol {
     private final Map<String, ReferenceCountExchangeClient> referenceClientMap = new ConcurrentHashMap<String, ReferenceCountExchangeClient>(); // <host:port,Exchanger>
     
     private final ConcurrentMap<String, LazyConnectExchangeClient> ghostClientMap = new ConcurrentHashMap<String, LazyConnectExchangeClient>();
+
+    private final Map<String, ReferenceCountExchangeClient> elasticClientMap = new ConcurrentHashMap<String, ReferenceCountExchangeClient>(); // <host:port,Exchanger>
     
     //consumer side export a stub service for dispatching event
     //servicekey-stubmethods
@@ -104,8 +108,21 @@ public class DubboProtocol extends AbstractProtocol {
                         return null;
                     }
                 }
-                RpcContext.getContext().setRemoteAddress(channel.getRemoteAddress());
-                return invoker.invoke(inv);
+                RpcContext.getContext().setRemoteAddress(channel.getRemoteAddress())
+                        .setDeadline(inv instanceof DecodeableRpcInvocation ? ((DecodeableRpcInvocation) inv).getDeadline() : 0);
+                Result result = invoker.invoke(inv);
+                //分块返回Iterator或Iterable的结果
+                if (Boolean.TRUE.toString().equals(inv.getAttachment(Constants.STREAM_KEY))
+                        && result != null && ! result.hasException()) {
+                    Object value = result.getValue();
+                    Iterator<?> iterator = value instanceof Iterable ? ((Iterable<?>) value).iterator()
+                            : value instanceof Iterator ? (Iterator<?>) value : null;
+                    if (iterator != null) {
+                        return new StreamReply(iterator, invoker.getUrl().getMethodParameter(inv.getMethodName(),
+                                Constants.STREAM_CHUNK_KEY, Constants.DEFAULT_STREAM_CHUNK));
+                    }
+                }
+                return result;
             }
             throw new RemotingException(channel, "Unsupported request: " + message == null ? null : (message.getClass().getName() + ": " + message) + ", channel: consumer: " + channel.getRemoteAddress() + " --> provider: " + channel.getLocalAddress());
         }
@@ -316,6 +333,10 @@ public class DubboProtocol extends AbstractProtocol {
         int connections = url.getParameter(Constants.CONNECTIONS_KEY, 0);
         //如果connections不配置，则共享连接，否则每服务每连接
         if (connections == 0){
+            //配置了connections.max，则共享弹性连接池
+            if (url.getParameter(Constants.CONNECTIONS_MAX_KEY, 0) > 1) {
+                return new ExchangeClient[] { getElasticClient(url) };
+            }
             service_share_connect = true;
             connections = 1;
         }
@@ -354,10 +375,28 @@ public class DubboProtocol extends AbstractProtocol {
         return client; 
     }
 
+    /**
+     *获取共享的弹性连接池
+     */
+    private ExchangeClient getElasticClient(URL url){
+        String key = url.getAddress();
+        synchronized (elasticClientMap) {
+            ReferenceCountExchangeClient client = elasticClientMap.get(key);
+            if (client != null && ! client.isClosed()) {
+                client.incrementAndGetCount();
+                return client;
+            }
+            client = new ReferenceCountExchangeClient(new ElasticExchangeClient(this, url), ghostClientMap);
+            elasticClientMap.put(key, client);
+            ghostClientMap.remove(key);
+            return client;
+        }
+    }
+
     /**
      * 创建新连接.
      */
-    private ExchangeClient initClient(URL url) {
+    ExchangeClient initClient(URL url) {
         
         // client type setting.
         String str = url.getParameter(Constants.CLIENT_KEY, url.getParameter(Constants.SERVER_KEY, Constants.DEFAULT_REMOTING_CLIENT));
@@ -421,6 +460,20 @@ public class DubboProtocol extends AbstractProtocol {
             }
         }
         
+        for (String key : new ArrayList<String>(elasticClientMap.keySet())) {
+            ExchangeClient client = elasticClientMap.remove(key);
+            if (client != null) {
+                try {
+                    if (logger.isInfoEnabled()) {
+                        logger.info("Close dubbo elastic connections: " + client.getLocalAddress() + "-->" + client.getRemoteAddress());
+                    }
+                    client.close();
+                } catch (Throwable t) {
+                    logger.warn(t.getMessage(), t);
+                }
+            }
+        }
+        
         for (String key : new ArrayList<String>(ghostClientMap.keySet())) {
             ExchangeClient client = ghostClientMap.remove(key);
             if (client != null) {
@@ -0,0 +1,429 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.dubbo;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.Parameters;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.utils.AtomicPositiveInteger;
+import com.alibaba.dubbo.common.utils.NamedThreadFactory;
+import com.alibaba.dubbo.remoting.ChannelHandler;
+import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.remoting.exchange.ExchangeClient;
+import com.alibaba.dubbo.remoting.exchange.ExchangeHandler;
+import com.alibaba.dubbo.remoting.exchange.ResponseFuture;
+import com.alibaba.dubbo.remoting.exchange.support.DefaultFuture;
+import com.alibaba.dubbo.remoting.transport.PendingWrites;
+
+/**
+ * dubbo protocol support class, the elastic connections to an address.
+ * <p>
+ * Keeps <code>connections.min</code> to <code>connections.max</code> connections, every request is
+ * sent by the least loaded one. A connection is opened in the background when the least loaded
+ * connection has <code>connections.grow.inflight</code> requests waiting for responses or
+ * <code>connections.grow.bytes</code> bytes waiting to be written. A connection opened over the
+ * minimum and not used for <code>connections.idle</code> milliseconds is no longer selected, and
+ * closed one period later once no response is waited for by it.
+ * </p>
+ *
+ * @see ReferenceCountExchangeClient
+ */
+@SuppressWarnings("deprecation")
+final class ElasticExchangeClient implements ExchangeClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(ElasticExchangeClient.class);
+
+    private static final ScheduledThreadPoolExecutor scheduled = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("DubboElasticConnection", true));
+
+    private final DubboProtocol protocol;
+
+    private final URL url;
+
+    private final int min;
+
+    private final int max;
+
+    private final int growInflight;
+
+    private final long growBytes;
+
+    // copy on write, guarded by this, the first min members are kept until closed
+    private volatile Member[] members;
+
+    // no longer selected, closed by the next idle check, guarded by this
+    private final List<Member> retired = new ArrayList<Member>();
+
+    private final AtomicPositiveInteger index = new AtomicPositiveInteger();
+
+    private final AtomicBoolean growing = new AtomicBoolean();
+
+    private final ScheduledFuture<?> idleCheck;
+
+    private volatile boolean closed;
+
+    ElasticExchangeClient(DubboProtocol protocol, URL url) {
+        this.protocol = protocol;
+        this.url = url;
+        this.max = url.getParameter(Constants.CONNECTIONS_MAX_KEY, 0);
+        this.min = Math.max(1, Math.min(url.getParameter(Constants.CONNECTIONS_MIN_KEY, 1), max));
+        this.growInflight = url.getPositiveParameter(Constants.CONNECTIONS_GROW_INFLIGHT_KEY, Constants.DEFAULT_CONNECTIONS_GROW_INFLIGHT);
+        this.growBytes = url.getPositiveParameter(Constants.CONNECTIONS_GROW_BYTES_KEY, Constants.DEFAULT_CONNECTIONS_GROW_BYTES);
+        int idle = url.getPositiveParameter(Constants.CONNECTIONS_IDLE_KEY, Constants.DEFAULT_CONNECTIONS_IDLE);
+        Member[] initial = new Member[min];
+        try {
+            for (int i = 0; i < min; i ++) {
+                initial[i] = new Member(protocol.initClient(url));
+            }
+        } catch (RuntimeException e) {
+            for (Member member : initial) {
+                if (member != null) {
+                    member.client.close();
+                }
+            }
+            throw e;
+        }
+        this.members = initial;
+        this.idleCheck = scheduled.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                closeIdle();
+            }
+        }, idle, idle, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * the least loaded connection, grow if it is busy.
+     */
+    private Member select() {
+        Member[] ms = members;
+        Member selected = leastLoaded(ms);
+        if (ms.length < max && (DefaultFuture.getPendingCount(selected.client) >= growInflight
+                || PendingWrites.getBytes(selected.client) >= growBytes)) {
+            grow();
+        }
+        if (! selected.used) {
+            selected.used = true;
+        }
+        return selected;
+    }
+
+    /**
+     * a connection selected before it was retired may be closed meanwhile, the request is sent by another one.
+     */
+    private static boolean isClosedMeanwhile(Member member) {
+        return member.closed;
+    }
+
+    /**
+     * the connection with the fewest requests waiting for responses, then with the fewest bytes
+     * waiting to be written, the ties are broken round robin.
+     */
+    private Member leastLoaded(Member[] ms) {
+        int length = ms.length;
+        if (length == 1) {
+            return ms[0];
+        }
+        int start = index.getAndIncrement() % length;
+        Member selected = null;
+        int selectedPending = Integer.MAX_VALUE;
+        long selectedBytes = Long.MAX_VALUE;
+        for (int i = 0; i < length; i ++) {
+            Member member = ms[(start + i) % length];
+            int pending = DefaultFuture.getPendingCount(member.client);
+            if (pending > selectedPending) {
+                continue;
+            }
+            long bytes = PendingWrites.getBytes(member.client);
+            if (pending < selectedPending || bytes < selectedBytes) {
+                selected = member;
+                selectedPending = pending;
+                selectedBytes = bytes;
+            }
+        }
+        return selected;
+    }
+
+    private void grow() {
+        if (closed || ! growing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduled.execute(new Runnable() {
+                public void run() {
+                    try {
+                        if (closed || members.length >= max) {
+                            return;
+                        }
+                        Member member = new Member(protocol.initClient(url));
+                        synchronized (ElasticExchangeClient.this) {
+                            if (! closed) {
+                                Member[] ms = Arrays.copyOf(members, members.length + 1);
+                                ms[ms.length - 1] = member;
+                                members = ms;
+                                member = null;
+                            }
+                        }
+                        if (member != null) {
+                            member.client.close();
+                        } else if (logger.isInfoEnabled()) {
+                            logger.info("Open connection " + members.length + " of max " + max + " to " + url.getAddress());
+                        }
+                    } catch (Throwable t) {
+                        logger.warn("Failed to open elastic connection to " + url.getAddress() + ", cause: " + t.getMessage(), t);
+                    } finally {
+                        growing.set(false);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            growing.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * close the connections retired by the last check and waiting for no response, then retire
+     * the connections over the minimum without request since the last check.
+     */
+    private void closeIdle() {
+        List<Member> idles = new ArrayList<Member>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            for (Iterator<Member> i = retired.iterator(); i.hasNext(); ) {
+                Member member = i.next();
+                if (DefaultFuture.getPendingCount(member.client) == 0) {
+                    i.remove();
+                    member.closed = true;
+                    idles.add(member);
+                }
+            }
+            List<Member> remains = new ArrayList<Member>(Arrays.asList(members));
+            for (int i = remains.size() - 1; i >= min; i --) {
+                Member member = remains.get(i);
+                if (! member.used && DefaultFuture.getPendingCount(member.client) == 0) {
+                    remains.remove(i);
+                    retired.add(member);
+                }
+            }
+            for (Member member : remains) {
+                member.used = false;
+            }
+            if (remains.size() < members.length) {
+                members = remains.toArray(new Member[remains.size()]);
+            }
+        }
+        for (Member member : idles) {
+            if (logger.isInfoEnabled()) {
+                logger.info("Close idle connection " + member.client.getLocalAddress() + " -> " + url.getAddress());
+            }
+            try {
+                member.client.close();
+            } catch (Throwable t) {
+                logger.warn(t.getMessage(), t);
+            }
+        }
+    }
+
+    int getConnections() {
+        return members.length;
+    }
+
+    public ResponseFuture request(Object request) throws RemotingException {
+        Member member = select();
+        try {
+            return member.client.request(request);
+        } catch (RemotingException e) {
+            if (! isClosedMeanwhile(member)) {
+                throw e;
+            }
+            return select().client.request(request);
+        }
+    }
+
+    public ResponseFuture request(Object request, int timeout) throws RemotingException {
+        Member member = select();
+        try {
+            return member.client.request(request, timeout);
+        } catch (RemotingException e) {
+            if (! isClosedMeanwhile(member)) {
+                throw e;
+            }
+            return select().client.request(request, timeout);
+        }
+    }
+
+    public void send(Object message) throws RemotingException {
+        Member member = select();
+        try {
+            member.client.send(message);
+        } catch (RemotingException e) {
+            if (! isClosedMeanwhile(member)) {
+                throw e;
+            }
+            select().client.send(message);
+        }
+    }
+
+    public void send(Object message, boolean sent) throws RemotingException {
+        Member member = select();
+        try {
+            member.client.send(message, sent);
+        } catch (RemotingException e) {
+            if (! isClosedMeanwhile(member)) {
+                throw e;
+            }
+            select().client.send(message, sent);
+        }
+    }
+
+    public URL getUrl() {
+        return members[0].client.getUrl();
+    }
+
+    public InetSocketAddress getRemoteAddress() {
+        return members[0].client.getRemoteAddress();
+    }
+
+    public InetSocketAddress getLocalAddress() {
+        return members[0].client.getLocalAddress();
+    }
+
+    public ChannelHandler getChannelHandler() {
+        return members[0].client.getChannelHandler();
+    }
+
+    public ExchangeHandler getExchangeHandler() {
+        return members[0].client.getExchangeHandler();
+    }
+
+    public boolean isConnected() {
+        for (Member member : members) {
+            if (member.client.isConnected()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void reconnect() throws RemotingException {
+        for (Member member : members) {
+            member.client.reconnect();
+        }
+    }
+
+    public void reset(URL url) {
+        for (Member member : members) {
+            member.client.reset(url);
+        }
+    }
+
+    @Deprecated
+    public void reset(Parameters parameters) {
+        reset(getUrl().addParameters(parameters.getParameters()));
+    }
+
+    /**
+     * the attribute of the first connection, which is kept until the pool is closed. The load of
+     * every connection is read by the pool itself when selecting one.
+     */
+    public Object getAttribute(String key) {
+        return members[0].client.getAttribute(key);
+    }
+
+    public boolean hasAttribute(String key) {
+        return members[0].client.hasAttribute(key);
+    }
+
+    public void setAttribute(String key, Object value) {
+        for (Member member : members) {
+            member.client.setAttribute(key, value);
+        }
+    }
+
+    public void removeAttribute(String key) {
+        for (Member member : members) {
+            member.client.removeAttribute(key);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void close() {
+        close(0);
+    }
+
+    public void close(int timeout) {
+        Member[] ms;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            ms = members;
+            if (! retired.isEmpty()) {
+                ms = Arrays.copyOf(ms, ms.length + retired.size());
+                for (int i = 0; i < retired.size(); i ++) {
+                    ms[members.length + i] = retired.get(i);
+                }
+                retired.clear();
+            }
+        }
+        idleCheck.cancel(false);
+        scheduled.purge();
+        for (Member member : ms) {
+            try {
+                if (timeout == 0) {
+                    member.client.close();
+                } else {
+                    member.client.close(timeout);
+                }
+            } catch (Throwable t) {
+                logger.warn(t.getMessage(), t);
+            }
+        }
+    }
+
+    private static final class Member {
+
+        final ExchangeClient client;
+
+        // requested since the last idle check
+        volatile boolean    used = true;
+
+        // closed after retired, a request selecting it before is sent by another member
+        volatile boolean    closed;
+
+        Member(ExchangeClient client) {
+            this.client = client;
+        }
+    }
+
+}
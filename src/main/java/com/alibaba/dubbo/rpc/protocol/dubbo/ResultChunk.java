@@ -0,0 +1,33 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.dubbo;
+
+import java.util.List;
+
+import com.alibaba.dubbo.rpc.RpcResult;
+
+/**
+ * A chunk of the elements of a streamed result, encoded with {@link DubboCodec#RESPONSE_CHUNK}.
+ */
+final class ResultChunk extends RpcResult {
+
+    private static final long serialVersionUID = 2286578312163370151L;
+
+    ResultChunk(List<Object> elements) {
+        super(elements);
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.dubbo;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.remoting.TimeoutException;
+import com.alibaba.dubbo.remoting.exchange.Response;
+import com.alibaba.dubbo.remoting.exchange.support.DefaultFuture;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.alibaba.dubbo.rpc.support.RpcUtils;
+
+/**
+ * Iterates the elements of a streamed result, the next chunk is taken from the future only when
+ * the elements of the previous one are iterated, so the provider sends no faster than the
+ * consumer iterates.
+ */
+final class StreamIterator implements Iterator<Object> {
+
+    private final DefaultFuture future;
+
+    private final int           timeout;
+
+    private Iterator<?>         chunk;
+
+    private boolean             last;
+
+    private StreamIterator(DefaultFuture future, Result first, int timeout) {
+        this.future = future;
+        this.timeout = timeout;
+        this.last = ! future.isChunked();
+        this.chunk = take(first, ! last);
+    }
+
+    /**
+     * @return the result iterating the chunks of the future, or the first result if not streamed
+     */
+    static Result toResult(Invocation invocation, DefaultFuture future, Result first, int timeout) {
+        // a reply of a single chunk is the final response
+        if (! future.isChunked() && ! (first instanceof DecodeableRpcResult && ((DecodeableRpcResult) first).isChunk())) {
+            return first;
+        }
+        final Iterator<Object> iterator = new StreamIterator(future, first, timeout);
+        if (Iterable.class.equals(RpcUtils.getReturnType(invocation))) {
+            return new RpcResult(new Iterable<Object>() {
+                private boolean iterated;
+
+                public synchronized Iterator<Object> iterator() {
+                    if (iterated) {
+                        throw new IllegalStateException("The streamed result can be iterated only once");
+                    }
+                    iterated = true;
+                    return iterator;
+                }
+            });
+        }
+        return new RpcResult(iterator);
+    }
+
+    public boolean hasNext() {
+        while (! chunk.hasNext()) {
+            if (last) {
+                return false;
+            }
+            Response res;
+            try {
+                res = future.nextChunk(timeout);
+            } catch (TimeoutException e) {
+                throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "Invoke remote method timeout, waiting for the chunk of request " + future.getId() + ", cause: " + e.getMessage(), e);
+            } catch (RemotingException e) {
+                throw new RpcException(RpcException.NETWORK_EXCEPTION, "Failed to get the chunk of request " + future.getId() + ", cause: " + e.getMessage(), e);
+            }
+            last = res.getStatus() != Response.CHUNK;
+            if (res.getStatus() != Response.OK && res.getStatus() != Response.CHUNK) {
+                boolean timeout = res.getStatus() == Response.CLIENT_TIMEOUT || res.getStatus() == Response.SERVER_TIMEOUT;
+                throw new RpcException(timeout ? RpcException.TIMEOUT_EXCEPTION : RpcException.NETWORK_EXCEPTION,
+                        "Failed to get the chunk of request " + future.getId() + ", cause: " + res.getErrorMessage());
+            }
+            chunk = take((Result) res.getResult(), ! last);
+        }
+        return true;
+    }
+
+    public Object next() {
+        if (! hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return chunk.next();
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private Iterator<?> take(Result result, boolean expectChunk) {
+        if (result instanceof DecodeableRpcResult) {
+            DecodeableRpcResult decodeable = (DecodeableRpcResult) result;
+            try {
+                decodeable.decode();
+            } catch (Exception e) {
+                // never thrown, a failure is set to the response
+            }
+            // the chunks are delivered in the io thread, failed to decode if not flagged
+            if (expectChunk && ! decodeable.isChunk()) {
+                last = true;
+                future.cancelChunks();
+                throw new RpcException(RpcException.NETWORK_EXCEPTION, "Failed to decode the chunk of request " + future.getId());
+            }
+        }
+        if (result.hasException()) {
+            last = true;
+            future.cancelChunks();
+            Throwable t = result.getException();
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            throw new RpcException(t);
+        }
+        List<?> elements = (List<?>) result.getValue();
+        return elements == null ? Collections.emptyList().iterator() : elements.iterator();
+    }
+
+}
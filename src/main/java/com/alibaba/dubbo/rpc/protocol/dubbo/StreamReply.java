@@ -0,0 +1,75 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.rpc.protocol.dubbo;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.remoting.exchange.ChunkedReply;
+import com.alibaba.dubbo.rpc.RpcResult;
+
+/**
+ * Replies the elements of the iterator returned by the service in chunks of at most
+ * <code>stream.chunk</code> elements, taken from the iterator only when the chunk is sent.
+ * An exception of the iterator is sent as the result of the last chunk.
+ */
+final class StreamReply implements ChunkedReply {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamReply.class);
+
+    private final Iterator<?> iterator;
+
+    private final int         chunk;
+
+    private boolean           done;
+
+    StreamReply(Iterator<?> iterator, int chunk) {
+        this.iterator = iterator;
+        this.chunk = chunk > 0 ? chunk : 1;
+    }
+
+    public boolean hasNext() {
+        return ! done;
+    }
+
+    public Object next() {
+        List<Object> elements = new ArrayList<Object>(chunk);
+        try {
+            while (elements.size() < chunk && iterator.hasNext()) {
+                elements.add(iterator.next());
+            }
+            done = ! iterator.hasNext();
+        } catch (Throwable t) {
+            done = true;
+            return new RpcResult(t);
+        }
+        return new ResultChunk(elements);
+    }
+
+    public void close() {
+        if (iterator instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) iterator).close();
+            } catch (Throwable t) {
+                logger.warn("Failed to close the streamed iterator, cause: " + t.getMessage(), t);
+            }
+        }
+    }
+
+}
@@ -25,6 +25,10 @@ import com.alibaba.dubbo.common.extension.ExtensionLoader;
 import com.alibaba.dubbo.common.status.Status;
 import com.alibaba.dubbo.common.status.StatusChecker;
 import com.alibaba.dubbo.common.store.DataStore;
+import com.alibaba.dubbo.common.threadpool.ThreadPoolStatistics;
+import com.alibaba.dubbo.common.threadpool.support.eager.EagerThreadPoolExecutor;
+import com.alibaba.dubbo.common.threadpool.support.virtual.VirtualThreadExecutor;
+import com.alibaba.dubbo.common.utils.RollingHistogram;
 
 /**
  * ThreadPoolStatusChecker
@@ -63,9 +67,62 @@ public class ThreadPoolStatusChecker implements StatusChecker {
                         + ", active:" + tp.getActiveCount()
                         + ", task:" + tp.getTaskCount()
                         + ", service port: " + port);
+                if (tp instanceof EagerThreadPoolExecutor) {
+                    EagerThreadPoolExecutor eager = (EagerThreadPoolExecutor) tp;
+                    msg.append(", queue:" + eager.getQueue().size()
+                            + ", queue wait:" + toMillis(eager.getQueueWait()));
+                }
+            } else if (executor instanceof VirtualThreadExecutor) {
+                VirtualThreadExecutor vt = (VirtualThreadExecutor) executor;
+                boolean ok = vt.getActiveCount() < vt.getMaximumPoolSize() - 1;
+                Status.Level lvl = Status.Level.OK;
+                if(!ok) {
+                    level = Status.Level.WARN;
+                    lvl = Status.Level.WARN;
+                }
+
+                if(msg.length() > 0) {
+                    msg.append(";");
+                }
+                msg.append("Pool status:" + lvl
+                        + ", virtual threads max:" + vt.getMaximumPoolSize()
+                        + ", largest:" + vt.getLargestPoolSize()
+                        + ", active:" + vt.getActiveCount()
+                        + ", queue:" + vt.getQueueSize()
+                        + ", completed:" + vt.getCompletedTaskCount()
+                        + ", service port: " + port);
             }
         }
+        // 最近一分钟的排队、执行耗时和拒绝数
+        for (ThreadPoolStatistics statistics : ThreadPoolStatistics.getAllStatistics()) {
+            RollingHistogram.Snapshot queueWait = statistics.getQueueWait();
+            RollingHistogram.Snapshot rejections = statistics.getRejections();
+            if (queueWait.getCount() == 0 && rejections.getCount() == 0) {
+                continue;
+            }
+            RollingHistogram.Snapshot execution = statistics.getExecution();
+            if (rejections.getCount() > 0) {
+                level = Status.Level.WARN;
+            }
+            if (msg.length() > 0) {
+                msg.append(";");
+            }
+            msg.append("Pool " + statistics.getName() + " last minute:"
+                    + " active:" + statistics.getActiveCount()
+                    + " (max:" + statistics.getActiveThreads().getMax() + ")"
+                    + ", queue:" + statistics.getQueueSize()
+                    + " (max:" + statistics.getQueueDepth().getMax() + ")"
+                    + ", queue wait:" + toMillis(queueWait)
+                    + ", execute:" + toMillis(execution)
+                    + ", rejected:" + rejections.getCount());
+        }
         return msg.length() == 0 ? new Status(Status.Level.UNKNOWN) : new Status(level, msg.toString());
     }
 
+    // avg/p99/max in milliseconds of the microseconds
+    private static String toMillis(RollingHistogram.Snapshot snapshot) {
+        return String.format("%.1f/%.1f/%.1fms", snapshot.getMean() / 1000.0,
+                snapshot.getPercentile(99) / 1000.0, snapshot.getMax() / 1000.0);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+package com.alibaba.dubbo.rpc.protocol.thrift;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.utils.LongHashMap;
+import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.rpc.protocol.thrift.ThriftCodec.RequestData;
+
+/**
+ * Per channel correlation of decoded requests, used to encode the thrift response
+ * (seqid, service and method name) of a dubbo response id.
+ * The native thrift consumer ({@link ThriftNativeCodec}) keeps the dubbo request id
+ * of each seqid in the same way.
+ * <p>
+ * Entries are removed when the response is encoded, expire after
+ * <code>thrift.request.expire</code> milliseconds and are bounded by
+ * <code>thrift.request.capacity</code>, the oldest entry is evicted first.
+ * </p>
+ */
+public final class RequestDataTable {
+
+    private static final String CHANNEL_KEY = RequestDataTable.class.getName();
+
+    private static final AtomicLong OUTSTANDING = new AtomicLong();
+
+    private static final AtomicLong EVICTED = new AtomicLong();
+
+    private static final AtomicLong LEAKED = new AtomicLong();
+
+    private final int capacity;
+
+    private final long expire;
+
+    private final LongHashMap<RequestData> requests;
+
+    // insertion order, removed entries are discarded lazily
+    private final ArrayDeque<RequestData> order;
+
+    RequestDataTable( int capacity, long expire ) {
+        this.capacity = capacity;
+        this.expire = expire;
+        this.requests = new LongHashMap<RequestData>();
+        this.order = new ArrayDeque<RequestData>();
+    }
+
+    /**
+     * get the table of the channel, created if absent.
+     * <p>
+     * The provider creates it in the decoding (io) thread, the native consumer in the invoking threads.
+     * </p>
+     */
+    static RequestDataTable getTable( Channel channel, boolean create ) {
+
+        RequestDataTable table = ( RequestDataTable ) channel.getAttribute( CHANNEL_KEY );
+
+        if ( table == null && create ) {
+            synchronized ( channel ) {
+                table = ( RequestDataTable ) channel.getAttribute( CHANNEL_KEY );
+                if ( table == null ) {
+                    URL url = channel.getUrl();
+                    table = new RequestDataTable(
+                            url.getPositiveParameter( ThriftConstants.REQUEST_CAPACITY_KEY,
+                                                      ThriftConstants.DEFAULT_REQUEST_CAPACITY ),
+                            url.getPositiveParameter( ThriftConstants.REQUEST_EXPIRE_KEY,
+                                                      ThriftConstants.DEFAULT_REQUEST_EXPIRE ) );
+                    channel.setAttribute( CHANNEL_KEY, table );
+                }
+            }
+        }
+
+        return table;
+
+    }
+
+    synchronized void put( long id, RequestData data ) {
+
+        long now = System.currentTimeMillis();
+
+        expire( now );
+
+        while ( requests.size() >= capacity || order.size() >= capacity << 1 ) {
+            RequestData eldest = order.poll();
+            if ( !eldest.removed ) {
+                remove( eldest );
+                EVICTED.incrementAndGet();
+            }
+        }
+
+        data.key = id;
+        data.expireTime = now + expire;
+
+        RequestData old = requests.put( id, data );
+
+        if ( old != null ) {
+            // never answered, replaced by a request with the same id
+            old.removed = true;
+            LEAKED.incrementAndGet();
+        } else {
+            OUTSTANDING.incrementAndGet();
+        }
+
+        order.add( data );
+
+    }
+
+    synchronized RequestData remove( long id ) {
+
+        RequestData data = requests.get( id );
+
+        if ( data != null ) {
+            remove( data );
+        }
+
+        return data;
+
+    }
+
+    /**
+     * drop the table of the closed channel, its outstanding requests are leaked.
+     */
+    static void removeTable( Channel channel ) {
+
+        RequestDataTable table = ( RequestDataTable ) channel.getAttribute( CHANNEL_KEY );
+
+        if ( table != null ) {
+            channel.removeAttribute( CHANNEL_KEY );
+            table.clear();
+        }
+
+    }
+
+    synchronized void clear() {
+        for ( RequestData data : requests.values() ) {
+            remove( data );
+            LEAKED.incrementAndGet();
+        }
+        order.clear();
+    }
+
+    synchronized int size() {
+        return requests.size();
+    }
+
+    private void expire( long now ) {
+
+        RequestData eldest;
+
+        while ( ( eldest = order.peek() ) != null ) {
+            if ( eldest.removed ) {
+                order.poll();
+            } else if ( eldest.expireTime <= now ) {
+                order.poll();
+                remove( eldest );
+                LEAKED.incrementAndGet();
+            } else {
+                break;
+            }
+        }
+
+    }
+
+    private void remove( RequestData data ) {
+        requests.remove( data.key );
+        data.removed = true;
+        OUTSTANDING.decrementAndGet();
+    }
+
+    /**
+     * @return requests decoded but not answered yet, in all channels.
+     */
+    public static long getOutstanding() {
+        return OUTSTANDING.get();
+    }
+
+    /**
+     * @return requests evicted because the table of the channel is full.
+     */
+    public static long getEvicted() {
+        return EVICTED.get();
+    }
+
+    /**
+     * @return requests expired or replaced without being answered.
+     */
+    public static long getLeaked() {
+        return LEAKED.get();
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.alibaba.dubbo.rpc.protocol.thrift;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.alibaba.dubbo.remoting.Channel;
+
+/**
+ * Per connection dictionary of the service names in the dubbo header
+ * ({@link ThriftCodec#VERSION_SERVICE_ID}).
+ * <p>
+ * The consumer assigns the ids. Until a reply carrying the id is received, the request
+ * defines it (the id with {@link #DEFINITION_FLAG}, followed by the name), afterwards only
+ * the id is sent. The provider keeps the names defined by the consumer and replies with the id.
+ * </p>
+ */
+final class ServiceIdTable {
+
+    static final short DEFINITION_FLAG = ( short ) 0x8000;
+
+    static final int MAX_ID = 0x7fff;
+
+    private static final String CHANNEL_KEY = ServiceIdTable.class.getName();
+
+    // consumer side, the provider accepts VERSION_SERVICE_ID
+    private volatile boolean accepted;
+
+    // consumer side
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+    private String[] names = new String[16];
+
+    // consumer side, the provider knows the name
+    private boolean[] confirmed = new boolean[16];
+
+    static ServiceIdTable getTable( Channel channel, boolean create ) {
+
+        ServiceIdTable table = ( ServiceIdTable ) channel.getAttribute( CHANNEL_KEY );
+
+        if ( table == null && create ) {
+            synchronized ( channel ) {
+                table = ( ServiceIdTable ) channel.getAttribute( CHANNEL_KEY );
+                if ( table == null ) {
+                    table = new ServiceIdTable();
+                    channel.setAttribute( CHANNEL_KEY, table );
+                }
+            }
+        }
+
+        return table;
+
+    }
+
+    boolean isAccepted() {
+        return accepted;
+    }
+
+    void setAccepted() {
+        accepted = true;
+    }
+
+    /**
+     * @return the id of the service name, assigned on first use, or -1 if the table is full.
+     */
+    synchronized int getId( String name ) {
+
+        Integer id = ids.get( name );
+
+        if ( id == null ) {
+            if ( ids.size() >= MAX_ID ) {
+                return -1;
+            }
+            id = ids.size() + 1;
+            ids.put( name, id );
+            ensureCapacity( id );
+            names[id] = name;
+        }
+
+        return id;
+
+    }
+
+    synchronized boolean isConfirmed( int id ) {
+        return id < confirmed.length && confirmed[id];
+    }
+
+    synchronized void confirm( int id ) {
+        if ( id < confirmed.length ) {
+            confirmed[id] = true;
+        }
+    }
+
+    /**
+     * provider side, the name defined by the consumer.
+     */
+    synchronized void define( int id, String name ) {
+        ensureCapacity( id );
+        names[id] = name;
+    }
+
+    synchronized String getName( int id ) {
+        return id > 0 && id < names.length ? names[id] : null;
+    }
+
+    private void ensureCapacity( int id ) {
+        if ( id >= names.length ) {
+            int length = Math.max( names.length << 1, id + 1 );
+            names = Arrays.copyOf( names, length );
+            confirmed = Arrays.copyOf( confirmed, length );
+        }
+    }
+
+}
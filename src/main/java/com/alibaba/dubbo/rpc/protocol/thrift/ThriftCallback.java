@@ -0,0 +1,67 @@
+package com.alibaba.dubbo.rpc.protocol.thrift;
+
+import java.util.concurrent.Future;
+
+import com.alibaba.dubbo.remoting.exchange.ResponseCallback;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.protocol.dubbo.FutureAdapter;
+
+/**
+ * Callback of an asynchronous thrift invocation, invoked by the thread receiving the response.
+ * <pre>
+ * helloService.sayHello( "world" ); // async="true"
+ * ThriftCallback.listen( RpcContext.getContext().&lt;String&gt;getFuture(), new ThriftCallback&lt;String&gt;() {
+ *     public void onSuccess( String result ) { ... }
+ *     public void onFailure( Throwable exception ) { ... }
+ * } );
+ * </pre>
+ */
+public abstract class ThriftCallback<T> implements ResponseCallback {
+
+    /**
+     * register the callback on the future returned by <code>RpcContext.getFuture()</code>,
+     * it is invoked at once if the response has been received already.
+     */
+    public static <T> void listen( Future<T> future, ThriftCallback<T> callback ) {
+
+        if ( !( future instanceof FutureAdapter ) ) {
+            throw new IllegalArgumentException(
+                    new StringBuilder( 32 )
+                            .append( "Could not listen to " )
+                            .append( future )
+                            .append( ", the invocation may not be asynchronous." )
+                            .toString() );
+        }
+
+        ( ( FutureAdapter<T> ) future ).getFuture().setCallback( callback );
+
+    }
+
+    public abstract void onSuccess( T result );
+
+    public abstract void onFailure( Throwable exception );
+
+    @SuppressWarnings( "unchecked" )
+    public final void done( Object response ) {
+
+        if ( !( response instanceof Result ) ) {
+            onFailure( new RpcException( "Invalid response " + response + ", expected " + Result.class.getName() ) );
+            return;
+        }
+
+        Result result = ( Result ) response;
+
+        if ( result.hasException() ) {
+            onFailure( result.getException() );
+        } else {
+            onSuccess( ( T ) result.getValue() );
+        }
+
+    }
+
+    public final void caught( Throwable exception ) {
+        onFailure( exception );
+    }
+
+}
@@ -15,11 +15,8 @@ package com.alibaba.dubbo.rpc.protocol.thrift;
 
 
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -28,28 +25,29 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.thrift.TApplicationException;
 import org.apache.thrift.TBase;
 import org.apache.thrift.TException;
-import org.apache.thrift.TFieldIdEnum;
 import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
 import org.apache.thrift.protocol.TMessage;
 import org.apache.thrift.protocol.TMessageType;
 import org.apache.thrift.protocol.TProtocol;
-import org.apache.thrift.transport.TFramedTransport;
-import org.apache.thrift.transport.TIOStreamTransport;
+import org.apache.thrift.protocol.TProtocolUtil;
+import org.apache.thrift.protocol.TType;
+import org.apache.thrift.transport.TTransport;
 
 import com.alibaba.dubbo.common.Constants;
-import com.alibaba.dubbo.common.extension.ExtensionLoader;
-import com.alibaba.dubbo.common.utils.ClassHelper;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
 import com.alibaba.dubbo.remoting.Channel;
 import com.alibaba.dubbo.remoting.Codec2;
 import com.alibaba.dubbo.remoting.buffer.ChannelBuffer;
-import com.alibaba.dubbo.remoting.buffer.ChannelBufferInputStream;
 import com.alibaba.dubbo.remoting.exchange.Request;
 import com.alibaba.dubbo.remoting.exchange.Response;
 import com.alibaba.dubbo.remoting.telnet.codec.TelnetCodec;
 import com.alibaba.dubbo.rpc.RpcException;
 import com.alibaba.dubbo.rpc.RpcInvocation;
 import com.alibaba.dubbo.rpc.RpcResult;
-import com.alibaba.dubbo.rpc.protocol.thrift.io.RandomAccessByteArrayOutputStream;
+import com.alibaba.dubbo.rpc.protocol.thrift.io.ChannelBufferTransport;
 
 /**
  * Thrift framed protocol codec.
@@ -63,24 +61,50 @@ import com.alibaba.dubbo.rpc.protocol.thrift.io.RandomAccessByteArrayOutputStrea
  * </pre>
  *
  * <p>
- * <b>header fields in version 1</b>
+ * <b>header fields in version 1 and 2</b>
  * <ol>
  *     <li>string - service name</li>
  *     <li>long   - dubbo request id</li>
  * </ol>
  * </p>
  *
+ * <p>
+ * <b>header fields in version 3</b>
+ * <ol>
+ *     <li>short  - service id, the high bit is set if the service name follows</li>
+ *     <li>string - service name, only when the id is defined</li>
+ *     <li>long   - dubbo request id</li>
+ * </ol>
+ * </p>
+ *
+ * <p>
+ * Providers reply to version 1 requests in version 2, then the consumer sends version 3 requests
+ * on the connection (see {@link ServiceIdTable}). Disabled by <code>thrift.service.id=false</code>.
+ * </p>
+ *
+ * <p>
+ * The header is always binary encoded, the message body uses the protocol configured by
+ * <code>thrift.protocol</code> (<code>binary</code> or <code>compact</code>). Native messages
+ * (<code>thrift_native=true</code>) have no header and are prefixed with the 4 bytes frame size
+ * only if <code>thrift.transport=framed</code>.
+ * </p>
+ *
  * @author <a href="mailto:gang.lvg@alibaba-inc.com">gang.lvg</a>
  */
 public class ThriftCodec implements Codec2 {
 
+    private static final Logger logger = LoggerFactory.getLogger( ThriftCodec.class );
+
     private static final AtomicInteger THRIFT_SEQ_ID = new AtomicInteger( 0 );
 
-    private static final ConcurrentMap<String, Class<?>> cachedClass =
-            new ConcurrentHashMap<String, Class<?>>();
+    private static final int MAX_INTERNED_NAMES = 4096;
+
+    private static final ConcurrentMap<String, String> internedNames =
+            new ConcurrentHashMap<String, String>();
 
-    static final ConcurrentMap<Long, RequestData> cachedRequest =
-            new ConcurrentHashMap<Long, RequestData>();
+    // port -> multiplexed service name -> service interface
+    private static final ConcurrentMap<Integer, ConcurrentMap<String, String>> multiplexedServices =
+            new ConcurrentHashMap<Integer, ConcurrentMap<String, String>>();
 
     public static final int MESSAGE_LENGTH_INDEX = 2;
 
@@ -94,6 +118,12 @@ public class ThriftCodec implements Codec2 {
 
     public static final byte VERSION = (byte)1;
 
+    // header of VERSION, sent by the providers accepting VERSION_SERVICE_ID
+    public static final byte VERSION_SERVICE_ID_ACCEPTED = (byte)2;
+
+    // service name replaced by its id in the ServiceIdTable of the connection
+    public static final byte VERSION_SERVICE_ID = (byte)3;
+
     public static final short MAGIC = (short) 0xdabc;
     
     //telnet解码器（原来是不支持的）
@@ -126,9 +156,8 @@ public class ThriftCodec implements Codec2 {
 
     public Object decode( Channel channel, ChannelBuffer buffer ) throws IOException {
 
-    	//原生thrift调用,从url提取isNative和接口方法（注意：只能配置一个service服务）
-    	boolean isNative = Boolean.valueOf(channel.getUrl().getParameter("thrift_native"));
-    	String serviceInterface = channel.getUrl().getServiceInterface();
+    	//原生thrift调用,从url提取isNative（multiplexed模式下可以在一个端口上暴露多个service服务）
+    	boolean isNative = channel.getUrl().getParameter(ThriftConstants.NATIVE_KEY, false);
     	
         int available = buffer.readableBytes();
 
@@ -140,7 +169,23 @@ public class ThriftCodec implements Codec2 {
 
         } else {
 
-            TIOStreamTransport transport = new TIOStreamTransport( new ChannelBufferInputStream(buffer));
+            //dubbo header报文总是带有frame size，原生报文在framed transport下才有
+            if ( !isNative || isFramed( channel.getUrl() ) ) {
+
+                // check the whole frame before parsing anything
+                int frameSize = getFrameSize( buffer );
+
+                if ( frameSize < 0 ) {
+                    throw new IOException( "Invalid frame size " + frameSize );
+                }
+
+                if ( available < frameSize + 4 ) { return DecodeResult.NEED_MORE_INPUT; }
+
+                buffer.skipBytes( 4 );
+            }
+
+            // read in place from the buffer, no InputStream copy
+            ChannelBufferTransport transport = new ChannelBufferTransport( buffer );
 
             TBinaryProtocol protocol = new TBinaryProtocol( transport );
 
@@ -148,7 +193,6 @@ public class ThriftCodec implements Codec2 {
             if (!isNative)
             {
             	   short magic;
-                   int messageLength;
 
                    try{
                    	
@@ -160,11 +204,8 @@ public class ThriftCodec implements Codec2 {
        				 * |<-                                               message size                                          ->|
                    	 */
                    	
-//                       protocol.readI32(); // skip the first message length
-                       byte[] bytes = new byte[4];
-                       transport.read( bytes, 0, 4 );
                        magic = protocol.readI16();
-                       messageLength = protocol.readI32();
+                       protocol.readI32();//message size, the same as frame size
 
                    } catch ( TException e ) {
                        throw new IOException( e.getMessage(), e );
@@ -178,21 +219,20 @@ public class ThriftCodec implements Codec2 {
                                              .append( magic )
                                              .toString() );
                    }
-
-                   if ( available < messageLength ) { return  DecodeResult.NEED_MORE_INPUT; }
             }
 
-            return decode( protocol ,isNative ,serviceInterface);
+            return decode( channel, protocol, newProtocol( channel.getUrl(), transport ), isNative );
 
         }
 
     }
 
-    private Object decode( TProtocol protocol ,boolean isNative ,String serviceInterface )
+    private Object decode( Channel channel, TProtocol header, TProtocol protocol, boolean isNative )
             throws IOException {
 
         // version
         String serviceName;
+        int serviceId = 0;
         long id;
 
         TMessage message;
@@ -201,16 +241,45 @@ public class ThriftCodec implements Codec2 {
         	
         	if (isNative)
         	{
-        		serviceName = serviceInterface;
         		message = protocol.readMessageBegin();
         		id = message.seqid;//id不正确，会导致client报错
+        		int index = message.name.indexOf( ThriftConstants.MULTIPLEXED_SEPARATOR );
+        		if ( index > 0 && channel.getUrl().getParameter( ThriftConstants.MULTIPLEXED_KEY, false ) ) {
+        		    // TMultiplexedProtocol: "Service:method"
+        		    serviceName = getMultiplexedService(
+        		            channel.getLocalAddress().getPort(), message.name.substring( 0, index ) );
+        		    message = new TMessage( message.name.substring( index + 1 ), message.type, message.seqid );
+        		} else {
+        		    //只能配置一个service服务
+        		    serviceName = channel.getUrl().getServiceInterface();
+        		}
         	}
         	else
         	{
-        		 protocol.readI16();//跳过header size
-                 protocol.readByte();//跳过版本
-                 serviceName = protocol.readString();
-                 id = protocol.readI64();
+        		 header.readI16();//跳过header size
+                 byte version = header.readByte();
+                 if ( version == VERSION_SERVICE_ID ) {
+                     ServiceIdTable table = ServiceIdTable.getTable( channel, true );
+                     short value = header.readI16();
+                     serviceId = value & ServiceIdTable.MAX_ID;
+                     if ( ( value & ServiceIdTable.DEFINITION_FLAG ) != 0 ) {
+                         serviceName = intern( header.readString() );
+                         table.define( serviceId, serviceName );
+                     } else {
+                         serviceName = table.getName( serviceId );
+                         if ( serviceName == null ) {
+                             throw new IOException( "Unknown service id " + serviceId + ", channel: " + channel );
+                         }
+                         // a reply with the id, the provider knows the name
+                         table.confirm( serviceId );
+                     }
+                 } else {
+                     serviceName = intern( header.readString() );
+                     if ( version == VERSION_SERVICE_ID_ACCEPTED && isServiceIdEnabled( channel.getUrl() ) ) {
+                         ServiceIdTable.getTable( channel, true ).setAccepted();
+                     }
+                 }
+                 id = header.readI64();
                  message = protocol.readMessageBegin();
         	}
         	
@@ -219,96 +288,43 @@ public class ThriftCodec implements Codec2 {
             throw new IOException( e.getMessage(), e );
         }
 
-        if ( message.type == TMessageType.CALL ) {
+        if ( message.type == TMessageType.CALL || message.type == TMessageType.ONEWAY ) {
 
-            RpcInvocation result = new RpcInvocation();
-            result.setAttachment(Constants.INTERFACE_KEY, serviceName );
-            result.setMethodName( message.name );
+            ThriftMethod method = ThriftMethodRegistry.getMethod( serviceName, message.name, channel.getUrl() );
 
-            String argsClassName = ExtensionLoader.getExtensionLoader(ClassNameGenerator.class)
-                    .getExtension(ThriftClassNameGenerator.NAME).generateArgsClassName( serviceName, message.name );
-
-            if ( StringUtils.isEmpty( argsClassName ) ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION,
-                                        "The specified interface name incorrect." );
-            }
-
-            Class clazz = cachedClass.get( argsClassName );
+            Request request = new Request( id );
+            request.setDecodeTime( System.nanoTime() );
 
-            if ( clazz == null ) {
+            if ( method == null ) {
+                // skip the arguments, the request is answered with the error
                 try {
-
-                    clazz = ClassHelper.forNameWithThreadContextClassLoader( argsClassName );
-
-                    cachedClass.putIfAbsent( argsClassName, clazz );
-
-                } catch ( ClassNotFoundException e ) {
-                    throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
+                    TProtocolUtil.skip( protocol, TType.STRUCT );
+                    protocol.readMessageEnd();
+                } catch ( TException e ) {
+                    throw new IOException( e.getMessage(), e );
                 }
+                request.setBroken( true );
+                request.setData( new RpcException(
+                        new StringBuilder( 32 )
+                                .append( "Unknown method " )
+                                .append( message.name )
+                                .append( " of service " )
+                                .append( serviceName )
+                                .toString() ) );
+            } else {
+                request.setData( decodeInvocation( method, protocol ) );
             }
 
-            TBase args;
-
-            try {
-                args = ( TBase ) clazz.newInstance();
-            } catch ( InstantiationException e ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-            } catch ( IllegalAccessException e ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-            }
-
-            try{
-                args.read( protocol );
-                protocol.readMessageEnd();
-            } catch ( TException e ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-            }
-
-            List<Object> parameters = new ArrayList<Object>();
-            List<Class<?>> parameterTypes =new ArrayList<Class<?>>();
-            int index = 1;
-
-            while ( true ) {
-
-                TFieldIdEnum fieldIdEnum = args.fieldForId( index++ );
-
-                if ( fieldIdEnum == null ) { break; }
-
-                String fieldName = fieldIdEnum.getFieldName();
-
-                String getMethodName = ThriftUtils.generateGetMethodName( fieldName );
-
-                Method getMethod;
-
-                try {
-                    getMethod = clazz.getMethod( getMethodName );
-                } catch ( NoSuchMethodException e ) {
-                    throw new RpcException(
-                            RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-                }
-
-                parameterTypes.add( getMethod.getReturnType() );
-                try {
-                    parameters.add( getMethod.invoke( args ) );
-                } catch ( IllegalAccessException e ) {
-                    throw new RpcException(
-                            RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-                } catch ( InvocationTargetException e ) {
-                    throw new RpcException(
-                            RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-                }
-
+            if ( message.type == TMessageType.ONEWAY ) {
+                // no response will be encoded
+                request.setTwoWay( false );
+            } else {
+                RequestData data = RequestData.create( message.seqid, serviceName, message.name );
+                data.serviceId = serviceId;
+                data.method = method;
+                RequestDataTable.getTable( channel, true ).put( id, data );
             }
 
-            result.setArguments( parameters.toArray() );
-            result.setParameterTypes(parameterTypes.toArray(new Class[parameterTypes.size()]));
-
-            Request request = new Request( id );
-            request.setData( result );
-
-            cachedRequest.putIfAbsent( id,
-                                       RequestData.create( message.seqid, serviceName, message.name ) );
-
             return request;
 
         } else if ( message.type == TMessageType.EXCEPTION ) {
@@ -336,42 +352,22 @@ public class ThriftCodec implements Codec2 {
 
         } else if ( message.type == TMessageType.REPLY ) {
 
-            String resultClassName = ExtensionLoader.getExtensionLoader( ClassNameGenerator.class )
-                    .getExtension(ThriftClassNameGenerator.NAME).generateResultClassName( serviceName, message.name );
+            ThriftMethod method = ThriftMethodRegistry.getMethod( serviceName, message.name, channel.getUrl() );
 
-            if ( StringUtils.isEmpty( resultClassName ) ) {
+            if ( method == null || method.isOneway() ) {
                 throw new IllegalArgumentException(
                         new StringBuilder( 32 )
-                                .append( "Could not infer service result class name from service name " )
+                                .append( "Could not find thrift result of method " )
+                                .append( message.name )
+                                .append( " in service " )
                                 .append( serviceName )
                                 .append( ", the service name you specified may not generated by thrift idl compiler" )
                                 .toString() );
             }
 
-            Class<?> clazz = cachedClass.get( resultClassName );
+            ThriftStructAccessor accessor = method.getResultAccessor();
 
-            if ( clazz == null ) {
-
-                try {
-
-                    clazz = ClassHelper.forNameWithThreadContextClassLoader( resultClassName );
-
-                    cachedClass.putIfAbsent( resultClassName, clazz );
-
-                } catch ( ClassNotFoundException e ) {
-                    throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-                }
-
-            }
-
-            TBase<?,? extends TFieldIdEnum> result;
-            try {
-                result = ( TBase<?,?> ) clazz.newInstance();
-            } catch ( InstantiationException e ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-            } catch ( IllegalAccessException e ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-            }
+            TBase result = accessor.newInstance();
 
             try {
                 result.read( protocol );
@@ -380,34 +376,7 @@ public class ThriftCodec implements Codec2 {
                 throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
             }
 
-            Object realResult = null;
-
-            int index = 0;
-
-            while ( true ) {
-
-                TFieldIdEnum fieldIdEnum = result.fieldForId( index++ );
-
-                if ( fieldIdEnum == null ) { break ; }
-
-                Field field;
-
-                try {
-                    field = clazz.getDeclaredField( fieldIdEnum.getFieldName() );
-                    field.setAccessible( true );
-                } catch ( NoSuchFieldException e ) {
-                    throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-                }
-
-                try {
-                    realResult = field.get( result );
-                } catch ( IllegalAccessException e ) {
-                    throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-                }
-
-                if ( realResult != null ) { break ; }
-
-            }
+            Object realResult = accessor.getSetFieldValue( result );
 
             Response response = new Response();
 
@@ -432,6 +401,29 @@ public class ThriftCodec implements Codec2 {
 
     }
 
+    private RpcInvocation decodeInvocation( ThriftMethod method, TProtocol protocol ) {
+
+        ThriftStructAccessor accessor = method.getArgsAccessor();
+
+        TBase args = accessor.newInstance();
+
+        try{
+            args.read( protocol );
+            protocol.readMessageEnd();
+        } catch ( TException e ) {
+            throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
+        }
+
+        RpcInvocation result = new RpcInvocation();
+        result.setAttachment(Constants.INTERFACE_KEY, method.getServiceName() );
+        result.setMethodName( method.getMethodName() );
+        result.setArguments( accessor.getFieldValues( args ) );
+        result.setParameterTypes( accessor.getFieldTypes() );
+
+        return result;
+
+    }
+
     private void encodeRequest( Channel channel, ChannelBuffer buffer, Request request )
             throws IOException {
 
@@ -451,81 +443,29 @@ public class ThriftCodec implements Codec2 {
 
         TMessage message = new TMessage(
                 inv.getMethodName(),
-                TMessageType.CALL,
+                request.isTwoWay() ? TMessageType.CALL : TMessageType.ONEWAY,
                 seqId );
 
-        //获取thrift生成的client代码中特殊的类名字
-        String methodArgs = ExtensionLoader.getExtensionLoader( ClassNameGenerator.class )
-            .getExtension(channel.getUrl().getParameter(ThriftConstants.CLASS_NAME_GENERATOR_KEY, ThriftClassNameGenerator.NAME))//ThriftClassNameGenerator.NAME 这里改了 2016.6.1
-            .generateArgsClassName(serviceName, inv.getMethodName());
+        ThriftMethod method = ThriftMethodRegistry.getMethod( serviceName, inv.getMethodName(), channel.getUrl() );
 
-        if ( StringUtils.isEmpty( methodArgs ) ) {
+        if ( method == null ) {
             throw new RpcException( RpcException.SERIALIZATION_EXCEPTION,
                                     new StringBuilder(32).append(
                                             "Could not encode request, the specified interface may be incorrect." ).toString() );
         }
 
-        /**
-         * 把该类实例化成TBase后，执行相关的操作
-         */
-        Class<?> clazz = cachedClass.get( methodArgs );
-
-        if ( clazz == null ) {
+        ThriftStructAccessor accessor = method.getArgsAccessor();
 
-            try {
-
-                clazz = ClassHelper.forNameWithThreadContextClassLoader( methodArgs );
-
-                cachedClass.putIfAbsent( methodArgs, clazz );
-
-            } catch ( ClassNotFoundException e ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-            }
-
-        }
-
-        TBase args;
-
-        try {
-            args = (TBase) clazz.newInstance();
-        } catch ( InstantiationException e ) {
-            throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-        } catch ( IllegalAccessException e ) {
-            throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-        }
+        TBase args = accessor.newInstance();
 
         //thrift 规定性动作
-        for( int i = 0; i < inv.getArguments().length; i++ ) {
-
-            Object obj = inv.getArguments()[i];
-
-            if ( obj == null ) { continue; }
-
-            TFieldIdEnum field = args.fieldForId( i + 1 );
-
-            String setMethodName = ThriftUtils.generateSetMethodName( field.getFieldName() );
-
-            Method method;
-
-            try {
-                method = clazz.getMethod( setMethodName, inv.getParameterTypes()[i] );
-            } catch ( NoSuchMethodException e ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-            }
-
-            try {
-                method.invoke( args, obj );
-            } catch ( IllegalAccessException e ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-            } catch ( InvocationTargetException e ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-            }
-
+        Object[] arguments = inv.getArguments();
+        for( int i = 0; i < arguments.length; i++ ) {
+            accessor.setFieldValue( args, i, arguments[i] );
         }
 
-        RandomAccessByteArrayOutputStream bos = new RandomAccessByteArrayOutputStream( 1024 );
-
-        TIOStreamTransport transport = new TIOStreamTransport( bos );
+        // written straight into the buffer, sizes are filled in afterwards
+        ChannelBufferTransport transport = new ChannelBufferTransport( buffer );
 
         TBinaryProtocol protocol = new TBinaryProtocol( transport );
 
@@ -538,150 +478,113 @@ public class ThriftCodec implements Codec2 {
 		 * +----------------+----------------------+------------------+---------------------------+------------------+
 		 * |<-                                               message size                                          ->|
          */
-        
-        byte[] bytes = new byte[4];
+
+        int frameIndex = buffer.writerIndex();
+        int messageIndex = frameIndex + 4;
         try {
+            // frame size placeholder
+            protocol.writeI32( Integer.MAX_VALUE );
             // magic
             protocol.writeI16( MAGIC );
             // message length placeholder
             protocol.writeI32( Integer.MAX_VALUE );
             // message header length placeholder
             protocol.writeI16( Short.MAX_VALUE );
-            // version
-            protocol.writeByte( VERSION );
-            // service name
-            protocol.writeString( serviceName );
+            ServiceIdTable table = isServiceIdEnabled( channel.getUrl() )
+                    ? ServiceIdTable.getTable( channel, true ) : null;
+            int serviceId = table != null && table.isAccepted() ? table.getId( serviceName ) : -1;
+            if ( serviceId > 0 ) {
+                // version
+                protocol.writeByte( VERSION_SERVICE_ID );
+                // service id, with the name until the provider replied to it
+                if ( table.isConfirmed( serviceId ) ) {
+                    protocol.writeI16( ( short ) serviceId );
+                } else {
+                    protocol.writeI16( ( short ) ( serviceId | ServiceIdTable.DEFINITION_FLAG ) );
+                    protocol.writeString( serviceName );
+                }
+            } else {
+                // version
+                protocol.writeByte( VERSION );
+                // service name
+                protocol.writeString( serviceName );
+            }
             // dubbo request id
             protocol.writeI64( request.getId() );
-            protocol.getTransport().flush();
             // header size
-            headerLength = bos.size();
+            headerLength = buffer.writerIndex() - messageIndex;
 
             // message body
-            protocol.writeMessageBegin( message );
-            args.write( protocol );
-            protocol.writeMessageEnd();
-            protocol.getTransport().flush();
-            int oldIndex = messageLength = bos.size();
+            TProtocol body = newProtocol( channel.getUrl(), transport );
+            body.writeMessageBegin( message );
+            args.write( body );
+            body.writeMessageEnd();
+            messageLength = buffer.writerIndex() - messageIndex;
 
-            // fill in message length and header length
-            try {
-                TFramedTransport.encodeFrameSize( messageLength, bytes );
-                bos.setWriteIndex( MESSAGE_LENGTH_INDEX );
-                protocol.writeI32( messageLength );
-                bos.setWriteIndex( MESSAGE_HEADER_LENGTH_INDEX );
-                protocol.writeI16( ( short )( 0xffff & headerLength ) );
-            } finally {
-                bos.setWriteIndex( oldIndex );
-            }
+            // fill in frame size, message length and header length
+            setInt( buffer, frameIndex, messageLength );
+            setInt( buffer, messageIndex + MESSAGE_LENGTH_INDEX, messageLength );
+            setShort( buffer, messageIndex + MESSAGE_HEADER_LENGTH_INDEX, headerLength );
 
         } catch ( TException e ) {
             throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
         }
 
-        buffer.writeBytes(bytes);
-        buffer.writeBytes(bos.toByteArray());
-
     }
 
     private void encodeResponse( Channel channel, ChannelBuffer buffer, Response response )
             throws IOException {
 
-    	boolean isNative = Boolean.valueOf(channel.getUrl().getParameter("thrift_native"));
+    	boolean isNative = channel.getUrl().getParameter(ThriftConstants.NATIVE_KEY, false);
+    	boolean framed = !isNative || isFramed( channel.getUrl() );
     	
         RpcResult result = ( RpcResult ) response.getResult();
 
-        RequestData rd = cachedRequest.get( response.getId() );
-
-        //获得thrift生成client的代码中的类名
-        String resultClassName = ExtensionLoader.getExtensionLoader( ClassNameGenerator.class ).getExtension(
-                    channel.getUrl().getParameter(ThriftConstants.CLASS_NAME_GENERATOR_KEY, ThriftClassNameGenerator.NAME))
-                    .generateResultClassName(rd.serviceName, rd.methodName);
-
-        if ( StringUtils.isEmpty( resultClassName ) ) {
-            throw new RpcException( RpcException.SERIALIZATION_EXCEPTION,
-                                    new StringBuilder( 32 ).append(
-                                            "Could not encode response, the specified interface may be incorrect." ).toString() );
+        if ( result == null ) {
+            // e.g. service not found, the error message is carried by the response
+            result = new RpcResult( new RpcException( response.getErrorMessage() ) );
         }
 
-        Class clazz = cachedClass.get( resultClassName );
-
-        if ( clazz == null ) {
-
-            try {
-                clazz = ClassHelper.forNameWithThreadContextClassLoader(resultClassName);
-                cachedClass.putIfAbsent( resultClassName, clazz );
-            } catch ( ClassNotFoundException e ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-            }
-
-        }
+        RequestDataTable table = RequestDataTable.getTable( channel, false );
 
-        TBase resultObj;
+        RequestData rd = table == null ? null : table.remove( response.getId() );
 
-        try {
-            resultObj = ( TBase ) clazz.newInstance();
-        } catch ( InstantiationException e ) {
-            throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-        } catch ( IllegalAccessException e ) {
-            throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
+        if ( rd == null ) {
+            // expired or evicted, the thrift message can not be built any more
+            logger.warn( "Drop response " + response.getId() + " to " + channel.getRemoteAddress()
+                                 + ", the request is expired or evicted." );
+            return;
         }
 
         TApplicationException applicationException = null;
+        TBase resultObj = null;
         TMessage message;
 
-        if ( result.hasException() ) {
+        if ( rd.method == null || rd.method.isOneway() ) {
+            // rejected by decode, or a oneway method called two-way, there is no result struct
+            applicationException = new TApplicationException( TApplicationException.UNKNOWN_METHOD,
+                    result.hasException() ? result.getException().getMessage()
+                            : "Oneway method " + rd.methodName + " has no result" );
+        } else if ( result.hasException() ) {
+            ThriftStructAccessor accessor = rd.method.getResultAccessor();
+            resultObj = accessor.newInstance();
             Throwable throwable = result.getException();
-            int index = 1;
-            boolean found = false;
-            while ( true ) {
-                TFieldIdEnum fieldIdEnum = resultObj.fieldForId( index++ );
-                if ( fieldIdEnum == null ) { break; }
-                String fieldName = fieldIdEnum.getFieldName();
-                String getMethodName = ThriftUtils.generateGetMethodName( fieldName );
-                String setMethodName = ThriftUtils.generateSetMethodName( fieldName );
-                Method getMethod;
-                Method setMethod;
-                try {
-                    getMethod = clazz.getMethod( getMethodName );
-                    if ( getMethod.getReturnType().equals( throwable.getClass() ) ) {
-                        found = true;
-                        setMethod = clazz.getMethod( setMethodName, throwable.getClass() );
-                        setMethod.invoke( resultObj, throwable );
-                    }
-                } catch ( NoSuchMethodException e ) {
-                    throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-                } catch ( InvocationTargetException e ) {
-                    throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-                } catch ( IllegalAccessException e ) {
-                    throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-                }
-            }
-
-            if ( !found ) {
+            // declared exception field, result field id is 0
+            int index = accessor.indexOf( throwable.getClass() );
+            if ( index >= 0 && accessor.getFieldIds()[index] != 0 ) {
+                accessor.setFieldValue( resultObj, index, throwable );
+            } else {
                 applicationException = new TApplicationException( throwable.getMessage() );
             }
 
         } else {//thrift规定动作
-            Object realResult = result.getResult();
-            // result field id is 0
-            String fieldName = resultObj.fieldForId( 0 ).getFieldName();
-            String setMethodName = ThriftUtils.generateSetMethodName( fieldName );
-            String getMethodName = ThriftUtils.generateGetMethodName( fieldName );
-            Method getMethod;
-            Method setMethod;
-            try {
-                getMethod = clazz.getMethod( getMethodName );
-                setMethod = clazz.getMethod( setMethodName, getMethod.getReturnType() );
-                setMethod.invoke( resultObj, realResult );
-            } catch ( NoSuchMethodException e ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-            } catch ( InvocationTargetException e ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
-            } catch ( IllegalAccessException e ) {
-                throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
+            ThriftStructAccessor accessor = rd.method.getResultAccessor();
+            resultObj = accessor.newInstance();
+            // void method has no result field
+            int index = rd.method.getSuccessIndex();
+            if ( index >= 0 ) {
+                accessor.setFieldValue( resultObj, index, result.getResult() );
             }
-
         }
 
         if ( applicationException != null ) {
@@ -690,18 +593,21 @@ public class ThriftCodec implements Codec2 {
             message = new TMessage( rd.methodName, TMessageType.REPLY, rd.id );
         }
 
-        RandomAccessByteArrayOutputStream bos = new RandomAccessByteArrayOutputStream( 1024 );
-
-        TIOStreamTransport transport = new TIOStreamTransport( bos );
+        ChannelBufferTransport transport = new ChannelBufferTransport( buffer );
 
         TBinaryProtocol protocol = new TBinaryProtocol( transport );
 
         int messageLength;
-        int headerLength;
 
-        byte[] bytes = new byte[4];
+        int frameIndex = buffer.writerIndex();
+        int messageIndex = framed ? frameIndex + 4 : frameIndex;
         try {
-        	
+
+            if (framed)//原生非framed时不写frame size
+            {
+                protocol.writeI32( Integer.MAX_VALUE );
+            }
+
         	if (!isNative)//原生屏蔽掉
         	{
                 // magic
@@ -710,54 +616,187 @@ public class ThriftCodec implements Codec2 {
                 protocol.writeI32( Integer.MAX_VALUE );
                 // message header length
                 protocol.writeI16( Short.MAX_VALUE );
-                // version
-                protocol.writeByte( VERSION );
-                // service name
-                protocol.writeString( rd.serviceName );
+                if ( rd.serviceId > 0 ) {
+                    // version
+                    protocol.writeByte( VERSION_SERVICE_ID );
+                    // service id defined by the consumer
+                    protocol.writeI16( ( short ) rd.serviceId );
+                } else {
+                    // version, tells the consumer to send service ids
+                    protocol.writeByte( isServiceIdEnabled( channel.getUrl() ) ? VERSION_SERVICE_ID_ACCEPTED : VERSION );
+                    // service name
+                    protocol.writeString( rd.serviceName );
+                }
                 // id
                 protocol.writeI64( response.getId() );
-                protocol.getTransport().flush();
+                // header size
+                setShort( buffer, messageIndex + MESSAGE_HEADER_LENGTH_INDEX,
+                          buffer.writerIndex() - messageIndex );
         	}
 
-            headerLength = bos.size();
             // message
-            protocol.writeMessageBegin( message );
+            TProtocol body = newProtocol( channel.getUrl(), transport );
+            body.writeMessageBegin( message );
             switch ( message.type ) {
                 case TMessageType.EXCEPTION:
-                    applicationException.write( protocol );
+                    applicationException.write( body );
                     break;
                 case TMessageType.REPLY:
-                    resultObj.write( protocol );
+                    resultObj.write( body );
                     break;
             }
-            protocol.writeMessageEnd();
-            protocol.getTransport().flush();
-            int oldIndex = messageLength = bos.size();
-
-            try{
-            	
-            	if (!isNative)//原生屏蔽掉
-            	{
-            		 TFramedTransport.encodeFrameSize( messageLength, bytes );
-                     bos.setWriteIndex( MESSAGE_LENGTH_INDEX );
-                     protocol.writeI32( messageLength );
-                     bos.setWriteIndex( MESSAGE_HEADER_LENGTH_INDEX );
-                     protocol.writeI16( ( short ) ( 0xffff & headerLength ) );
-            	}
-               
-            } finally {
-                bos.setWriteIndex( oldIndex );
+            body.writeMessageEnd();
+            messageLength = buffer.writerIndex() - messageIndex;
+
+            if (framed)
+            {
+                setInt( buffer, frameIndex, messageLength );
+            }
+
+            if (!isNative)//原生屏蔽掉
+            {
+                setInt( buffer, messageIndex + MESSAGE_LENGTH_INDEX, messageLength );
             }
 
         } catch ( TException e ) {
             throw new RpcException( RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e );
         }
 
-        if (!isNative)//原生屏蔽掉
-    	{
-        	buffer.writeBytes(bytes);
-    	}
-        buffer.writeBytes(bos.toByteArray());
+    }
+
+    /**
+     * Create the protocol of message body, configured by <code>thrift.protocol</code>.
+     * The dubbo header is always written in binary protocol.
+     */
+    static TProtocol newProtocol( URL url, TTransport transport ) throws IOException {
+
+        String protocol = url.getParameter( ThriftConstants.THRIFT_PROTOCOL_KEY,
+                                            ThriftConstants.DEFAULT_PROTOCOL );
+
+        if ( ThriftConstants.BINARY_THRIFT_PROTOCOL.equals( protocol ) ) {
+            return new BinaryProtocol( transport );
+        } else if ( ThriftConstants.COMPACT_THRIFT_PROTOCOL.equals( protocol ) ) {
+            return new CompactProtocol( transport );
+        }
+
+        throw new IOException( "Unsupported protocol type " + protocol );
+
+    }
+
+    static boolean isServiceIdEnabled( URL url ) {
+        return url.getParameter( ThriftConstants.SERVICE_ID_KEY, true );
+    }
+
+    /**
+     * the service names decoded from the header share one instance,
+     * so the service keys cached by name are found without comparing the chars.
+     */
+    static String intern( String name ) {
+
+        String interned = internedNames.get( name );
+
+        if ( interned == null ) {
+            if ( internedNames.size() >= MAX_INTERNED_NAMES ) {
+                return name;
+            }
+            interned = internedNames.putIfAbsent( name, name );
+            if ( interned == null ) {
+                interned = name;
+            }
+        }
+
+        return interned;
+
+    }
+
+    static boolean isFramed( URL url ) {
+
+        String transport = url.getParameter( ThriftConstants.THRIFT_TRANSPORT_KEY,
+                                             ThriftConstants.DEFAULT_TRANSPORT );
+
+        if ( ThriftConstants.FRAMED_THRIFT_TRANSPORT.equals( transport ) ) {
+            return true;
+        } else if ( ThriftConstants.UNFRAMED_THRIFT_TRANSPORT.equals( transport ) ) {
+            return false;
+        }
+
+        throw new IllegalArgumentException( "Unsupported transport type " + transport );
+
+    }
+
+    static void setInt( ChannelBuffer buffer, int index, int value ) {
+        buffer.setByte( index, value >>> 24 );
+        buffer.setByte( index + 1, value >>> 16 );
+        buffer.setByte( index + 2, value >>> 8 );
+        buffer.setByte( index + 3, value );
+    }
+
+    private static void setShort( ChannelBuffer buffer, int index, int value ) {
+        buffer.setByte( index, value >>> 8 );
+        buffer.setByte( index + 1, value );
+    }
+
+    static int getFrameSize( ChannelBuffer buffer ) {
+        int index = buffer.readerIndex();
+        return ( ( buffer.getByte( index ) & 0xff ) << 24 )
+                | ( ( buffer.getByte( index + 1 ) & 0xff ) << 16 )
+                | ( ( buffer.getByte( index + 2 ) & 0xff ) << 8 )
+                | ( buffer.getByte( index + 3 ) & 0xff );
+    }
+
+    /**
+     * Register the names a multiplexed native client may use for the service exported on the port:
+     * the service interface name, the thrift service class name and its simple name,
+     * e.g. <code>com.foo.Hello$Iface</code>, <code>com.foo.Hello</code> and <code>Hello</code>.
+     * A simple name already taken by a service of another package stays with that service,
+     * the later one is reachable by its qualified names only.
+     */
+    static void addMultiplexedService( int port, String serviceInterface ) {
+
+        ConcurrentMap<String, String> services = multiplexedServices.get( port );
+
+        if ( services == null ) {
+            multiplexedServices.putIfAbsent( port, new ConcurrentHashMap<String, String>() );
+            services = multiplexedServices.get( port );
+        }
+
+        String serviceName = serviceInterface;
+        int index = serviceName.indexOf( "$" );
+        if ( index > 0 ) {
+            serviceName = serviceName.substring( 0, index );
+        }
+
+        services.put( serviceInterface, serviceInterface );
+        services.put( serviceName, serviceInterface );
+
+        String simpleName = serviceName.substring( serviceName.lastIndexOf( '.' ) + 1 );
+        String previous = services.putIfAbsent( simpleName, serviceInterface );
+        if ( previous != null && ! previous.equals( serviceInterface ) ) {
+            logger.warn( "Multiplexed service name " + simpleName + " on port " + port
+                    + " is already used by " + previous + ", clients of " + serviceInterface
+                    + " must use the qualified name " + serviceName );
+        }
+
+    }
+
+    static void removeMultiplexedService( int port, String serviceInterface ) {
+
+        ConcurrentMap<String, String> services = multiplexedServices.get( port );
+
+        if ( services != null ) {
+            services.values().removeAll( Collections.singleton( serviceInterface ) );
+        }
+
+    }
+
+    static String getMultiplexedService( int port, String name ) {
+
+        ConcurrentMap<String, String> services = multiplexedServices.get( port );
+
+        String serviceInterface = services == null ? null : services.get( name );
+
+        return serviceInterface == null ? name : serviceInterface;
+
     }
 
     private static int nextSeqId() {
@@ -773,6 +812,16 @@ public class ThriftCodec implements Codec2 {
         int id;
         String serviceName;
         String methodName;
+        // id of the service name in the dubbo header, 0 if sent by name
+        int serviceId;
+        // null if the method is unknown
+        ThriftMethod method;
+        // dubbo request id of the seqid, on the consumer side of native thrift
+        long requestId;
+        // maintained by RequestDataTable
+        long key;
+        long expireTime;
+        boolean removed;
 
         static RequestData create( int id, String sn, String mn ) {
             RequestData result = new RequestData();
@@ -784,4 +833,34 @@ public class ThriftCodec implements Codec2 {
 
     }
 
+    /**
+     * Binary fields read in place would still point into the channel buffer,
+     * which is reused once the message is decoded, so they are copied out.
+     */
+    private static class BinaryProtocol extends TBinaryProtocol {
+
+        BinaryProtocol( TTransport transport ) {
+            super( transport );
+        }
+
+        @Override
+        public ByteBuffer readBinary() throws TException {
+            return ChannelBufferTransport.copyOf( trans_, super.readBinary() );
+        }
+
+    }
+
+    private static class CompactProtocol extends TCompactProtocol {
+
+        CompactProtocol( TTransport transport ) {
+            super( transport );
+        }
+
+        @Override
+        public ByteBuffer readBinary() throws TException {
+            return ChannelBufferTransport.copyOf( trans_, super.readBinary() );
+        }
+
+    }
+
 }
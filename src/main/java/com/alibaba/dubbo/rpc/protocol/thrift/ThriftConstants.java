@@ -7,8 +7,22 @@ public final class ThriftConstants {
 
     public static final String THRIFT_PROTOCOL_KEY = "thrift.protocol";
     public static final String BINARY_THRIFT_PROTOCOL = "binary";
+    public static final String COMPACT_THRIFT_PROTOCOL = "compact";
+    public static final String THRIFT_TRANSPORT_KEY = "thrift.transport";
+    public static final String FRAMED_THRIFT_TRANSPORT = "framed";
+    public static final String UNFRAMED_THRIFT_TRANSPORT = "unframed";
+    public static final String DEFAULT_TRANSPORT = UNFRAMED_THRIFT_TRANSPORT;
     public static final String CLASS_NAME_GENERATOR_KEY = "class.name.generator";
     public static final String DEFAULT_PROTOCOL = BINARY_THRIFT_PROTOCOL;
+    public static final String NATIVE_KEY = "thrift_native";
+    public static final String MULTIPLEXED_KEY = "thrift_multiplexed";
+    public static final String MULTIPLEXED_SEPARATOR = ":";
+    public static final String MULTIPLEXED_SERVICE_KEY = "thrift_multiplexed_service";
+    public static final String SERVICE_ID_KEY = "thrift.service.id";
+    public static final String REQUEST_CAPACITY_KEY = "thrift.request.capacity";
+    public static final int DEFAULT_REQUEST_CAPACITY = 10000;
+    public static final String REQUEST_EXPIRE_KEY = "thrift.request.expire";
+    public static final int DEFAULT_REQUEST_EXPIRE = 60 * 1000;
     
     private ThriftConstants() {}
     
@@ -19,13 +19,17 @@ import com.alibaba.dubbo.common.utils.AtomicPositiveInteger;
 import com.alibaba.dubbo.remoting.RemotingException;
 import com.alibaba.dubbo.remoting.TimeoutException;
 import com.alibaba.dubbo.remoting.exchange.ExchangeClient;
+import com.alibaba.dubbo.remoting.exchange.ResponseFuture;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcContext;
 import com.alibaba.dubbo.rpc.RpcException;
 import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
 import com.alibaba.dubbo.rpc.protocol.AbstractInvoker;
+import com.alibaba.dubbo.rpc.protocol.dubbo.FutureAdapter;
+import com.alibaba.dubbo.rpc.support.RpcUtils;
 
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
@@ -80,12 +84,25 @@ public class ThriftInvoker<T> extends AbstractInvoker<T> {
         }
 
         try {
+            boolean isAsync = RpcUtils.isAsync(getUrl(), invocation);
+            boolean isOneway = RpcUtils.isOneway(getUrl(), invocation) || isOnewayMethod(methodName);
             int timeout = getUrl().getMethodParameter(
                     methodName, Constants.TIMEOUT_KEY,Constants.DEFAULT_TIMEOUT);
 
-            RpcContext.getContext().setFuture(null);
-
-            return (Result) currentClient.request(inv, timeout).get();
+            if (isOneway) {
+                // no response is sent back, so no future is registered
+                boolean isSent = getUrl().getMethodParameter(methodName, Constants.SENT_KEY, false);
+                currentClient.send(inv, isSent);
+                RpcContext.getContext().setFuture(null);
+                return new RpcResult();
+            } else if (isAsync) {
+                ResponseFuture future = currentClient.request(inv, timeout);
+                RpcContext.getContext().setFuture(new FutureAdapter<Object>(future));
+                return new RpcResult();
+            } else {
+                RpcContext.getContext().setFuture(null);
+                return (Result) currentClient.request(inv, timeout).get();
+            }
 
         } catch (TimeoutException e) {
             throw new RpcException(RpcException.TIMEOUT_EXCEPTION, e.getMessage(), e);
@@ -95,6 +112,14 @@ public class ThriftInvoker<T> extends AbstractInvoker<T> {
 
     }
 
+    /**
+     * thrift generates no <code>_result</code> class for the methods declared <code>oneway</code>.
+     */
+    private boolean isOnewayMethod(String methodName) {
+        ThriftMethod method = ThriftMethodRegistry.getMethod(getInterface().getName(), methodName, getUrl());
+        return method != null && method.isOneway();
+    }
+
     @Override
     public boolean isAvailable() {
 
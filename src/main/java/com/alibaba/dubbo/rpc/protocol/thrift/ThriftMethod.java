@@ -0,0 +1,53 @@
+package com.alibaba.dubbo.rpc.protocol.thrift;
+
+/**
+ * Thrift structs of a service method, resolved once by {@link ThriftMethodRegistry}.
+ */
+final class ThriftMethod {
+
+    private final String serviceName;
+
+    private final String methodName;
+
+    private final ThriftStructAccessor argsAccessor;
+
+    // null if the method is declared oneway
+    private final ThriftStructAccessor resultAccessor;
+
+    // index of the success field in the result, -1 if void
+    private final int successIndex;
+
+    ThriftMethod( String serviceName, String methodName,
+                  ThriftStructAccessor argsAccessor, ThriftStructAccessor resultAccessor ) {
+        this.serviceName = serviceName;
+        this.methodName = methodName;
+        this.argsAccessor = argsAccessor;
+        this.resultAccessor = resultAccessor;
+        this.successIndex = resultAccessor == null ? -1 : resultAccessor.indexOf( ( short ) 0 );
+    }
+
+    String getServiceName() {
+        return serviceName;
+    }
+
+    String getMethodName() {
+        return methodName;
+    }
+
+    ThriftStructAccessor getArgsAccessor() {
+        return argsAccessor;
+    }
+
+    ThriftStructAccessor getResultAccessor() {
+        return resultAccessor;
+    }
+
+    int getSuccessIndex() {
+        return successIndex;
+    }
+
+    boolean isOneway() {
+        return resultAccessor == null;
+    }
+
+}
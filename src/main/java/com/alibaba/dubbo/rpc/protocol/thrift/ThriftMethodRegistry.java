@@ -0,0 +1,108 @@
+package com.alibaba.dubbo.rpc.protocol.thrift;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.ExtensionLoader;
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
+import com.alibaba.dubbo.common.utils.ClassHelper;
+import com.alibaba.dubbo.common.utils.StringUtils;
+
+/**
+ * Service name -> method name -> {@link ThriftMethod}, filled when a service is exported or referred,
+ * so the codecs find the thrift structs of a message without building class names.
+ * <p>
+ * The class names are generated by the <code>class.name.generator</code> of the url registering
+ * the service first. Services neither exported nor referred are registered on first use.
+ * </p>
+ */
+final class ThriftMethodRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger( ThriftMethodRegistry.class );
+
+    private static final ConcurrentMap<String, Map<String, ThriftMethod>> SERVICES =
+            new ConcurrentHashMap<String, Map<String, ThriftMethod>>();
+
+    private ThriftMethodRegistry() {}
+
+    static void register( Class<?> serviceInterface, URL url ) {
+        if ( !SERVICES.containsKey( serviceInterface.getName() ) ) {
+            SERVICES.putIfAbsent( serviceInterface.getName(), resolve( serviceInterface, url ) );
+        }
+    }
+
+    /**
+     * @return the method, or null if the service or the method is unknown.
+     */
+    static ThriftMethod getMethod( String serviceName, String methodName, URL url ) {
+
+        Map<String, ThriftMethod> methods = SERVICES.get( serviceName );
+
+        if ( methods == null ) {
+            Class<?> serviceInterface;
+            try {
+                serviceInterface = ClassHelper.forNameWithThreadContextClassLoader( serviceName );
+            } catch ( ClassNotFoundException e ) {
+                return null;
+            }
+            register( serviceInterface, url );
+            methods = SERVICES.get( serviceName );
+        }
+
+        return methods.get( methodName );
+
+    }
+
+    private static Map<String, ThriftMethod> resolve( Class<?> serviceInterface, URL url ) {
+
+        ClassNameGenerator generator = ExtensionLoader.getExtensionLoader( ClassNameGenerator.class )
+                .getExtension( url.getParameter( ThriftConstants.CLASS_NAME_GENERATOR_KEY, ThriftClassNameGenerator.NAME ) );
+
+        String serviceName = serviceInterface.getName();
+
+        Map<String, ThriftMethod> methods = new HashMap<String, ThriftMethod>();
+
+        for ( Method method : serviceInterface.getMethods() ) {
+
+            Class<?> argsClass = forName( generator.generateArgsClassName( serviceName, method.getName() ) );
+
+            if ( argsClass == null ) {
+                if ( logger.isWarnEnabled() ) {
+                    logger.warn( "Could not find thrift args class of method " + method.getName()
+                                         + " in service " + serviceName + ", the method is ignored." );
+                }
+                continue;
+            }
+
+            // no result class is generated for oneway methods
+            Class<?> resultClass = forName( generator.generateResultClassName( serviceName, method.getName() ) );
+
+            methods.put( method.getName(), new ThriftMethod(
+                    serviceName, method.getName(),
+                    ThriftStructAccessor.getAccessor( argsClass ),
+                    resultClass == null ? null : ThriftStructAccessor.getAccessor( resultClass ) ) );
+
+        }
+
+        return Collections.unmodifiableMap( methods );
+
+    }
+
+    private static Class<?> forName( String className ) {
+        if ( StringUtils.isEmpty( className ) ) {
+            return null;
+        }
+        try {
+            return ClassHelper.forNameWithThreadContextClassLoader( className );
+        } catch ( ClassNotFoundException e ) {
+            return null;
+        }
+    }
+
+}
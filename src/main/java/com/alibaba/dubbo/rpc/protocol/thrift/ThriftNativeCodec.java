@@ -3,30 +3,56 @@ package com.alibaba.dubbo.rpc.protocol.thrift;
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.thrift.TApplicationException;
+import org.apache.thrift.TBase;
 import org.apache.thrift.TException;
-import org.apache.thrift.protocol.TBinaryProtocol;
 import org.apache.thrift.protocol.TMessage;
 import org.apache.thrift.protocol.TMessageType;
 import org.apache.thrift.protocol.TProtocol;
-import org.apache.thrift.protocol.TStruct;
-import org.apache.thrift.transport.TIOStreamTransport;
+import org.apache.thrift.protocol.TProtocolUtil;
+import org.apache.thrift.protocol.TType;
+import org.apache.thrift.transport.TTransportException;
 
+import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.logger.Logger;
+import com.alibaba.dubbo.common.logger.LoggerFactory;
 import com.alibaba.dubbo.remoting.Channel;
 import com.alibaba.dubbo.remoting.Codec2;
 import com.alibaba.dubbo.remoting.buffer.ChannelBuffer;
-import com.alibaba.dubbo.remoting.buffer.ChannelBufferOutputStream;
 import com.alibaba.dubbo.remoting.exchange.Request;
 import com.alibaba.dubbo.remoting.exchange.Response;
 import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.alibaba.dubbo.rpc.protocol.thrift.ThriftCodec.RequestData;
+import com.alibaba.dubbo.rpc.protocol.thrift.io.ChannelBufferTransport;
 
 /**
+ * Consumer side codec of plain thrift servers (<code>thrift_native=true</code>), the messages
+ * have no dubbo header.
+ * <p>
+ * The thrift seqid of every request is mapped to its dubbo request id in the {@link RequestDataTable}
+ * of the channel, so the replies complete the right <code>DefaultFuture</code> and many calls can be
+ * in flight on one connection. <code>TApplicationException</code> and the exceptions declared in the
+ * idl are returned as the exception of the result.
+ * </p>
+ * <p>
+ * The body is encoded by <code>thrift.protocol</code> and framed by <code>thrift.transport</code>,
+ * with <code>thrift_multiplexed=true</code> the method name is prefixed by
+ * <code>thrift_multiplexed_service</code> (the thrift service class name by default).
+ * </p>
+ *
  * @author <a href="mailto:gang.lvg@alibaba-inc.com">kimi</a>
  */
 public class ThriftNativeCodec implements Codec2 {
-    
+
+    private static final Logger logger = LoggerFactory.getLogger(ThriftNativeCodec.class);
+
+    public static final String NAME = "thriftnative";
+
     private final AtomicInteger thriftSeq = new AtomicInteger(0);
-    
+
     public void encode(Channel channel, ChannelBuffer buffer, Object message)
         throws IOException {
         if (message instanceof Request) {
@@ -41,39 +67,176 @@ public class ThriftNativeCodec implements Codec2 {
 
     protected void encodeRequest(Channel channel, ChannelBuffer buffer, Request request)
         throws IOException {
+
+        if (request.isEvent()) {
+            // heartbeat and readonly events are unknown to thrift servers
+            return;
+        }
+
+        URL url = channel.getUrl();
         Invocation invocation = (Invocation) request.getData();
-        TProtocol protocol = newProtocol(channel.getUrl(), buffer);
+        String serviceName = getServiceName(url);
+        String methodName = invocation.getMethodName();
+
+        ThriftStructAccessor accessor = getMethod(url, serviceName, methodName).getArgsAccessor();
+        TBase args = accessor.newInstance();
+        Object[] arguments = invocation.getArguments();
+        for (int i = 0; i < arguments.length; i++) {
+            accessor.setFieldValue(args, i, arguments[i]);
+        }
+
+        String name = methodName;
+        if (url.getParameter(ThriftConstants.MULTIPLEXED_KEY, false)) {
+            name = url.getParameter(ThriftConstants.MULTIPLEXED_SERVICE_KEY, getThriftServiceName(serviceName))
+                    + ThriftConstants.MULTIPLEXED_SEPARATOR + methodName;
+        }
+
+        int seqId = thriftSeq.incrementAndGet();
+        boolean framed = ThriftCodec.isFramed(url);
+        int frameIndex = buffer.writerIndex();
+
+        ChannelBufferTransport transport = new ChannelBufferTransport(buffer);
+        TProtocol protocol = ThriftCodec.newProtocol(url, transport);
         try {
+            if (framed) {
+                // frame size placeholder
+                transport.write(new byte[4], 0, 4);
+            }
             protocol.writeMessageBegin(new TMessage(
-                invocation.getMethodName(), TMessageType.CALL, 
-                thriftSeq.getAndIncrement()));
-            protocol.writeStructBegin(new TStruct(invocation.getMethodName() + "_args"));
-            for(int i = 0; i < invocation.getParameterTypes().length; i++) {
-                Class<?> type = invocation.getParameterTypes()[i];
+                name, request.isTwoWay() ? TMessageType.CALL : TMessageType.ONEWAY, seqId));
+            args.write(protocol);
+            protocol.writeMessageEnd();
+        } catch (TException e) {
+            throw new RpcException(RpcException.SERIALIZATION_EXCEPTION, e.getMessage(), e);
+        }
+
+        if (framed) {
+            ThriftCodec.setInt(buffer, frameIndex, buffer.writerIndex() - frameIndex - 4);
+        }
+
+        if (request.isTwoWay()) {
+            // the request is sent after it is encoded, so the reply always finds it
+            RequestData data = RequestData.create(seqId, serviceName, methodName);
+            data.requestId = request.getId();
+            RequestDataTable.getTable(channel, true).put(seqId, data);
+        }
+
+    }
+
+    protected void encodeResponse(Channel channel, ChannelBuffer buffer, Response response)
+        throws IOException {
+        throw new IOException("Unsupported message type " + Response.class.getName()
+                                  + ", " + NAME + " codec is used by thrift consumers only, channel: " + channel);
+    }
+
+    public Object decode(Channel channel, ChannelBuffer buffer) throws IOException {
 
+        URL url = channel.getUrl();
+        int available = buffer.readableBytes();
+        boolean framed = ThriftCodec.isFramed(url);
+
+        if (framed) {
+            if (available < 4) {
+                return DecodeResult.NEED_MORE_INPUT;
+            }
+            int frameSize = ThriftCodec.getFrameSize(buffer);
+            if (frameSize < 0) {
+                throw new IOException("Invalid frame size " + frameSize);
+            }
+            if (available < frameSize + 4) {
+                return DecodeResult.NEED_MORE_INPUT;
+            }
+            buffer.skipBytes(4);
+        }
+
+        TProtocol protocol = ThriftCodec.newProtocol(url, new ChannelBufferTransport(buffer));
+
+        try {
+            return decode(channel, protocol);
+        } catch (TTransportException e) {
+            if (!framed && e.getType() == TTransportException.END_OF_FILE) {
+                // partial unframed message
+                return DecodeResult.NEED_MORE_INPUT;
             }
+            throw new IOException(e.getMessage(), e);
         } catch (TException e) {
             throw new IOException(e.getMessage(), e);
         }
 
     }
 
-    protected void encodeResponse(Channel channel, ChannelBuffer buffer, Response response)
-        throws IOException {
+    private Object decode(Channel channel, TProtocol protocol) throws TException, IOException {
+
+        TMessage message = protocol.readMessageBegin();
+
+        String methodName = message.name;
+        int index = methodName.indexOf(ThriftConstants.MULTIPLEXED_SEPARATOR);
+        if (index >= 0) {
+            methodName = methodName.substring(index + 1);
+        }
+
+        RpcResult result = new RpcResult();
+
+        if (message.type == TMessageType.EXCEPTION) {
+            result.setException(TApplicationException.read(protocol));
+        } else if (message.type == TMessageType.REPLY) {
+            ThriftMethod method = getMethod(channel.getUrl(), getServiceName(channel.getUrl()), methodName);
+            if (method.isOneway()) {
+                throw new IOException("Unexpected reply of oneway method " + methodName + ", channel: " + channel);
+            }
+            ThriftStructAccessor accessor = method.getResultAccessor();
+            TBase resultObj = accessor.newInstance();
+            resultObj.read(protocol);
+            Object value = accessor.getSetFieldValue(resultObj);
+            if (value instanceof Throwable) {
+                // exception declared in the idl
+                result.setException((Throwable) value);
+            } else if (value == null && method.getSuccessIndex() >= 0) {
+                result.setException(new TApplicationException(TApplicationException.MISSING_RESULT,
+                                                              methodName + " failed: unknown result"));
+            } else {
+                result.setValue(value);
+            }
+        } else {
+            TProtocolUtil.skip(protocol, TType.STRUCT);
+            protocol.readMessageEnd();
+            throw new IOException("Unexpected thrift message type " + message.type
+                                      + " of " + message.name + ", channel: " + channel);
+        }
+
+        protocol.readMessageEnd();
+
+        RequestDataTable table = RequestDataTable.getTable(channel, false);
+        RequestData data = table == null ? null : table.remove(message.seqid);
+
+        if (data == null) {
+            logger.warn("Discard the reply of " + message.name + " with unknown seqid " + message.seqid
+                            + ", the request may be timeout, channel: " + channel);
+            return null;
+        }
+
+        Response response = new Response(data.requestId);
+        response.setResult(result);
+        return response;
 
     }
 
-    public Object decode(Channel channel, ChannelBuffer buffer) throws IOException {
-        return null;
+    private static String getServiceName(URL url) {
+        return url.getParameter(Constants.INTERFACE_KEY, url.getPath());
+    }
+
+    private static String getThriftServiceName(String serviceName) {
+        int index = serviceName.indexOf('$');
+        return index > 0 ? serviceName.substring(0, index) : serviceName;
     }
 
-    protected static TProtocol newProtocol(URL url, ChannelBuffer buffer) throws IOException {
-        String protocol = url.getParameter(ThriftConstants.THRIFT_PROTOCOL_KEY,
-                                           ThriftConstants.DEFAULT_PROTOCOL);
-        if (ThriftConstants.BINARY_THRIFT_PROTOCOL.equals(protocol)) {
-            return new TBinaryProtocol(new TIOStreamTransport(new ChannelBufferOutputStream(buffer)));
+    private static ThriftMethod getMethod(URL url, String serviceName, String methodName) {
+        ThriftMethod method = ThriftMethodRegistry.getMethod(serviceName, methodName, url);
+        if (method == null) {
+            throw new RpcException(RpcException.SERIALIZATION_EXCEPTION,
+                                   "Could not find thrift method " + methodName + " in service " + serviceName);
         }
-        throw new IOException("Unsupported protocol type " + protocol);
+        return method;
     }
 
 }
@@ -51,6 +51,10 @@ public class ThriftProtocol extends AbstractProtocol {
     private final ConcurrentMap<String, ExchangeServer> serverMap =
             new ConcurrentHashMap<String, ExchangeServer>();
 
+    // port -> service name -> service key, of the exported services
+    private final ConcurrentMap<Integer, ConcurrentMap<String, String>> serviceKeyMap =
+            new ConcurrentHashMap<Integer, ConcurrentMap<String, String>>();
+
     private ExchangeHandler handler = new ExchangeHandlerAdapter() {
 
         @Override
@@ -59,8 +63,7 @@ public class ThriftProtocol extends AbstractProtocol {
             if ( msg instanceof Invocation ) {
                 Invocation inv = ( Invocation ) msg;
                 String serviceName = inv.getAttachments().get(Constants.INTERFACE_KEY);
-                String serviceKey = serviceKey( channel.getLocalAddress().getPort(),
-                                                serviceName, null, null );
+                String serviceKey = getServiceKey( channel.getLocalAddress().getPort(), serviceName );
                 DubboExporter<?> exporter = (DubboExporter<?>) exporterMap.get( serviceKey );
                 if (exporter == null) {
                     throw new RemotingException(channel,
@@ -90,6 +93,12 @@ public class ThriftProtocol extends AbstractProtocol {
                                                 + channel.getLocalAddress());
         }
 
+        @Override
+        public void disconnected( Channel channel ) throws RemotingException {
+            RequestDataTable.removeTable( channel );
+            super.disconnected( channel );
+        }
+
         @Override
         public void received( Channel channel, Object message ) throws RemotingException {
             if ( message instanceof Invocation ) {
@@ -101,6 +110,31 @@ public class ThriftProtocol extends AbstractProtocol {
 
     };
 
+    /**
+     * the decoded service names are interned by the codec, so the cached keys are found by identity.
+     */
+    private String getServiceKey( int port, String serviceName ) {
+
+        ConcurrentMap<String, String> keys = serviceKeyMap.get( port );
+
+        String serviceKey = keys == null ? null : keys.get( serviceName );
+
+        if ( serviceKey == null ) {
+            serviceKey = serviceKey( port, serviceName, null, null );
+            // cache the keys of exported services only, the names come from the consumers
+            if ( exporterMap.containsKey( serviceKey ) ) {
+                if ( keys == null ) {
+                    serviceKeyMap.putIfAbsent( port, new ConcurrentHashMap<String, String>() );
+                    keys = serviceKeyMap.get( port );
+                }
+                keys.putIfAbsent( serviceName, serviceKey );
+            }
+        }
+
+        return serviceKey;
+
+    }
+
     public int getDefaultPort() {
         return DEFAULT_PORT;
     }
@@ -109,6 +143,8 @@ public class ThriftProtocol extends AbstractProtocol {
 
         // 只能使用 thrift codec
         URL url = invoker.getUrl().addParameter(Constants.CODEC_KEY, ThriftCodec.NAME);
+        // resolve the thrift structs of the methods before the first request
+        ThriftMethodRegistry.register(invoker.getInterface(), url);
         // find server.
         String key = url.getAddress();
         //client 也可以暴露一个只有server可以调用的服务。
@@ -118,7 +154,23 @@ public class ThriftProtocol extends AbstractProtocol {
         }
         // export service.
         key = serviceKey(url);
-        DubboExporter<T> exporter = new DubboExporter<T>(invoker, key, exporterMap);
+        DubboExporter<T> exporter;
+        //原生multiplexed模式，一个端口暴露多个service服务
+        if (url.getParameter(ThriftConstants.NATIVE_KEY, false)
+                && url.getParameter(ThriftConstants.MULTIPLEXED_KEY, false)) {
+            final int port = url.getPort();
+            final String serviceInterface = url.getServiceInterface();
+            ThriftCodec.addMultiplexedService(port, serviceInterface);
+            exporter = new DubboExporter<T>(invoker, key, exporterMap) {
+                @Override
+                public void unexport() {
+                    super.unexport();
+                    ThriftCodec.removeMultiplexedService(port, serviceInterface);
+                }
+            };
+        } else {
+            exporter = new DubboExporter<T>(invoker, key, exporterMap);
+        }
         exporterMap.put(key, exporter);
 
         return exporter;
@@ -128,6 +180,8 @@ public class ThriftProtocol extends AbstractProtocol {
 
         super.destroy();
 
+        serviceKeyMap.clear();
+
         for (String key : new ArrayList<String>(serverMap.keySet())) {
 
             ExchangeServer server = serverMap.remove(key);
@@ -149,6 +203,8 @@ public class ThriftProtocol extends AbstractProtocol {
 
     public <T> Invoker<T> refer( Class<T> type, URL url ) throws RpcException {
 
+        ThriftMethodRegistry.register( type, url );
+
         ThriftInvoker<T> invoker = new ThriftInvoker<T>(type, url, getClients(url), invokers);
 
         invokers.add(invoker);
@@ -173,10 +229,16 @@ public class ThriftProtocol extends AbstractProtocol {
 
         ExchangeClient client ;
 
-        url = url.addParameter( Constants.CODEC_KEY, ThriftCodec.NAME );
+        //原生thrift服务端，不带dubbo header
+        if ( url.getParameter( ThriftConstants.NATIVE_KEY, false ) ) {
+            url = url.addParameter( Constants.CODEC_KEY, ThriftNativeCodec.NAME );
+        } else {
+            url = url.addParameter( Constants.CODEC_KEY, ThriftCodec.NAME );
+        }
 
         try {
-            client = Exchangers.connect( url );
+            // handler drops the seqid table of the disconnected channel
+            client = Exchangers.connect( url, handler );
         } catch ( RemotingException e ) {
             throw new RpcException( "Fail to create remoting client for service(" + url
                                             + "): " + e.getMessage(), e );
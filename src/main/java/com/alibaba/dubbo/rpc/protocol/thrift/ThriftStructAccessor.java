@@ -0,0 +1,268 @@
+package com.alibaba.dubbo.rpc.protocol.thrift;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.thrift.TBase;
+import org.apache.thrift.TFieldIdEnum;
+import org.apache.thrift.meta_data.FieldMetaData;
+
+import com.alibaba.dubbo.common.bytecode.ClassGenerator;
+import com.alibaba.dubbo.common.utils.ClassHelper;
+import com.alibaba.dubbo.common.utils.ReflectUtils;
+
+/**
+ * Generated accessor of thrift <code>xxx_args</code> / <code>xxx_result</code> structs.
+ * <p>
+ * One accessor class is generated (with {@link ClassGenerator}, the same way as
+ * {@link com.alibaba.dubbo.common.bytecode.Wrapper}) per struct class and cached, so the codec
+ * can read and fill arguments and results without getter name building, method lookups
+ * or reflective invocation on every message.
+ * </p>
+ * Fields are indexed in thrift field id order.
+ */
+public abstract class ThriftStructAccessor {
+
+    private static final AtomicLong ACCESSOR_CLASS_COUNTER = new AtomicLong( 0 );
+
+    private static final Map<Class<?>, ThriftStructAccessor> ACCESSOR_MAP =
+            new ConcurrentHashMap<Class<?>, ThriftStructAccessor>();
+
+    /**
+     * get accessor.
+     *
+     * @param c thrift generated struct class.
+     * @return accessor instance(not null).
+     */
+    public static ThriftStructAccessor getAccessor( Class<?> c ) {
+
+        ThriftStructAccessor ret = ACCESSOR_MAP.get( c );
+
+        if ( ret == null ) {
+            ret = makeAccessor( c );
+            ACCESSOR_MAP.put( c, ret );
+        }
+
+        return ret;
+
+    }
+
+    /**
+     * new struct instance.
+     *
+     * @return struct instance.
+     */
+    abstract public TBase newInstance();
+
+    /**
+     * get thrift field ids, in field id order.
+     *
+     * @return field id array.
+     */
+    abstract public short[] getFieldIds();
+
+    /**
+     * get field types, in field id order.
+     *
+     * @return field type array.
+     */
+    abstract public Class<?>[] getFieldTypes();
+
+    /**
+     * get all field values, in field id order.
+     *
+     * @param struct struct instance.
+     * @return field value array, primitive value boxed.
+     */
+    abstract public Object[] getFieldValues( TBase struct );
+
+    /**
+     * get the value of the first field which is set.
+     *
+     * @param struct struct instance.
+     * @return field value or null.
+     */
+    abstract public Object getSetFieldValue( TBase struct );
+
+    /**
+     * set field value.
+     *
+     * @param struct struct instance.
+     * @param index field index (not the thrift field id).
+     * @param value field value, null is ignored for primitive fields.
+     */
+    abstract public void setFieldValue( TBase struct, int index, Object value );
+
+    /**
+     * get index of the field with the thrift field id.
+     *
+     * @param id thrift field id.
+     * @return field index or -1.
+     */
+    public int indexOf( short id ) {
+        short[] ids = getFieldIds();
+        for ( int i = 0; i < ids.length; i++ ) {
+            if ( ids[i] == id ) { return i; }
+        }
+        return -1;
+    }
+
+    /**
+     * get index of the field whose type is exactly the type.
+     *
+     * @param type field type.
+     * @return field index or -1.
+     */
+    public int indexOf( Class<?> type ) {
+        Class<?>[] types = getFieldTypes();
+        for ( int i = 0; i < types.length; i++ ) {
+            if ( types[i] == type ) { return i; }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static ThriftStructAccessor makeAccessor( Class<?> c ) {
+
+        if ( !TBase.class.isAssignableFrom( c ) ) {
+            throw new IllegalArgumentException( "Can not create thrift accessor for non TBase type: " + c );
+        }
+
+        String name = ReflectUtils.getName( c );
+
+        List<Map.Entry<? extends TFieldIdEnum, FieldMetaData>> fields =
+                new ArrayList<Map.Entry<? extends TFieldIdEnum, FieldMetaData>>(
+                        FieldMetaData.getStructMetaDataMap( ( Class<? extends TBase> ) c ).entrySet() );
+        Collections.sort( fields, new Comparator<Map.Entry<? extends TFieldIdEnum, FieldMetaData>>() {
+            public int compare( Map.Entry<? extends TFieldIdEnum, FieldMetaData> o1,
+                                Map.Entry<? extends TFieldIdEnum, FieldMetaData> o2 ) {
+                return o1.getKey().getThriftFieldId() - o2.getKey().getThriftFieldId();
+            }
+        } );
+
+        int size = fields.size();
+        short[] ids = new short[size];
+        Class<?>[] types = new Class<?>[size];
+
+        StringBuilder c1 = new StringBuilder( "public Object[] getFieldValues(org.apache.thrift.TBase s){ " );
+        StringBuilder c2 = new StringBuilder( "public Object getSetFieldValue(org.apache.thrift.TBase s){ " );
+        StringBuilder c3 = new StringBuilder( "public void setFieldValue(org.apache.thrift.TBase s, int i, Object v){ " );
+
+        c1.append( name ).append( " w = (" ).append( name ).append( ")$1; Object[] r = new Object[" )
+                .append( size ).append( "];" );
+        c2.append( name ).append( " w = (" ).append( name ).append( ")$1;" );
+        c3.append( name ).append( " w = (" ).append( name ).append( ")$1;" );
+
+        for ( int i = 0; i < size; i++ ) {
+
+            String fieldName = fields.get( i ).getKey().getFieldName();
+            Method getter = getGetter( c, fieldName );
+            Class<?> type = getter.getReturnType();
+            String setter = ThriftUtils.generateSetMethodName( fieldName );
+            String isSet = "isSet" + setter.substring( 3 );
+
+            try {
+                c.getMethod( setter, type );
+                c.getMethod( isSet );
+            } catch ( NoSuchMethodException e ) {
+                throw new IllegalArgumentException( e.getMessage(), e );
+            }
+
+            ids[i] = fields.get( i ).getKey().getThriftFieldId();
+            types[i] = type;
+
+            c1.append( " r[" ).append( i ).append( "] = ($w)w." ).append( getter.getName() ).append( "();" );
+            c2.append( " if( w." ).append( isSet ).append( "() ) return ($w)w." ).append( getter.getName() ).append( "();" );
+            c3.append( " if( $2 == " ).append( i ).append( " ){" );
+            if ( type.isPrimitive() ) {
+                c3.append( " if( $3 != null ) " );
+            }
+            c3.append( " w." ).append( setter ).append( "(" ).append( arg( type, "$3" ) ).append( "); return; }" );
+
+        }
+
+        c1.append( " return r; }" );
+        c2.append( " return null; }" );
+        c3.append( " throw new IllegalArgumentException(\"Field index \" + $2 + \" out of bounds in struct " )
+                .append( c.getName() ).append( ".\"); }" );
+
+        long id = ACCESSOR_CLASS_COUNTER.getAndIncrement();
+        ClassGenerator cc = ClassGenerator.newInstance( ClassHelper.getCallerClassLoader( ThriftStructAccessor.class ) );
+        cc.setClassName( ( Modifier.isPublic( c.getModifiers() )
+                ? ThriftStructAccessor.class.getName() : c.getName() + "$sa" ) + id );
+        cc.setSuperClass( ThriftStructAccessor.class );
+
+        cc.addDefaultConstructor();
+        cc.addField( "public static short[] ids;" );
+        cc.addField( "public static Class[] types;" );
+
+        cc.addMethod( "public org.apache.thrift.TBase newInstance(){ return new " + name + "(); }" );
+        cc.addMethod( "public short[] getFieldIds(){ return ids; }" );
+        cc.addMethod( "public Class[] getFieldTypes(){ return types; }" );
+        cc.addMethod( c1.toString() );
+        cc.addMethod( c2.toString() );
+        cc.addMethod( c3.toString() );
+
+        try {
+            Class<?> ac = cc.toClass();
+            ac.getField( "ids" ).set( null, ids );
+            ac.getField( "types" ).set( null, types );
+            return ( ThriftStructAccessor ) ac.newInstance();
+        } catch ( RuntimeException e ) {
+            throw e;
+        } catch ( Throwable e ) {
+            throw new RuntimeException( e.getMessage(), e );
+        } finally {
+            cc.release();
+        }
+
+    }
+
+    private static Method getGetter( Class<?> c, String fieldName ) {
+
+        String getMethodName = ThriftUtils.generateGetMethodName( fieldName );
+
+        try {
+            return c.getMethod( getMethodName );
+        } catch ( NoSuchMethodException e ) {
+            // thrift names boolean getters isXxx
+            try {
+                return c.getMethod( "is" + getMethodName.substring( 3 ) );
+            } catch ( NoSuchMethodException ex ) {
+                throw new IllegalArgumentException( e.getMessage(), e );
+            }
+        }
+
+    }
+
+    private static String arg( Class<?> cl, String name ) {
+        if ( cl.isPrimitive() ) {
+            if ( cl == Boolean.TYPE )
+                return "((Boolean)" + name + ").booleanValue()";
+            if ( cl == Byte.TYPE )
+                return "((Byte)" + name + ").byteValue()";
+            if ( cl == Character.TYPE )
+                return "((Character)" + name + ").charValue()";
+            if ( cl == Double.TYPE )
+                return "((Number)" + name + ").doubleValue()";
+            if ( cl == Float.TYPE )
+                return "((Number)" + name + ").floatValue()";
+            if ( cl == Integer.TYPE )
+                return "((Number)" + name + ").intValue()";
+            if ( cl == Long.TYPE )
+                return "((Number)" + name + ").longValue()";
+            if ( cl == Short.TYPE )
+                return "((Number)" + name + ").shortValue()";
+            throw new RuntimeException( "Unknown primitive type: " + cl.getName() );
+        }
+        return "(" + ReflectUtils.getName( cl ) + ")" + name;
+    }
+
+}
@@ -24,6 +24,7 @@ import org.apache.thrift.protocol.TProtocolFactory;
 import org.apache.thrift.transport.TIOStreamTransport;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -34,6 +35,8 @@ public class MultiServiceProcessor implements TProcessor {
 
     private static final Logger logger = LoggerFactory.getLogger( MultiServiceProcessor.class );
 
+    private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
     private ConcurrentMap<String, TProcessor> processorMap = new ConcurrentHashMap<String, TProcessor>();
 
     private TProtocolFactory protocolFactory = new TBinaryProtocol.Factory();
@@ -55,6 +58,16 @@ public class MultiServiceProcessor implements TProcessor {
         in.readI32();
         in.readI16();
         byte version = in.readByte();
+
+        if ( version == ThriftCodec.VERSION_SERVICE_ID ) {
+            // never sent to this processor, it replies in the version of the request
+            logger.error(
+                    new StringBuilder( 24 )
+                            .append( "Unsupported version " )
+                            .append( version ).toString() );
+            return false;
+        }
+
         String serviceName = in.readString();
         long id = in.readI64();
 
@@ -78,23 +91,12 @@ public class MultiServiceProcessor implements TProcessor {
         // todo if exception
         boolean result = processor.process( in, protocol );
 
-        ByteArrayOutputStream header = new ByteArrayOutputStream( 512 );
-
-        TIOStreamTransport headerTransport = new TIOStreamTransport( header );
-
-        TProtocol headerProtocol = protocolFactory.getProtocol( headerTransport );
-
-        headerProtocol.writeI16( magic );
-        headerProtocol.writeI32( Integer.MAX_VALUE );
-        headerProtocol.writeI16( Short.MAX_VALUE );
-        headerProtocol.writeByte( version );
-        headerProtocol.writeString( serviceName );
-        headerProtocol.writeI64( id );
-        headerProtocol.getTransport().flush();
+        // magic, message size, header size, version, service name and id in binary protocol
+        int headerSize = 2 + 4 + 2 + 1 + 4 + serviceName.getBytes( UTF_8 ).length + 8;
 
         out.writeI16( magic );
-        out.writeI32( bos.size() + header.size() );
-        out.writeI16( ( short ) ( 0xffff & header.size() ) );
+        out.writeI32( bos.size() + headerSize );
+        out.writeI16( ( short ) ( 0xffff & headerSize ) );
         out.writeByte( version );
         out.writeString( serviceName );
         out.writeI64( id );
@@ -0,0 +1,92 @@
+package com.alibaba.dubbo.rpc.protocol.thrift.io;
+
+import java.nio.ByteBuffer;
+
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+
+import com.alibaba.dubbo.remoting.buffer.ChannelBuffer;
+
+/**
+ * Thrift transport reading from and writing to a {@link ChannelBuffer} directly.
+ * <p>
+ * When the buffer is backed by an array (heap buffers and the heap buffers received
+ * from netty), the array is exposed through {@link #getBuffer()}, so the protocols read
+ * numbers and strings from it in place instead of copying through an <code>InputStream</code>.
+ * </p>
+ */
+public class ChannelBufferTransport extends TTransport {
+
+    private final ChannelBuffer buffer;
+
+    public ChannelBufferTransport( ChannelBuffer buffer ) {
+        if ( buffer == null ) {
+            throw new NullPointerException( "buffer == null" );
+        }
+        this.buffer = buffer;
+    }
+
+    public ChannelBuffer getChannelBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public void open() throws TTransportException {}
+
+    @Override
+    public void close() {}
+
+    @Override
+    public int read( byte[] buf, int off, int len ) throws TTransportException {
+        int readable = buffer.readableBytes();
+        if ( readable <= 0 ) {
+            throw new TTransportException( TTransportException.END_OF_FILE, "No more data available." );
+        }
+        int size = Math.min( len, readable );
+        buffer.readBytes( buf, off, size );
+        return size;
+    }
+
+    @Override
+    public void write( byte[] buf, int off, int len ) throws TTransportException {
+        buffer.writeBytes( buf, off, len );
+    }
+
+    @Override
+    public byte[] getBuffer() {
+        return buffer.hasArray() ? buffer.array() : null;
+    }
+
+    @Override
+    public int getBufferPosition() {
+        return buffer.hasArray() ? buffer.arrayOffset() + buffer.readerIndex() : 0;
+    }
+
+    @Override
+    public int getBytesRemainingInBuffer() {
+        return buffer.hasArray() ? buffer.readableBytes() : -1;
+    }
+
+    @Override
+    public void consumeBuffer( int len ) {
+        buffer.skipBytes( len );
+    }
+
+    /**
+     * Copy the binary read by a protocol if it is a view of the transport buffer.
+     */
+    public static ByteBuffer copyOf( TTransport transport, ByteBuffer binary ) {
+        if ( binary.hasArray() && binary.array() == transport.getBuffer() ) {
+            byte[] bytes = new byte[binary.remaining()];
+            System.arraycopy( binary.array(), binary.arrayOffset() + binary.position(), bytes, 0, bytes.length );
+            return ByteBuffer.wrap( bytes );
+        }
+        return binary;
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.alibaba.dubbo.rpc.protocol.thrift.status;
+
+import com.alibaba.dubbo.common.extension.Activate;
+import com.alibaba.dubbo.common.status.Status;
+import com.alibaba.dubbo.common.status.StatusChecker;
+import com.alibaba.dubbo.rpc.protocol.thrift.RequestDataTable;
+
+/**
+ * Outstanding, evicted and leaked thrift requests of the provider.
+ */
+@Activate
+public class ThriftRequestStatusChecker implements StatusChecker {
+
+    public Status check() {
+        long outstanding = RequestDataTable.getOutstanding();
+        long evicted = RequestDataTable.getEvicted();
+        long leaked = RequestDataTable.getLeaked();
+        Status.Level level = evicted > 0 ? Status.Level.WARN : Status.Level.OK;
+        return new Status(level, "outstanding:" + outstanding
+                + ", evicted:" + evicted
+                + ", leaked:" + leaked);
+    }
+
+}
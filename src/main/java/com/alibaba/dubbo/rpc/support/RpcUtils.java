@@ -17,6 +17,7 @@ package com.alibaba.dubbo.rpc.support;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.alibaba.dubbo.common.Constants;
@@ -160,6 +161,24 @@ public class RpcUtils {
     	return isAsync;
     }
     
+    /**
+     * 返回Iterator或Iterable的方法，stream为true时结果分块返回
+     */
+    public static boolean isStream(URL url, Invocation inv) {
+    	boolean isStream ;
+    	//如果Java代码中设置优先.
+    	if (Boolean.TRUE.toString().equals(inv.getAttachment(Constants.STREAM_KEY))) {
+    		isStream = true;
+    	} else {
+	    	isStream = url.getMethodParameter(getMethodName(inv), Constants.STREAM_KEY, false);
+    	}
+    	if (! isStream) {
+    		return false;
+    	}
+    	Class<?> returnType = getReturnType(inv);
+    	return Iterator.class.equals(returnType) || Iterable.class.equals(returnType);
+    }
+    
     public static boolean isOneway(URL url, Invocation inv) {
     	boolean isOneway ;
     	//如果Java代码中设置优先.
@@ -0,0 +1,89 @@
+package com.alibaba.dubbo.common.threadpool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.ExtensionLoader;
+
+/**
+ * A burst of <code>tasks</code> providers blocking for <code>block</code> ms each, as on JDBC or
+ * a downstream call, run by the fixed pool and the virtual thread pool with the same
+ * <code>threads</code>. Without virtual threads (java &lt; 21) the virtual pool is the fixed one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreadPoolBenchmark {
+
+    @Param({ "fixed", "virtual" })
+    private String   threadpool;
+
+    @Param({ "200", "800" })
+    private int      threads;
+
+    @Param({ "2000" })
+    private int      tasks;
+
+    @Param({ "1" })
+    private int      block;
+
+    private Executor executor;
+
+    @Setup
+    public void setUp() {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/DemoService?threadpool=" + threadpool + "&threads=" + threads
+                              + "&queues=-1");
+        executor = ExtensionLoader.getExtensionLoader(ThreadPool.class).getAdaptiveExtension().getExecutor(url);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ((ExecutorService) executor).shutdownNow();
+    }
+
+    @Benchmark
+    public void burst() throws Exception {
+        final CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i ++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        Thread.sleep(block);
+                    } catch (InterruptedException e) {
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                           .include(ThreadPoolBenchmark.class.getSimpleName())
+                           .addProfiler("gc")
+                           .build()).run();
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.alibaba.dubbo.remoting;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.alibaba.dubbo.common.URL;
+
+/**
+ * Connected channel which keeps attributes and drops the messages, for benchmarks of codecs and futures.
+ */
+public class MockChannel implements Channel {
+
+    private final URL url;
+
+    private final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+
+    public MockChannel(URL url) {
+        this.url = url;
+    }
+
+    public URL getUrl() {
+        return url;
+    }
+
+    public ChannelHandler getChannelHandler() {
+        return null;
+    }
+
+    public InetSocketAddress getLocalAddress() {
+        return new InetSocketAddress("127.0.0.1", url.getPort());
+    }
+
+    public InetSocketAddress getRemoteAddress() {
+        return new InetSocketAddress("127.0.0.1", 50000);
+    }
+
+    public void send(Object message) {}
+
+    public void send(Object message, boolean sent) {}
+
+    public void close() {}
+
+    public void close(int timeout) {}
+
+    public boolean isClosed() {
+        return false;
+    }
+
+    public boolean isConnected() {
+        return true;
+    }
+
+    public boolean hasAttribute(String key) {
+        return attributes.containsKey(key);
+    }
+
+    public Object getAttribute(String key) {
+        return attributes.get(key);
+    }
+
+    public void setAttribute(String key, Object value) {
+        attributes.put(key, value);
+    }
+
+    public void removeAttribute(String key) {
+        attributes.remove(key);
+    }
+
+}
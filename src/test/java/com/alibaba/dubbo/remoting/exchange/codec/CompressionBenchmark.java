@@ -0,0 +1,93 @@
+package com.alibaba.dubbo.remoting.exchange.codec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.remoting.MockChannel;
+import com.alibaba.dubbo.remoting.buffer.ChannelBuffer;
+import com.alibaba.dubbo.remoting.buffer.ChannelBuffers;
+import com.alibaba.dubbo.remoting.exchange.Request;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.protocol.dubbo.DubboCodec;
+
+/**
+ * Encode and decode of a request carrying a list of <code>size</code> strings, raw or compressed
+ * by the <code>compressor</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"none", "deflate"})
+    private String compressor;
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private Channel channel;
+
+    private final DubboCodec codec = new DubboCodec();
+
+    private Request request;
+
+    private ChannelBuffer frame;
+
+    @Setup
+    public void setup() throws Exception {
+        channel = new MockChannel(URL.valueOf("dubbo://127.0.0.1:20880/" + List.class.getName()
+                + "?serialization=hessian2" + ("none".equals(compressor) ? "" : "&compressor=" + compressor)));
+        List<String> list = new ArrayList<String>();
+        for (int i = 0; i < size; i ++) {
+            list.add("item-" + i % 100 + "-" + (i * 31 % 7));
+        }
+        RpcInvocation invocation = new RpcInvocation("addAll", new Class<?>[] {Collection.class}, new Object[] {list});
+        invocation.setAttachment("path", List.class.getName());
+        invocation.setAttachment("version", "0.0.0");
+        request = new Request(1);
+        request.setData(invocation);
+        frame = ChannelBuffers.dynamicBuffer(1024);
+        codec.encode(channel, frame, request);
+    }
+
+    @Benchmark
+    public int encodeRequest() throws Exception {
+        ChannelBuffer out = ChannelBuffers.dynamicBuffer(1024);
+        codec.encode(channel, out, request);
+        return out.readableBytes();
+    }
+
+    @Benchmark
+    public Object decodeRequest() throws Exception {
+        frame.readerIndex(0);
+        return codec.decode(channel, frame);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                           .include(CompressionBenchmark.class.getSimpleName())
+                           .build()).run();
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.alibaba.dubbo.remoting.exchange.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.remoting.MockChannel;
+import com.alibaba.dubbo.remoting.buffer.ChannelBuffer;
+import com.alibaba.dubbo.remoting.buffer.ChannelBuffers;
+import com.alibaba.dubbo.remoting.buffer.DynamicChannelBuffer;
+import com.alibaba.dubbo.remoting.buffer.PooledChannelBufferFactory;
+import com.alibaba.dubbo.remoting.exchange.Request;
+import com.alibaba.dubbo.remoting.exchange.Response;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.alibaba.dubbo.rpc.protocol.dubbo.DubboCodec;
+
+/**
+ * Framing of the dubbo codec as done by the transport for every message: encode into a buffer
+ * of <code>heap</code> (unpooled dynamic buffer) or <code>pooled</code> arrays released after the
+ * write, and decode a request frame. The <code>heartbeat</code> message has next to no body, so its
+ * allocations are the ones of the codec itself. Run with <code>-prof gc</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeCodecBenchmark {
+
+    @Param({"heartbeat", "invocation"})
+    private String message;
+
+    @Param({"heap", "pooled"})
+    private String buffer;
+
+    private final Channel channel = new MockChannel(URL.valueOf(
+            "dubbo://127.0.0.1:20880/" + CharSequence.class.getName() + "?serialization=hessian2"));
+
+    private final DubboCodec codec = new DubboCodec();
+
+    private Request request;
+
+    private Response response;
+
+    private ChannelBuffer frame;
+
+    @Setup
+    public void setup() throws Exception {
+        request = new Request(1);
+        response = new Response(1);
+        if ("heartbeat".equals(message)) {
+            request.setEvent(Request.HEARTBEAT_EVENT);
+            response.setEvent(Response.HEARTBEAT_EVENT);
+        } else {
+            RpcInvocation invocation = new RpcInvocation("charAt", new Class<?>[] {int.class}, new Object[] {1});
+            invocation.setAttachment("path", CharSequence.class.getName());
+            invocation.setAttachment("version", "0.0.0");
+            request.setData(invocation);
+            response.setResult(new RpcResult("hello"));
+        }
+        frame = ChannelBuffers.dynamicBuffer(1024);
+        codec.encode(channel, frame, request);
+    }
+
+    @Benchmark
+    public int encodeRequest() throws Exception {
+        return encode(request);
+    }
+
+    @Benchmark
+    public int encodeResponse() throws Exception {
+        return encode(response);
+    }
+
+    @Benchmark
+    public Object decodeRequest() throws Exception {
+        frame.readerIndex(0);
+        return codec.decode(channel, frame);
+    }
+
+    private int encode(Object msg) throws Exception {
+        if ("pooled".equals(buffer)) {
+            PooledChannelBufferFactory factory = PooledChannelBufferFactory.getInstance();
+            ChannelBuffer out = new DynamicChannelBuffer(1024, factory);
+            codec.encode(channel, out, msg);
+            int length = out.readableBytes();
+            factory.release(out);
+            return length;
+        }
+        ChannelBuffer out = ChannelBuffers.dynamicBuffer(1024);
+        codec.encode(channel, out, msg);
+        return out.readableBytes();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                           .include(ExchangeCodecBenchmark.class.getSimpleName())
+                           .addProfiler("gc")
+                           .build()).run();
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.alibaba.dubbo.remoting.exchange.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.compress.support.DeflateCompressor;
+import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.remoting.MockChannel;
+import com.alibaba.dubbo.remoting.buffer.ChannelBuffer;
+import com.alibaba.dubbo.remoting.buffer.ChannelBuffers;
+import com.alibaba.dubbo.remoting.exchange.Request;
+import com.alibaba.dubbo.remoting.exchange.Response;
+import com.alibaba.dubbo.remoting.transport.CodecSupport;
+
+/**
+ * The bodies over <code>compressor.threshold</code> are compressed, the responses only for the
+ * consumers accepting the compressor.
+ */
+public class ExchangeCodecCompressionTest {
+
+    private static final int  THRESHOLD = 1024;
+
+    private final ExchangeCodec codec     = new ExchangeCodec();
+
+    @Test
+    public void testRequestBelowThreshold() throws Exception {
+        Channel consumer = newChannel("deflate");
+        String data = newData(THRESHOLD / 4);
+        ChannelBuffer frame = encode(consumer, newRequest(data));
+
+        assertEquals(0, getFlag(frame) & ExchangeCodec.FLAG_COMPRESSED);
+        // accepted for the responses all the same
+        assertEquals(DeflateCompressor.ID, frame.getByte(3));
+        assertEquals(data, ((Request) codec.decode(newChannel(null), frame)).getData());
+        assertEquals(0, frame.readableBytes());
+    }
+
+    @Test
+    public void testRequestAboveThreshold() throws Exception {
+        String data = newData(THRESHOLD * 16);
+        for (String name : new String[] {"deflate", "lz4", "snappy"}) {
+            Channel consumer = newChannel(name);
+            byte id = CodecSupport.getCompressor(consumer.getUrl()).getId();
+            ChannelBuffer frame = encode(consumer, newRequest(data));
+
+            assertTrue(name, (getFlag(frame) & ExchangeCodec.FLAG_COMPRESSED) != 0);
+            assertEquals(name, id, frame.getByte(ExchangeCodec.HEADER_LENGTH));
+            assertTrue(name, frame.readableBytes() < data.length());
+            assertEquals(name, data, ((Request) codec.decode(newChannel(null), frame)).getData());
+            assertEquals(name, 0, frame.readableBytes());
+        }
+    }
+
+    @Test
+    public void testResponseRawUnlessAccepted() throws Exception {
+        Channel provider = newChannel("deflate");
+        String data = newData(THRESHOLD * 16);
+
+        ChannelBuffer frame = encode(provider, newResponse(data));
+        assertEquals(0, getFlag(frame) & ExchangeCodec.FLAG_COMPRESSED);
+        assertEquals(data, ((Response) codec.decode(newChannel(null), frame)).getResult());
+
+        // a request of a consumer accepting deflate
+        codec.decode(provider, encode(newChannel("deflate"), newRequest("hello")));
+        frame = encode(provider, newResponse(data));
+        assertTrue((getFlag(frame) & ExchangeCodec.FLAG_COMPRESSED) != 0);
+        assertEquals(data, ((Response) codec.decode(newChannel(null), frame)).getResult());
+
+        // and of a consumer accepting none
+        codec.decode(provider, encode(newChannel(null), newRequest("hello")));
+        frame = encode(provider, newResponse(data));
+        assertEquals(0, getFlag(frame) & ExchangeCodec.FLAG_COMPRESSED);
+    }
+
+    @Test
+    public void testUnknownCompressor() throws Exception {
+        Channel consumer = newChannel("deflate");
+        String data = newData(THRESHOLD * 16);
+        ChannelBuffer frame = encode(consumer, newRequest(data));
+        frame.setByte(ExchangeCodec.HEADER_LENGTH, 0x7f);
+        codec.encode(consumer, frame, newRequest("hello"));
+
+        Channel provider = newChannel(null);
+        try {
+            codec.decode(provider, frame);
+            fail();
+        } catch (IOException expected) {
+        }
+        // the frame is skipped, the next one decoded
+        assertEquals("hello", ((Request) codec.decode(provider, frame)).getData());
+        assertEquals(0, frame.readableBytes());
+    }
+
+    private ChannelBuffer encode(Channel channel, Object message) throws IOException {
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(1024);
+        codec.encode(channel, buffer, message);
+        return buffer;
+    }
+
+    private static Channel newChannel(String compressor) {
+        return new MockChannel(URL.valueOf("dubbo://127.0.0.1:20880/test?serialization=hessian2&compressor.threshold="
+                + THRESHOLD + (compressor == null ? "" : "&compressor=" + compressor)));
+    }
+
+    private static int getFlag(ChannelBuffer frame) {
+        return frame.getByte(frame.readerIndex() + 2);
+    }
+
+    private static String newData(int length) {
+        StringBuilder buf = new StringBuilder(length);
+        for (int i = 0; buf.length() < length; i ++) {
+            buf.append("item-").append(i % 100).append(',');
+        }
+        return buf.toString();
+    }
+
+    private static Request newRequest(Object data) {
+        Request request = new Request();
+        request.setVersion("2.0.0");
+        request.setTwoWay(true);
+        request.setData(data);
+        return request;
+    }
+
+    private static Response newResponse(Object result) {
+        Response response = new Response(1, "2.0.0");
+        response.setResult(result);
+        return response;
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.alibaba.dubbo.remoting.exchange.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.remoting.MockChannel;
+import com.alibaba.dubbo.remoting.exchange.Request;
+import com.alibaba.dubbo.remoting.exchange.Response;
+import com.alibaba.dubbo.remoting.exchange.ResponseCallback;
+
+/**
+ * Life cycle of a {@link DefaultFuture} completed by the io thread: without waiter (async),
+ * with a callback, and read by the caller after completion (sync call with a fast response).
+ * Run with <code>-prof gc</code> for the allocations per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultFutureBenchmark {
+
+    private static final ResponseCallback CALLBACK = new ResponseCallback() {
+        public void done(Object response) {
+        }
+
+        public void caught(Throwable exception) {
+        }
+    };
+
+    private final Channel channel = new MockChannel(URL.valueOf("dubbo://127.0.0.1:20880/DemoService"));
+
+    private final Object result = new Object();
+
+    @Benchmark
+    public DefaultFuture async() {
+        DefaultFuture future = new DefaultFuture(channel, new Request(), 1000);
+        DefaultFuture.received(channel, response(future));
+        return future;
+    }
+
+    @Benchmark
+    public DefaultFuture callback() {
+        DefaultFuture future = new DefaultFuture(channel, new Request(), 1000);
+        future.setCallback(CALLBACK);
+        DefaultFuture.received(channel, response(future));
+        return future;
+    }
+
+    @Benchmark
+    public Object sync() throws Exception {
+        DefaultFuture future = new DefaultFuture(channel, new Request(), 1000);
+        DefaultFuture.received(channel, response(future));
+        return future.get();
+    }
+
+    private Response response(DefaultFuture future) {
+        Response response = new Response(future.getRequest().getId());
+        response.setResult(result);
+        return response;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                           .include(DefaultFutureBenchmark.class.getSimpleName())
+                           .addProfiler("gc")
+                           .build()).run();
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.alibaba.dubbo.remoting.exchange.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.remoting.ChannelHandler;
+import com.alibaba.dubbo.remoting.MockChannel;
+import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.remoting.exchange.Request;
+import com.alibaba.dubbo.remoting.exchange.Response;
+import com.alibaba.dubbo.remoting.transport.AbstractClient;
+import com.alibaba.dubbo.remoting.transport.ChannelHandlerAdapter;
+
+/**
+ * The requests of a client find their responses across reconnects.
+ */
+public class DefaultFutureTest {
+
+    private ReconnectClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        client = new ReconnectClient(URL.valueOf("dubbo://127.0.0.1:20880/test?reconnect=false&codec=exchange"));
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void testRequestWhileDisconnected() throws Exception {
+        client.disconnect();
+        Request request = newRequest();
+        DefaultFuture future = new DefaultFuture(client, request, 1000);
+
+        client.reconnect();
+        Channel channel = client.getConnection();
+        DefaultFuture.sent(channel, request);
+        DefaultFuture.received(channel, newResponse(request, "hello"));
+
+        assertTrue(future.isDone());
+        assertEquals("hello", future.get());
+    }
+
+    @Test
+    public void testReconnectBeforeSent() throws Exception {
+        Channel old = client.getConnection();
+        Request request = newRequest();
+        DefaultFuture future = new DefaultFuture(client, request, 1000);
+
+        client.reconnect();
+        Channel channel = client.getConnection();
+        DefaultFuture.sent(channel, request);
+        // the disconnected event of the old connection comes after the request is sent again
+        DefaultFuture.closeChannel(old);
+        assertFalse(future.isDone());
+
+        DefaultFuture.received(channel, newResponse(request, "hello"));
+        assertEquals("hello", future.get());
+        assertEquals(0, DefaultFuture.getPendingCount(client));
+    }
+
+    @Test
+    public void testDisconnectFailsSentRequests() throws Exception {
+        Channel channel = client.getConnection();
+        Request sent = newRequest();
+        DefaultFuture sentFuture = new DefaultFuture(client, sent, 1000);
+        DefaultFuture.sent(channel, sent);
+        DefaultFuture unsentFuture = new DefaultFuture(client, newRequest(), 1000);
+
+        DefaultFuture.closeChannel(channel);
+
+        assertTrue(sentFuture.isDone());
+        try {
+            sentFuture.get();
+            fail();
+        } catch (RemotingException expected) {
+        }
+        assertFalse(unsentFuture.isDone());
+
+        client.close();
+        DefaultFuture.closeChannel(client);
+        assertTrue(unsentFuture.isDone());
+    }
+
+    @Test
+    public void testInflightLimit() throws Exception {
+        final ReconnectClient limited = new ReconnectClient(URL.valueOf(
+                "dubbo://127.0.0.1:20880/test?reconnect=false&codec=exchange&inflight=4&inflight.failfast=true"));
+        final Queue<DefaultFuture> registered = new ConcurrentLinkedQueue<DefaultFuture>();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[32];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        registered.add(DefaultFuture.newFuture(limited, newRequest(), 1000));
+                    } catch (Exception expected) {
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4, registered.size());
+        assertEquals(4, DefaultFuture.getPendingCount(limited));
+
+        // a response frees the slot of its request
+        Request request = registered.peek().getRequest();
+        DefaultFuture.received(limited.getConnection(), newResponse(request, "hello"));
+        DefaultFuture.newFuture(limited, newRequest(), 1000);
+        assertEquals(4, DefaultFuture.getPendingCount(limited));
+        limited.close();
+        DefaultFuture.closeChannel(limited);
+    }
+
+    private static Request newRequest() {
+        Request request = new Request();
+        request.setVersion("2.0.0");
+        request.setTwoWay(true);
+        return request;
+    }
+
+    private static Response newResponse(Request request, Object result) {
+        Response response = new Response(request.getId(), request.getVersion());
+        response.setResult(result);
+        return response;
+    }
+
+    private static class ReconnectClient extends AbstractClient {
+
+        private volatile Channel connection;
+
+        ReconnectClient(URL url) throws RemotingException {
+            super(url, new ChannelHandlerAdapter());
+        }
+
+        Channel getConnection() {
+            return connection;
+        }
+
+        @Override
+        protected void doOpen() throws Throwable {
+        }
+
+        @Override
+        protected void doClose() throws Throwable {
+        }
+
+        @Override
+        protected void doConnect() throws Throwable {
+            connection = new MockChannel(getUrl()) {
+                @Override
+                public ChannelHandler getChannelHandler() {
+                    return ReconnectClient.this;
+                }
+            };
+        }
+
+        @Override
+        protected void doDisConnect() throws Throwable {
+            connection = null;
+        }
+
+        @Override
+        protected Channel getChannel() {
+            return connection;
+        }
+    }
+
+}
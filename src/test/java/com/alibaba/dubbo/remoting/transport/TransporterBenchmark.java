@@ -0,0 +1,94 @@
+/*
+ * Copyright 1999-2011 Alibaba Group.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.dubbo.remoting.transport;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.utils.NetUtils;
+import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.remoting.exchange.ExchangeChannel;
+import com.alibaba.dubbo.remoting.exchange.ExchangeClient;
+import com.alibaba.dubbo.remoting.exchange.ExchangeServer;
+import com.alibaba.dubbo.remoting.exchange.Exchangers;
+import com.alibaba.dubbo.remoting.exchange.support.ExchangeHandlerAdapter;
+
+/**
+ * Loopback request/response throughput of the exchange layer over the netty 3 and the netty 4
+ * transporters, one shared client connection, echo server.
+ */
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Threads( 4 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class TransporterBenchmark {
+
+    @Param( { "netty", "netty4" } )
+    String transporter;
+
+    ExchangeServer server;
+
+    ExchangeClient client;
+
+    @Setup
+    public void setUp() throws Exception {
+        URL url = URL.valueOf( "exchange://127.0.0.1:" + NetUtils.getAvailablePort()
+                                       + "?codec=exchange&timeout=3000&server=" + transporter
+                                       + "&client=" + transporter );
+        server = Exchangers.bind( url, new ExchangeHandlerAdapter() {
+            @Override
+            public Object reply( ExchangeChannel channel, Object msg ) throws RemotingException {
+                return msg;
+            }
+        } );
+        client = Exchangers.connect( url );
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public Object request() throws RemotingException {
+        return client.request( "hello" ).get();
+    }
+
+    public static void main( String[] args ) throws Exception {
+        new Runner( new OptionsBuilder().include( TransporterBenchmark.class.getSimpleName() ).build() ).run();
+    }
+
+}
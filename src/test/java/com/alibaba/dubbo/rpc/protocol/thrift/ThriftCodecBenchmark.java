@@ -0,0 +1,153 @@
+package com.alibaba.dubbo.rpc.protocol.thrift;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.remoting.Channel;
+import com.alibaba.dubbo.remoting.MockChannel;
+import com.alibaba.dubbo.remoting.buffer.ChannelBuffer;
+import com.alibaba.dubbo.remoting.buffer.ChannelBuffers;
+import com.alibaba.dubbo.remoting.exchange.Request;
+import com.alibaba.dubbo.remoting.exchange.Response;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.dubbo.apps.thrift.Hello;
+import com.dubbo.apps.thrift2.Man;
+import com.dubbo.apps.thrift2.People;
+import com.dubbo.apps.thrift2.SharedService;
+
+/**
+ * {@link ThriftCodec} on the consumer (encode request, decode response) and the provider
+ * (decode request and encode its response) side, in the steady state of a connection.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ThriftCodecBenchmark {
+
+    @Param( { "hello", "shared" } )
+    private String message;
+
+    @Param( { "binary", "compact" } )
+    private String protocol;
+
+    private ThriftCodec codec;
+
+    private Channel consumer;
+
+    private Channel provider;
+
+    private Request request;
+
+    private Response response;
+
+    private byte[] requestBytes;
+
+    private byte[] responseBytes;
+
+    private ChannelBuffer buffer;
+
+    private long id;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        String serviceName;
+        RpcInvocation invocation;
+        Object result;
+
+        if ( "hello".equals( message ) ) {
+            serviceName = Hello.Iface.class.getName();
+            invocation = new RpcInvocation( "helloString", new Class<?>[] { String.class }, new Object[] { "hello world" } );
+            result = "hello world";
+        } else {
+            serviceName = SharedService.Iface.class.getName();
+            invocation = new RpcInvocation( "getStruct", new Class<?>[] { int.class, People.class },
+                                            new Object[] { 1, new People( 2, "name", 99, 86475.387567 ) } );
+            result = new Man().setSex( 2 ).setName( "name" ).setAge( 99 ).setPrice( 86475.387567 );
+        }
+        invocation.setAttachment( Constants.INTERFACE_KEY, serviceName );
+
+        URL url = URL.valueOf( "thrift://127.0.0.1:40880/" + serviceName
+                                       + "?" + ThriftConstants.THRIFT_PROTOCOL_KEY + "=" + protocol );
+        codec = new ThriftCodec();
+        consumer = new MockChannel( url );
+        provider = new MockChannel( url );
+        buffer = ChannelBuffers.dynamicBuffer( 1024 );
+
+        request = new Request();
+        request.setData( invocation );
+        response = new Response();
+        response.setResult( new RpcResult( result ) );
+
+        // two exchanges, the consumer sends service ids afterwards
+        for ( int i = 0; i < 2; i++ ) {
+            buffer.clear();
+            codec.encode( consumer, buffer, request );
+            requestBytes = toBytes( buffer );
+            serverRoundTrip();
+            responseBytes = toBytes( buffer );
+            codec.decode( consumer, ChannelBuffers.wrappedBuffer( responseBytes ) );
+        }
+        buffer.clear();
+        codec.encode( consumer, buffer, request );
+        requestBytes = toBytes( buffer );
+
+    }
+
+    @Benchmark
+    public ChannelBuffer encodeRequest() throws Exception {
+        buffer.clear();
+        codec.encode( consumer, buffer, request );
+        return buffer;
+    }
+
+    @Benchmark
+    public Object decodeResponse() throws Exception {
+        return codec.decode( consumer, ChannelBuffers.wrappedBuffer( responseBytes ) );
+    }
+
+    /**
+     * decode request and encode its response, the request is correlated until the response is encoded.
+     */
+    @Benchmark
+    public ChannelBuffer serverRoundTrip() throws Exception {
+        Request decoded = ( Request ) codec.decode( provider, ChannelBuffers.wrappedBuffer( requestBytes ) );
+        response.setId( decoded.getId() );
+        buffer.clear();
+        codec.encode( provider, buffer, response );
+        return buffer;
+    }
+
+    private static byte[] toBytes( ChannelBuffer buffer ) {
+        byte[] bytes = new byte[buffer.readableBytes()];
+        buffer.getBytes( buffer.readerIndex(), bytes );
+        return bytes;
+    }
+
+    public static void main( String[] args ) throws Exception {
+        new Runner( new OptionsBuilder()
+                            .include( ThriftCodecBenchmark.class.getSimpleName() )
+                            .jvmArgsAppend( "--add-opens=java.base/java.lang=ALL-UNNAMED" )
+                            .build() ).run();
+    }
+
+}
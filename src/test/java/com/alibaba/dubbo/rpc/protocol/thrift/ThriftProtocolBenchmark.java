@@ -0,0 +1,213 @@
+package com.alibaba.dubbo.rpc.protocol.thrift;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.server.TServer;
+import org.apache.thrift.server.TThreadedSelectorServer;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TNonblockingServerSocket;
+import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.common.extension.ExtensionLoader;
+import com.alibaba.dubbo.common.utils.NetUtils;
+import com.alibaba.dubbo.rpc.Exporter;
+import com.alibaba.dubbo.rpc.Protocol;
+import com.alibaba.dubbo.rpc.ProxyFactory;
+import com.dubbo.apps.thrift.Hello;
+import com.dubbo.apps.thrift.HelloServiceImpl;
+import com.dubbo.apps.thrift2.Man;
+import com.dubbo.apps.thrift2.People;
+import com.dubbo.apps.thrift2.SharedService;
+import com.dubbo.apps.thrift2.SharedServiceImpl;
+
+/**
+ * Loopback throughput and latency of the thrift protocol (<code>NettyServer</code> and
+ * <code>NettyClient</code>) head to head with plain libthrift, a framed
+ * <code>TThreadedSelectorServer</code> and a blocking client per thread.
+ * <ul>
+ * <li>dubbo*: dubbo consumer and provider, dubbo header</li>
+ * <li>thrift*: libthrift client and server</li>
+ * <li>nativeConsumer*: dubbo consumer (<code>thrift_native=true</code>) and libthrift server</li>
+ * </ul>
+ */
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Threads( 4 )
+@Fork( 1 )
+public class ThriftProtocolBenchmark {
+
+    private static final String HELLO = Hello.Iface.class.getName();
+
+    private static final String SHARED = SharedService.Iface.class.getName();
+
+    @State( Scope.Benchmark )
+    public static class Servers {
+
+        Protocol protocol;
+
+        Exporter<?> helloExporter;
+
+        Exporter<?> sharedExporter;
+
+        TServer helloServer;
+
+        TServer sharedServer;
+
+        int helloPort;
+
+        int sharedPort;
+
+        Hello.Iface dubboHello;
+
+        SharedService.Iface dubboShared;
+
+        Hello.Iface nativeHello;
+
+        SharedService.Iface nativeShared;
+
+        @Setup
+        public void setUp() throws Exception {
+
+            protocol = ExtensionLoader.getExtensionLoader( Protocol.class ).getExtension( ThriftProtocol.NAME );
+            ProxyFactory proxyFactory = ExtensionLoader.getExtensionLoader( ProxyFactory.class ).getAdaptiveExtension();
+
+            int port = NetUtils.getAvailablePort();
+            URL helloUrl = url( port, HELLO, "" );
+            URL sharedUrl = url( port, SHARED, "" );
+            helloExporter = protocol.export( proxyFactory.getInvoker( new HelloServiceImpl(), Hello.Iface.class, helloUrl ) );
+            sharedExporter = protocol.export( proxyFactory.getInvoker( new SharedServiceImpl(), SharedService.Iface.class, sharedUrl ) );
+            dubboHello = proxyFactory.getProxy( protocol.refer( Hello.Iface.class, helloUrl ) );
+            dubboShared = proxyFactory.getProxy( protocol.refer( SharedService.Iface.class, sharedUrl ) );
+
+            helloPort = NetUtils.getAvailablePort();
+            helloServer = serve( helloPort, new Hello.Processor<Hello.Iface>( new HelloServiceImpl() ) );
+            sharedPort = NetUtils.getAvailablePort();
+            sharedServer = serve( sharedPort, new SharedService.Processor<SharedService.Iface>( new SharedServiceImpl() ) );
+
+            String nativeParameters = "&" + ThriftConstants.NATIVE_KEY + "=true&" + ThriftConstants.THRIFT_TRANSPORT_KEY + "=" + ThriftConstants.FRAMED_THRIFT_TRANSPORT;
+            nativeHello = proxyFactory.getProxy( protocol.refer( Hello.Iface.class, url( helloPort, HELLO, nativeParameters ) ) );
+            nativeShared = proxyFactory.getProxy( protocol.refer( SharedService.Iface.class, url( sharedPort, SHARED, nativeParameters ) ) );
+
+        }
+
+        @TearDown
+        public void tearDown() {
+            helloExporter.unexport();
+            sharedExporter.unexport();
+            protocol.destroy();
+            helloServer.stop();
+            sharedServer.stop();
+        }
+
+        private static URL url( int port, String serviceName, String parameters ) {
+            return URL.valueOf( "thrift://127.0.0.1:" + port + "/" + serviceName
+                                        + "?interface=" + serviceName + "&timeout=5000" + parameters );
+        }
+
+        private static TServer serve( int port, TProcessor processor ) throws Exception {
+            final TServer server = new TThreadedSelectorServer(
+                    new TThreadedSelectorServer.Args( new TNonblockingServerSocket( port ) ).processor( processor ) );
+            Thread thread = new Thread( new Runnable() {
+                public void run() {
+                    server.serve();
+                }
+            }, "ThriftProtocolBenchmark-" + port );
+            thread.setDaemon( true );
+            thread.start();
+            while ( !server.isServing() ) {
+                Thread.sleep( 10 );
+            }
+            return server;
+        }
+
+    }
+
+    @State( Scope.Thread )
+    public static class Clients {
+
+        TTransport helloTransport;
+
+        TTransport sharedTransport;
+
+        Hello.Client hello;
+
+        SharedService.Client shared;
+
+        @Setup
+        public void setUp( Servers servers ) throws Exception {
+            helloTransport = new TFramedTransport( new TSocket( "127.0.0.1", servers.helloPort ) );
+            helloTransport.open();
+            hello = new Hello.Client( new TBinaryProtocol( helloTransport ) );
+            sharedTransport = new TFramedTransport( new TSocket( "127.0.0.1", servers.sharedPort ) );
+            sharedTransport.open();
+            shared = new SharedService.Client( new TBinaryProtocol( sharedTransport ) );
+        }
+
+        @TearDown
+        public void tearDown() {
+            helloTransport.close();
+            sharedTransport.close();
+        }
+
+    }
+
+    private static final People PEOPLE = new People( 2, "name", 99, 86475.387567 );
+
+    @Benchmark
+    public String dubboHelloString( Servers servers ) throws Exception {
+        return servers.dubboHello.helloString( "hello world" );
+    }
+
+    @Benchmark
+    public Man dubboGetStruct( Servers servers ) throws Exception {
+        return servers.dubboShared.getStruct( 1, PEOPLE );
+    }
+
+    @Benchmark
+    public String thriftHelloString( Clients clients ) throws Exception {
+        return clients.hello.helloString( "hello world" );
+    }
+
+    @Benchmark
+    public Man thriftGetStruct( Clients clients ) throws Exception {
+        return clients.shared.getStruct( 1, PEOPLE );
+    }
+
+    @Benchmark
+    public String nativeConsumerHelloString( Servers servers ) throws Exception {
+        return servers.nativeHello.helloString( "hello world" );
+    }
+
+    @Benchmark
+    public Man nativeConsumerGetStruct( Servers servers ) throws Exception {
+        return servers.nativeShared.getStruct( 1, PEOPLE );
+    }
+
+    public static void main( String[] args ) throws Exception {
+        new Runner( new OptionsBuilder()
+                            .include( ThriftProtocolBenchmark.class.getSimpleName() )
+                            .jvmArgsAppend( "--add-opens=java.base/java.lang=ALL-UNNAMED" )
+                            .build() ).run();
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.alibaba.dubbo.rpc.protocol.thrift;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.thrift.TBase;
+import org.apache.thrift.TFieldIdEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dubbo.apps.thrift2.Man;
+import com.dubbo.apps.thrift2.People;
+import com.dubbo.apps.thrift2.SharedService;
+
+/**
+ * Reflective struct access (the former ThriftCodec path) against {@link ThriftStructAccessor}.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ThriftStructAccessorBenchmark {
+
+    private SharedService.getStruct_args args;
+
+    private Man man;
+
+    @Setup
+    public void setUp() {
+        args = new SharedService.getStruct_args( 1, new People( 2, "name", 99, 86475.387567 ) );
+        man = new Man();
+        ThriftStructAccessor.getAccessor( SharedService.getStruct_args.class );
+        ThriftStructAccessor.getAccessor( SharedService.getStruct_result.class );
+    }
+
+    @Benchmark
+    public Object[] argumentsReflective() throws Exception {
+        Class<?> clazz = args.getClass();
+        List<Object> parameters = new ArrayList<Object>();
+        List<Class<?>> parameterTypes = new ArrayList<Class<?>>();
+        int index = 1;
+        while ( true ) {
+            TFieldIdEnum fieldIdEnum = args.fieldForId( index++ );
+            if ( fieldIdEnum == null ) { break; }
+            Method getMethod = clazz.getMethod( ThriftUtils.generateGetMethodName( fieldIdEnum.getFieldName() ) );
+            parameterTypes.add( getMethod.getReturnType() );
+            parameters.add( getMethod.invoke( args ) );
+        }
+        parameterTypes.toArray( new Class[parameterTypes.size()] );
+        return parameters.toArray();
+    }
+
+    @Benchmark
+    public Object[] argumentsAccessor() {
+        ThriftStructAccessor accessor = ThriftStructAccessor.getAccessor( SharedService.getStruct_args.class );
+        accessor.getFieldTypes();
+        return accessor.getFieldValues( args );
+    }
+
+    @Benchmark
+    public Object resultReflective() throws Exception {
+        Class<?> clazz = SharedService.getStruct_result.class;
+        TBase resultObj = ( TBase ) clazz.newInstance();
+        String fieldName = resultObj.fieldForId( 0 ).getFieldName();
+        Method getMethod = clazz.getMethod( ThriftUtils.generateGetMethodName( fieldName ) );
+        Method setMethod = clazz.getMethod( ThriftUtils.generateSetMethodName( fieldName ), getMethod.getReturnType() );
+        setMethod.invoke( resultObj, man );
+        return resultObj;
+    }
+
+    @Benchmark
+    public Object resultAccessor() {
+        ThriftStructAccessor accessor = ThriftStructAccessor.getAccessor( SharedService.getStruct_result.class );
+        TBase resultObj = accessor.newInstance();
+        int index = accessor.indexOf( ( short ) 0 );
+        accessor.setFieldValue( resultObj, index, man );
+        return resultObj;
+    }
+
+    public static void main( String[] args ) throws Exception {
+        new Runner( new OptionsBuilder()
+                            .include( ThriftStructAccessorBenchmark.class.getSimpleName() )
+                            .jvmArgsAppend( "--add-opens=java.base/java.lang=ALL-UNNAMED" )
+                            .build() ).run();
+    }
+
+}